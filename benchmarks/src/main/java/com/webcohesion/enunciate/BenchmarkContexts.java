@@ -0,0 +1,47 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate;
+
+import com.webcohesion.enunciate.api.ApiRegistry;
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+
+import javax.lang.model.element.Element;
+import java.util.Set;
+
+/**
+ * Creates Enunciate contexts for the benchmarks that exercise the modules without running the annotation processor.
+ *
+ * @author Ryan Heaton
+ */
+public class BenchmarkContexts {
+
+  private BenchmarkContexts() {}
+
+  /**
+   * Create a new context, as the annotation processor would.
+   *
+   * @param enunciate The engine.
+   * @param env The processing environment.
+   * @param apiElements The (decorated) API elements, all of which are local.
+   * @return The context.
+   */
+  public static EnunciateContext newContext(Enunciate enunciate, DecoratedProcessingEnvironment env, Set<Element> apiElements) {
+    EnunciateContext context = new EnunciateContext(env, enunciate.getLogger(), new ApiRegistry(), enunciate.getConfiguration(), null, null);
+    context.setApiElements(apiElements);
+    context.setLocalApiElements(apiElements);
+    return context;
+  }
+}
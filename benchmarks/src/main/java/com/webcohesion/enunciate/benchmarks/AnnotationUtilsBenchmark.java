@@ -0,0 +1,90 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+import com.webcohesion.enunciate.javac.decorations.ElementDecorator;
+import com.webcohesion.enunciate.javac.decorations.element.DecoratedElement;
+import com.webcohesion.enunciate.javac.decorations.element.DecoratedTypeElement;
+import com.webcohesion.enunciate.util.AnnotationUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.xml.bind.annotation.XmlType;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of the inherited annotation and javadoc tag lookups the resource models make for each of their
+ * methods, against a synthetic API with deep type hierarchies.
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnnotationUtilsBenchmark {
+
+  @Param({"200"})
+  public int types;
+
+  @Param({"10"})
+  public int depth;
+
+  private File srcDir;
+  private ProcessedApi api;
+  private DecoratedProcessingEnvironment env;
+
+  @Setup(Level.Trial)
+  public void processApi() throws IOException {
+    this.srcDir = BenchmarkUtils.createTempDir("enunciate-benchmark-src");
+    List<File> sourceFiles = new SyntheticApi().setResourceCount(this.types / 10).setTypeCount(this.types).setDepth(this.depth).writeTo(this.srcDir);
+    this.api = ProcessedApi.process(sourceFiles, BenchmarkUtils.getClasspath());
+    this.env = this.api.newDecoratedProcessingEnvironment();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteApi() {
+    BenchmarkUtils.delete(this.srcDir);
+  }
+
+  @Benchmark
+  public void inheritedLookups(Blackhole blackhole) {
+    lookUp(this.env, blackhole);
+  }
+
+  @Benchmark
+  public void inheritedLookupsNewEnvironment(Blackhole blackhole) {
+    lookUp(this.api.newDecoratedProcessingEnvironment(), blackhole);
+  }
+
+  private void lookUp(DecoratedProcessingEnvironment env, Blackhole blackhole) {
+    for (TypeElement element : this.api.getTypeElements()) {
+      DecoratedTypeElement decorated = (DecoratedTypeElement) ElementDecorator.decorate(element, env);
+      for (Element enclosed : decorated.getEnclosedElements()) {
+        blackhole.consume(AnnotationUtils.getAnnotations(XmlType.class, enclosed));
+        blackhole.consume(AnnotationUtils.getJavaDocTags("HTTP", (DecoratedElement) enclosed));
+      }
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.util.AntPatternMatcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of matching class names against Ant-style patterns, as done for the include/exclude and facet filters.
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntPatternMatcherBenchmark {
+
+  @Param({"com.example.api.**", "com.example.**.model.*", "**.*Resource", "com.example.api.model.Person"})
+  public String pattern;
+
+  @Param({"com.example.api.model.Person", "org.other.lib.internal.deeply.nested.pkg.SomeResource"})
+  public String path;
+
+  private AntPatternMatcher matcher;
+
+  @Setup
+  public void createMatcher() {
+    this.matcher = new AntPatternMatcher();
+    this.matcher.setPathSeparator(".");
+  }
+
+  @Benchmark
+  public boolean match() {
+    return this.matcher.match(this.pattern, this.path);
+  }
+}
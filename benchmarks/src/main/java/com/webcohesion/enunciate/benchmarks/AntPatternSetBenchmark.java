@@ -0,0 +1,97 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.util.AntPatternMatcher;
+import com.webcohesion.enunciate.util.AntPatternSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of finding the facets of a class name among many facet patterns, all at once with a pattern set versus
+ * matching each pattern in turn.
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AntPatternSetBenchmark {
+
+  @Param({"200"})
+  public int patternCount;
+
+  @Param({"com.example.module42.model.Person", "org.other.lib.internal.deeply.nested.pkg.SomeResource"})
+  public String path;
+
+  private List<String> patterns;
+  private List<String> facets;
+  private AntPatternMatcher matcher;
+  private AntPatternSet<String> patternSet;
+
+  @Setup
+  public void createPatterns() {
+    this.patterns = new ArrayList<String>();
+    this.facets = new ArrayList<String>();
+    for (int i = 0; i < this.patternCount; i++) {
+      switch (i % 4) {
+        case 0:
+          this.patterns.add("com.example.module" + i + ".**");
+          break;
+        case 1:
+          this.patterns.add("com.example.module" + (i - 1) + ".model.*");
+          break;
+        case 2:
+          this.patterns.add("com.example.**.Type" + i);
+          break;
+        default:
+          this.patterns.add("com.example.api.Type" + i);
+          break;
+      }
+      this.facets.add("facet" + (i % 20));
+    }
+
+    this.matcher = new AntPatternMatcher();
+    this.matcher.setPathSeparator(".");
+    this.patternSet = new AntPatternSet<String>();
+    for (int i = 0; i < this.patterns.size(); i++) {
+      this.patternSet.add(this.patterns.get(i), this.facets.get(i));
+    }
+  }
+
+  @Benchmark
+  public TreeSet<String> patternSet() {
+    return new TreeSet<String>(this.patternSet.findMatches(this.path));
+  }
+
+  @Benchmark
+  public TreeSet<String> eachPattern() {
+    TreeSet<String> facets = new TreeSet<String>();
+    for (int i = 0; i < this.patterns.size(); i++) {
+      if (this.matcher.match(this.patterns.get(i), this.path)) {
+        facets.add(this.facets.get(i));
+      }
+    }
+    return facets;
+  }
+}
@@ -0,0 +1,78 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * @author Ryan Heaton
+ */
+public class BenchmarkUtils {
+
+  private BenchmarkUtils() {}
+
+  /**
+   * Create a new temporary directory.
+   *
+   * @param prefix The prefix of the directory name.
+   * @return The directory.
+   */
+  public static File createTempDir(String prefix) throws IOException {
+    File dir = File.createTempFile(prefix, "");
+    if (!dir.delete() || !dir.mkdirs()) {
+      throw new IOException("Unable to create temporary directory " + dir);
+    }
+    return dir;
+  }
+
+  /**
+   * Delete the specified file or directory.
+   *
+   * @param file The file or directory to delete.
+   */
+  public static void delete(File file) {
+    if (file == null) {
+      return;
+    }
+
+    File[] children = file.listFiles();
+    if (children != null) {
+      for (File child : children) {
+        delete(child);
+      }
+    }
+    file.delete();
+  }
+
+  /**
+   * The classpath of the benchmark JVM, which is also the classpath the synthetic APIs are compiled against.
+   *
+   * @return The classpath.
+   */
+  public static List<File> getClasspath() {
+    List<File> classpath = new ArrayList<File>();
+    for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+      File file = new File(entry);
+      if (file.exists()) {
+        classpath.add(file);
+      }
+    }
+    return classpath;
+  }
+}
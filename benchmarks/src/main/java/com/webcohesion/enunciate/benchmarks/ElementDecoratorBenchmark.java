@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+import com.webcohesion.enunciate.javac.decorations.ElementDecorator;
+import com.webcohesion.enunciate.javac.decorations.element.DecoratedTypeElement;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of decorating the elements of a synthetic API, and of reading the decorations most commonly used
+ * by the modules (the JavaDoc and the enclosed elements).
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ElementDecoratorBenchmark {
+
+  @Param({"200"})
+  public int types;
+
+  private File srcDir;
+  private ProcessedApi api;
+  private DecoratedProcessingEnvironment env;
+
+  @Setup(Level.Trial)
+  public void processApi() throws IOException {
+    this.srcDir = BenchmarkUtils.createTempDir("enunciate-benchmark-src");
+    List<File> sourceFiles = new SyntheticApi().setResourceCount(this.types / 10).setTypeCount(this.types).writeTo(this.srcDir);
+    this.api = ProcessedApi.process(sourceFiles, BenchmarkUtils.getClasspath());
+    this.env = this.api.newDecoratedProcessingEnvironment();
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteApi() {
+    BenchmarkUtils.delete(this.srcDir);
+  }
+
+  @Benchmark
+  public void decorate(Blackhole blackhole) {
+    for (TypeElement element : this.api.getTypeElements()) {
+      blackhole.consume(ElementDecorator.decorate(element, this.env));
+    }
+  }
+
+  @Benchmark
+  public void decorateAndRead(Blackhole blackhole) {
+    for (TypeElement element : this.api.getTypeElements()) {
+      DecoratedTypeElement decorated = (DecoratedTypeElement) ElementDecorator.decorate(element, this.env);
+      blackhole.consume(decorated.getJavaDoc());
+      for (Element enclosed : decorated.getEnclosedElements()) {
+        blackhole.consume(enclosed.getAnnotationMirrors());
+      }
+    }
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.EnunciateLogger;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end benchmark of {@link Enunciate#run()} against a synthetic API.
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class EnunciateRunBenchmark {
+
+  @Param({"10", "100"})
+  public int resources;
+
+  @Param({"50", "500"})
+  public int types;
+
+  @Param({"3"})
+  public int depth;
+
+  @Param({"0"})
+  public int threads;
+
+  private File srcDir;
+  private List<File> sourceFiles;
+  private List<File> classpath;
+  private File buildDir;
+  private File incrementalBuildDir;
+
+  @Setup(Level.Trial)
+  public void writeApi() throws IOException {
+    this.srcDir = BenchmarkUtils.createTempDir("enunciate-benchmark-src");
+    this.sourceFiles = new SyntheticApi().setResourceCount(this.resources).setTypeCount(this.types).setDepth(this.depth).writeTo(this.srcDir);
+    this.classpath = BenchmarkUtils.getClasspath();
+    this.incrementalBuildDir = BenchmarkUtils.createTempDir("enunciate-benchmark-incremental");
+  }
+
+  @Setup(Level.Invocation)
+  public void createBuildDir() throws IOException {
+    this.buildDir = BenchmarkUtils.createTempDir("enunciate-benchmark-build");
+  }
+
+  @TearDown(Level.Invocation)
+  public void deleteBuildDir() {
+    BenchmarkUtils.delete(this.buildDir);
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteApi() {
+    BenchmarkUtils.delete(this.srcDir);
+    BenchmarkUtils.delete(this.incrementalBuildDir);
+  }
+
+  /**
+   * A build from scratch.
+   */
+  @Benchmark
+  public Enunciate fullBuild() {
+    return run(this.buildDir);
+  }
+
+  /**
+   * A build into a build directory that's left over from the previous invocation, so everything is up-to-date.
+   */
+  @Benchmark
+  public Enunciate incrementalBuild() {
+    return run(this.incrementalBuildDir);
+  }
+
+  protected Enunciate run(File buildDir) {
+    Enunciate enunciate = new Enunciate();
+    enunciate.setLogger(new SilentLogger());
+    enunciate.setBuildDir(buildDir);
+    enunciate.setExtraThreadCount(this.threads);
+    enunciate.setSourceFiles(new TreeSet<File>(this.sourceFiles));
+    enunciate.setClasspath(new ArrayList<File>(this.classpath));
+    enunciate.loadDiscoveredModules();
+    enunciate.run();
+    return enunciate;
+  }
+
+  static class SilentLogger implements EnunciateLogger {
+    @Override
+    public void debug(String message, Object... formatArgs) {
+    }
+
+    @Override
+    public void info(String message, Object... formatArgs) {
+    }
+
+    @Override
+    public void warn(String message, Object... formatArgs) {
+    }
+
+    @Override
+    public void error(String message, Object... formatArgs) {
+      System.err.println(String.format(message, formatArgs));
+    }
+  }
+}
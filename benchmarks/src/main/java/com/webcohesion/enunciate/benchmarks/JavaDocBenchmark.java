@@ -0,0 +1,103 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.javac.javadoc.DefaultJavaDocTagHandler;
+import com.webcohesion.enunciate.javac.javadoc.JavaDoc;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of parsing JavaDoc comments, compared with the {@link LegacyJavaDoc legacy parser}.
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaDocBenchmark {
+
+  static final String SHORT_COMMENT = "The name of the thing.";
+
+  static final String LONG_COMMENT =
+    "Read a {@link com.example.model.Person} by id, along with the {@link com.example.model.Address addresses}\n" +
+    "the person has lived at. Use {@code expand=true} to include the full history.\n" +
+    "\n" +
+    "<p>Example:</p>\n" +
+    "<pre>\n" +
+    "  GET /persons/1234?expand=true\n" +
+    "</pre>\n" +
+    "\n" +
+    "@param id The id of the {@link com.example.model.Person person}.\n" +
+    "@param expand Whether to expand the history.\n" +
+    "@return The person, as described at {@link com.example.model.Person#getName()}.\n" +
+    "@throws com.example.NotFoundException If the person wasn't found.\n" +
+    "@since 1.2\n" +
+    "@see com.example.model.Address\n";
+
+  //from the full-api-edge-cases example, as javac hands it over.
+  static final String PREFORMATTED_COMMENT =
+    " Stores a person in the database.\n" +
+    "<pre>\n" +
+    "   {\n" +
+    "      \"some\" : \"example\",\n" +
+    "      \"json\" : \"values\"\n" +
+    "   }\n" +
+    "</pre>\n" +
+    "\n" +
+    " @since Version E\n" +
+    " @param person The person to store in the database.\n" +
+    "               <pre><code>&lt;codes>\n" +
+    "                 &lt;code>This&lt;/code>\n" +
+    "                 &lt;code>is&lt;/code>\n" +
+    "                 &lt;/codes></code></pre>\n" +
+    " @return The person that was stored (presumably modified for storage).\n" +
+    " @HTTP 333 if something weird happens.\n";
+
+  @Param({"short", "long", "preformatted"})
+  public String comment;
+
+  private String docComment;
+
+  private final DefaultJavaDocTagHandler tagHandler = new DefaultJavaDocTagHandler();
+
+  @Setup
+  public void selectComment() {
+    if ("short".equals(this.comment)) {
+      this.docComment = SHORT_COMMENT;
+    }
+    else if ("long".equals(this.comment)) {
+      this.docComment = LONG_COMMENT;
+    }
+    else {
+      this.docComment = PREFORMATTED_COMMENT;
+    }
+  }
+
+  @Benchmark
+  public JavaDoc parse() {
+    return new JavaDoc(this.docComment, this.tagHandler);
+  }
+
+  @Benchmark
+  public LegacyJavaDoc parseLegacy() {
+    return new LegacyJavaDoc(this.docComment, this.tagHandler);
+  }
+}
@@ -0,0 +1,101 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.BenchmarkContexts;
+import com.webcohesion.enunciate.EnunciateContext;
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+import com.webcohesion.enunciate.javac.decorations.ElementDecorator;
+import com.webcohesion.enunciate.module.ApiRegistryProviderModule;
+import com.webcohesion.enunciate.modules.jaxb.EnunciateJaxbContext;
+import com.webcohesion.enunciate.modules.jaxb.JaxbModule;
+import org.openjdk.jmh.annotations.*;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of building the JAXB model (i.e. {@link EnunciateJaxbContext}) of a synthetic API, to see how it scales
+ * with the number of data types and namespaces. The API is analyzed by javac once per trial, so this doesn't include
+ * the compilation. Use the JMH GC profiler (-prof gc) to see the allocation rate.
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JaxbContextBenchmark {
+
+  @Param({"1000", "10000"})
+  public int types;
+
+  @Param({"1", "10"})
+  public int namespaces;
+
+  @Param({"5"})
+  public int depth;
+
+  private File srcDir;
+  private ProcessedApi api;
+
+  @Setup(Level.Trial)
+  public void processApi() throws IOException {
+    this.srcDir = BenchmarkUtils.createTempDir("enunciate-benchmark-src");
+    SyntheticApi syntheticApi = new SyntheticApi()
+      .setResourceCount(0)
+      .setTypeCount(this.types)
+      .setDepth(this.depth)
+      .setNamespaceCount(this.namespaces)
+      .setGenerics(true);
+    List<File> sourceFiles = syntheticApi.writeTo(this.srcDir);
+    this.api = ProcessedApi.process(sourceFiles, BenchmarkUtils.getClasspath());
+  }
+
+  @TearDown(Level.Trial)
+  public void deleteApi() {
+    BenchmarkUtils.delete(this.srcDir);
+  }
+
+  @Benchmark
+  public EnunciateJaxbContext addAll() {
+    Enunciate enunciate = new Enunciate();
+    enunciate.setLogger(new EnunciateRunBenchmark.SilentLogger());
+    DecoratedProcessingEnvironment env = this.api.newDecoratedProcessingEnvironment();
+    Set<Element> apiElements = new LinkedHashSet<Element>();
+    for (TypeElement element : this.api.getTypeElements()) {
+      apiElements.add(ElementDecorator.decorate(element, env));
+    }
+    EnunciateContext context = BenchmarkContexts.newContext(enunciate, env, apiElements);
+
+    JaxbModule module = new JaxbModule();
+    module.setApiRegistry(context.getApiRegistry());
+    module.setDefaultDataTypeDetectionStrategy(ApiRegistryProviderModule.DataTypeDetectionStrategy.aggressive);
+    module.init(enunciate);
+    module.init(context);
+    module.call(context);
+    return module.getJaxbContext();
+  }
+}
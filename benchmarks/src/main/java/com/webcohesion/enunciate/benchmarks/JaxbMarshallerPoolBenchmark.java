@@ -0,0 +1,82 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.rt.EnunciateJaxbContext;
+import com.webcohesion.enunciate.rt.EnunciateJaxbNamespacePrefixMapper;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of a JAX-RS-style (un)marshal of a small entity, creating and configuring a new (un)marshaller for each
+ * one versus reusing the thread's pooled (un)marshaller.
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JaxbMarshallerPoolBenchmark {
+
+  @XmlRootElement(namespace = "urn:benchmark")
+  public static class Entity {
+    public String name;
+    public int count;
+  }
+
+  @Param({"false", "true"})
+  public boolean pooled;
+
+  private EnunciateJaxbContext context;
+  private Entity entity;
+  private String xml;
+
+  @Setup
+  public void createContext() throws JAXBException {
+    Properties prefixes = new Properties();
+    prefixes.setProperty("urn:benchmark", "b");
+    this.context = new EnunciateJaxbContext(JAXBContext.newInstance(Entity.class), new EnunciateJaxbNamespacePrefixMapper("urn:benchmark", prefixes), this.pooled);
+    this.entity = new Entity();
+    this.entity.name = "benchmark";
+    this.entity.count = 42;
+    this.xml = marshal();
+  }
+
+  @Benchmark
+  public String marshal() throws JAXBException {
+    Marshaller marshaller = this.context.createMarshaller();
+    marshaller.setProperty(Marshaller.JAXB_ENCODING, "UTF-8");
+    StringWriter out = new StringWriter();
+    marshaller.marshal(this.entity, out);
+    return out.toString();
+  }
+
+  @Benchmark
+  public Object unmarshal() throws JAXBException {
+    return this.context.createUnmarshaller().unmarshal(new StringReader(this.xml));
+  }
+}
@@ -0,0 +1,121 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.sun.source.util.JavacTask;
+import com.webcohesion.enunciate.javac.decorations.AnnotationMirrorDecoration;
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+import com.webcohesion.enunciate.javac.decorations.ElementDecoration;
+import com.webcohesion.enunciate.javac.decorations.TypeMirrorDecoration;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.TypeElement;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A set of sources that have been analyzed by javac, with the processing environment left open so that the
+ * elements can be worked with.
+ *
+ * @author Ryan Heaton
+ */
+public class ProcessedApi {
+
+  private ProcessingEnvironment processingEnvironment;
+  private final List<TypeElement> typeElements = new ArrayList<TypeElement>();
+
+  /**
+   * Analyze the specified source files.
+   *
+   * @param sourceFiles The source files.
+   * @param classpath The classpath to analyze them against.
+   * @return The processed API.
+   */
+  public static ProcessedApi process(List<File> sourceFiles, List<File> classpath) throws IOException {
+    final ProcessedApi api = new ProcessedApi();
+
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, null);
+    Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sourceFiles);
+    StringBuilder cp = new StringBuilder();
+    for (File entry : classpath) {
+      if (cp.length() > 0) {
+        cp.append(File.pathSeparatorChar);
+      }
+      cp.append(entry.getAbsolutePath());
+    }
+
+    JavacTask task = (JavacTask) compiler.getTask(null, fileManager, null, Arrays.asList("-cp", cp.toString()), null, units);
+    task.setProcessors(Arrays.asList(new CapturingProcessor(api)));
+    task.analyze();
+    return api;
+  }
+
+  /**
+   * A new decorated processing environment (with no extra decorations).
+   *
+   * @return A new decorated processing environment.
+   */
+  public DecoratedProcessingEnvironment newDecoratedProcessingEnvironment() {
+    return new DecoratedProcessingEnvironment(this.processingEnvironment, Collections.<ElementDecoration>emptyList(), Collections.<TypeMirrorDecoration>emptyList(), Collections.<AnnotationMirrorDecoration>emptyList());
+  }
+
+  public ProcessingEnvironment getProcessingEnvironment() {
+    return processingEnvironment;
+  }
+
+  public List<TypeElement> getTypeElements() {
+    return typeElements;
+  }
+
+  @SupportedAnnotationTypes("*")
+  private static class CapturingProcessor extends AbstractProcessor {
+
+    private final ProcessedApi api;
+
+    private CapturingProcessor(ProcessedApi api) {
+      this.api = api;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+      return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+      super.init(processingEnv);
+      this.api.processingEnvironment = processingEnv;
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+      for (Element element : roundEnv.getRootElements()) {
+        if (element instanceof TypeElement) {
+          this.api.typeElements.add((TypeElement) element);
+        }
+      }
+      return false;
+    }
+  }
+}
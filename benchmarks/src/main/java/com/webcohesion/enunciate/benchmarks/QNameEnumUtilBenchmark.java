@@ -0,0 +1,156 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.metadata.qname.XmlQNameEnum;
+import com.webcohesion.enunciate.metadata.qname.XmlQNameEnumValue;
+import com.webcohesion.enunciate.metadata.qname.XmlUnknownQNameEnumValue;
+import com.webcohesion.enunciate.rt.QNameEnumUtil;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.namespace.QName;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of the QName enum conversions the generated JAXB adapters make for every QName enum value, with the
+ * precomputed indexes of {@link QNameEnumUtil} versus the linear scans of {@link LegacyQNameEnumUtil}.
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QNameEnumUtilBenchmark {
+
+  static final String BASE_URI = "http://example.com/vocabulary/";
+
+  @XmlQNameEnum(namespace = "urn:example:colors")
+  public enum Color {
+    red, orange, yellow, green, blue, indigo, violet, black, white, gray, silver, maroon, olive, lime, aqua, teal, navy,
+    fuchsia, purple, brown, beige, coral, crimson, khaki,
+
+    @XmlQNameEnumValue(namespace = "urn:example:other-colors")
+    magenta,
+
+    @XmlUnknownQNameEnumValue
+    unknown
+  }
+
+  @XmlQNameEnum(base = XmlQNameEnum.BaseType.URI, namespace = BASE_URI)
+  public enum Term {
+    alpha, bravo, charlie, delta, echo, foxtrot, golf, hotel, india, juliet, kilo, lima, mike, november, oscar, papa,
+    quebec, romeo, sierra, tango, uniform, victor, whiskey, xray,
+
+    @XmlQNameEnumValue(namespace = "http://example.com/other/")
+    yankee,
+
+    @XmlUnknownQNameEnumValue
+    unknown
+  }
+
+  private QName lastQName;
+  private QName unknownQName;
+  private String absoluteUri;
+  private String relativeUri;
+
+  @Setup
+  public void createValues() {
+    this.lastQName = new QName("urn:example:other-colors", "magenta");
+    this.unknownQName = new QName("urn:example:colors", "chartreuse");
+    this.absoluteUri = "http://example.com/other/yankee";
+    this.relativeUri = "xray";
+
+    QNameEnumUtil.setDefaultBaseUri(null);
+    for (Color color : new Color[]{Color.red, Color.magenta}) {
+      QName qname = QNameEnumUtil.toQName(color);
+      check(qname.equals(LegacyQNameEnumUtil.toQName(color)), "toQName " + color);
+      check(QNameEnumUtil.fromQName(qname, Color.class) == LegacyQNameEnumUtil.fromQName(qname, Color.class), "fromQName " + qname);
+    }
+    check(QNameEnumUtil.fromQName(this.unknownQName, Color.class) == LegacyQNameEnumUtil.fromQName(this.unknownQName, Color.class), "fromQName unknown");
+    for (String uri : new String[]{this.absoluteUri, this.relativeUri, "../vocabulary/alpha", "zulu"}) {
+      check(QNameEnumUtil.fromURI(uri, Term.class, BASE_URI) == LegacyQNameEnumUtil.fromURI(uri, Term.class, BASE_URI), "fromURI " + uri);
+    }
+  }
+
+  private static void check(boolean condition, String message) {
+    if (!condition) {
+      throw new IllegalStateException("Legacy and indexed conversions disagree: " + message);
+    }
+  }
+
+  @Benchmark
+  public Object fromQName() {
+    return QNameEnumUtil.fromQName(this.lastQName, Color.class);
+  }
+
+  @Benchmark
+  public Object fromQNameLegacy() {
+    return LegacyQNameEnumUtil.fromQName(this.lastQName, Color.class);
+  }
+
+  @Benchmark
+  public Object fromUnknownQName() {
+    return QNameEnumUtil.fromQName(this.unknownQName, Color.class);
+  }
+
+  @Benchmark
+  public Object fromUnknownQNameLegacy() {
+    return LegacyQNameEnumUtil.fromQName(this.unknownQName, Color.class);
+  }
+
+  @Benchmark
+  public Object toQName() {
+    return QNameEnumUtil.toQName(Color.magenta);
+  }
+
+  @Benchmark
+  public Object toQNameLegacy() {
+    return LegacyQNameEnumUtil.toQName(Color.magenta);
+  }
+
+  @Benchmark
+  public Object fromAbsoluteURI() {
+    return QNameEnumUtil.fromURI(this.absoluteUri, Term.class, BASE_URI);
+  }
+
+  @Benchmark
+  public Object fromAbsoluteURILegacy() {
+    return LegacyQNameEnumUtil.fromURI(this.absoluteUri, Term.class, BASE_URI);
+  }
+
+  @Benchmark
+  public Object fromRelativeURI() {
+    return QNameEnumUtil.fromURI(this.relativeUri, Term.class, BASE_URI);
+  }
+
+  @Benchmark
+  public Object fromRelativeURILegacy() {
+    return LegacyQNameEnumUtil.fromURI(this.relativeUri, Term.class, BASE_URI);
+  }
+
+  @Benchmark
+  public Object toURI() {
+    return QNameEnumUtil.toURI(Term.yankee, BASE_URI);
+  }
+
+  @Benchmark
+  public Object toURILegacy() {
+    return LegacyQNameEnumUtil.toURI(Term.yankee, BASE_URI);
+  }
+}
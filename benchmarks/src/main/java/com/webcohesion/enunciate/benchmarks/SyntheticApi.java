@@ -0,0 +1,424 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes the sources of a synthetic JAX-RS API of a configurable size: a number of resources, a number of data types
+ * (annotated for JAXB, and picked up by Jackson), the depth of the inheritance chains between the data types, and the
+ * number of XML namespaces (i.e. packages) the data types are spread across. Every fifth data type is a "leaf" type
+ * with only simple properties; the other data types reference the leaf types, so the type graph is connected but
+ * doesn't get deeper as the API gets bigger. Consecutive data types land in different namespaces, so both the
+ * references and the inheritance chains cross namespaces.<br>
+ * <br>
+ * The API can also be written from the command line, to be used as a fixture for a build:
+ * <pre>
+ *   java -cp benchmarks.jar com.webcohesion.enunciate.benchmarks.SyntheticApi src/main/java --types=20000 --namespaces=10
+ * </pre>
+ *
+ * @author Ryan Heaton
+ */
+public class SyntheticApi {
+
+  private String basePackage = "synthetic.api";
+  private int resourceCount = 10;
+  private int typeCount = 50;
+  private int depth = 3;
+  private int namespaceCount = 1;
+  private boolean generics = false;
+
+  public String getBasePackage() {
+    return basePackage;
+  }
+
+  public SyntheticApi setBasePackage(String basePackage) {
+    this.basePackage = basePackage;
+    return this;
+  }
+
+  public int getResourceCount() {
+    return resourceCount;
+  }
+
+  public SyntheticApi setResourceCount(int resourceCount) {
+    this.resourceCount = resourceCount;
+    return this;
+  }
+
+  public int getTypeCount() {
+    return typeCount;
+  }
+
+  public SyntheticApi setTypeCount(int typeCount) {
+    this.typeCount = Math.max(typeCount, 1);
+    return this;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  /**
+   * The length of the inheritance chains between the data types (1 for no inheritance).
+   *
+   * @param depth The length of the inheritance chains.
+   * @return this.
+   */
+  public SyntheticApi setDepth(int depth) {
+    this.depth = Math.max(depth, 1);
+    return this;
+  }
+
+  public int getNamespaceCount() {
+    return namespaceCount;
+  }
+
+  /**
+   * The number of XML namespaces (each one its own package) to spread the data types across.
+   *
+   * @param namespaceCount The number of namespaces.
+   * @return this.
+   */
+  public SyntheticApi setNamespaceCount(int namespaceCount) {
+    this.namespaceCount = Math.max(namespaceCount, 1);
+    return this;
+  }
+
+  public boolean isGenerics() {
+    return generics;
+  }
+
+  /**
+   * Whether to include a generic data type (an envelope) that the other data types and the resources refer to by
+   * parameterized types.
+   *
+   * @param generics Whether to include generics.
+   * @return this.
+   */
+  public SyntheticApi setGenerics(boolean generics) {
+    this.generics = generics;
+    return this;
+  }
+
+  /**
+   * Write the sources of the API to the specified source directory.
+   *
+   * @param srcDir The source directory.
+   * @return The source files that were written.
+   */
+  public List<File> writeTo(File srcDir) throws IOException {
+    List<File> sourceFiles = new ArrayList<File>();
+    for (int ns = 0; ns < this.namespaceCount; ns++) {
+      sourceFiles.add(write(srcDir, namespacePackage(ns), "package-info", writePackageInfo(ns)));
+    }
+    if (this.generics) {
+      sourceFiles.add(write(srcDir, namespacePackage(0), envelopeName(), writeEnvelope()));
+    }
+    for (int i = 0; i < this.typeCount; i++) {
+      sourceFiles.add(write(srcDir, modelPackage(i), typeName(i), writeType(i)));
+    }
+    for (int i = 0; i < this.resourceCount; i++) {
+      sourceFiles.add(write(srcDir, resourcesPackage(), resourceName(i), writeResource(i)));
+    }
+    return sourceFiles;
+  }
+
+  protected String namespacePackage(int ns) {
+    return this.namespaceCount == 1 ? this.basePackage + ".model" : this.basePackage + ".model.ns" + ns;
+  }
+
+  protected String namespace(int ns) {
+    return "urn:" + this.basePackage + (this.namespaceCount == 1 ? ":model" : ":model:ns" + ns);
+  }
+
+  protected String modelPackage(int index) {
+    return namespacePackage(index % this.namespaceCount);
+  }
+
+  protected String resourcesPackage() {
+    return this.basePackage + ".resources";
+  }
+
+  protected String typeName(int index) {
+    return "Type" + index;
+  }
+
+  protected String qualifiedTypeName(int index) {
+    return modelPackage(index) + "." + typeName(index);
+  }
+
+  protected String envelopeName() {
+    return "Envelope";
+  }
+
+  protected String qualifiedEnvelopeName() {
+    return namespacePackage(0) + "." + envelopeName();
+  }
+
+  protected String resourceName(int index) {
+    return "Resource" + index;
+  }
+
+  /**
+   * Whether the specified type is a leaf type, i.e. it doesn't extend or reference any other type.
+   *
+   * @param index The type index.
+   * @return Whether the specified type is a leaf type.
+   */
+  protected boolean isLeaf(int index) {
+    return index % 5 == 4 || index == this.typeCount - 1;
+  }
+
+  /**
+   * The index of a leaf type, picked from the specified seed.
+   *
+   * @param seed The seed.
+   * @return The index of the leaf type.
+   */
+  protected int leafOf(int seed) {
+    return Math.min(((seed % this.typeCount) / 5) * 5 + 4, this.typeCount - 1);
+  }
+
+  /**
+   * The index of the type that the specified type extends, or -1 if it doesn't extend any.
+   *
+   * @param index The type index.
+   * @return The index of the supertype.
+   */
+  protected int superTypeOf(int index) {
+    return index % this.depth == 0 || isLeaf(index) || isLeaf(index - 1) ? -1 : index - 1;
+  }
+
+  protected String writePackageInfo(int ns) {
+    StringBuilder src = new StringBuilder();
+    src.append("/**\n");
+    src.append(" * Synthetic namespace number ").append(ns).append(".\n");
+    src.append(" */\n");
+    src.append("@javax.xml.bind.annotation.XmlSchema(\n");
+    src.append("  namespace = \"").append(namespace(ns)).append("\",\n");
+    src.append("  elementFormDefault = javax.xml.bind.annotation.XmlNsForm.QUALIFIED\n");
+    src.append(")\n");
+    src.append("package ").append(namespacePackage(ns)).append(";\n");
+    return src.toString();
+  }
+
+  protected String writeEnvelope() {
+    StringBuilder src = new StringBuilder();
+    src.append("package ").append(namespacePackage(0)).append(";\n\n");
+    src.append("import javax.xml.bind.annotation.*;\n");
+    src.append("import java.util.List;\n\n");
+    src.append("/**\n");
+    src.append(" * A synthetic generic envelope.\n");
+    src.append(" *\n");
+    src.append(" * @param <T> The type of the enveloped values.\n");
+    src.append(" */\n");
+    src.append("@XmlRootElement\n");
+    src.append("public class ").append(envelopeName()).append("<T> {\n\n");
+    src.append("  private T value;\n");
+    src.append("  private List<T> items;\n");
+    src.append("  private long total;\n\n");
+    appendProperty(src, "T", "value", "The primary value.");
+    appendProperty(src, "List<T>", "items", "The other values.");
+    appendProperty(src, "long", "total", "The total number of values.");
+    src.append("}\n");
+    return src.toString();
+  }
+
+  protected String writeType(int index) {
+    String name = typeName(index);
+    int superType = superTypeOf(index);
+    boolean leaf = isLeaf(index);
+    String related = qualifiedTypeName(leafOf(index * 7 + 3));
+    String child = qualifiedTypeName(leafOf(index + 5));
+
+    StringBuilder src = new StringBuilder();
+    src.append("package ").append(modelPackage(index)).append(";\n\n");
+    src.append("import javax.xml.bind.annotation.*;\n");
+    src.append("import java.util.Date;\n");
+    src.append("import java.util.List;\n\n");
+    src.append("/**\n");
+    src.append(" * Synthetic data type number ").append(index).append(".");
+    if (!leaf) {
+      src.append(" See {@link ").append(related).append("} for a related type.");
+    }
+    src.append("\n");
+    src.append(" *\n");
+    src.append(" * @author synthetic\n");
+    src.append(" */\n");
+    src.append("@XmlRootElement\n");
+    src.append("public class ").append(name);
+    if (superType >= 0) {
+      src.append(" extends ").append(qualifiedTypeName(superType));
+    }
+    src.append(" {\n\n");
+    src.append("  private String name").append(index).append(";\n");
+    src.append("  private int count").append(index).append(";\n");
+    src.append("  private Date created").append(index).append(";\n");
+    if (!leaf) {
+      src.append("  private ").append(related).append(" related").append(index).append(";\n");
+      src.append("  private List<").append(child).append("> children").append(index).append(";\n");
+      if (this.generics) {
+        src.append("  private ").append(qualifiedEnvelopeName()).append("<").append(related).append("> envelope").append(index).append(";\n");
+      }
+    }
+    src.append("\n");
+    appendProperty(src, "String", "name" + index, "The name of the " + name + ".");
+    appendProperty(src, "int", "count" + index, "How many of the " + name + " there are. Always <b>positive</b>.");
+    appendProperty(src, "Date", "created" + index, "When the " + name + " was created.");
+    if (!leaf) {
+      appendProperty(src, related, "related" + index, "The {@link " + related + "} related to this one.");
+      appendProperty(src, "List<" + child + ">", "children" + index, "The children of the " + name + ".");
+      if (this.generics) {
+        appendProperty(src, qualifiedEnvelopeName() + "<" + related + ">", "envelope" + index, "The envelope of the " + name + ".");
+      }
+    }
+    src.append("}\n");
+    return src.toString();
+  }
+
+  protected void appendProperty(StringBuilder src, String type, String property, String doc) {
+    String capitalized = Character.toUpperCase(property.charAt(0)) + property.substring(1);
+    src.append("  /**\n");
+    src.append("   * ").append(doc).append("\n");
+    src.append("   *\n");
+    src.append("   * @return ").append(doc).append("\n");
+    src.append("   */\n");
+    src.append("  public ").append(type).append(" get").append(capitalized).append("() {\n");
+    src.append("    return this.").append(property).append(";\n");
+    src.append("  }\n\n");
+    src.append("  /**\n");
+    src.append("   * ").append(doc).append("\n");
+    src.append("   *\n");
+    src.append("   * @param ").append(property).append(" ").append(doc).append("\n");
+    src.append("   */\n");
+    src.append("  public void set").append(capitalized).append("(").append(type).append(" ").append(property).append(") {\n");
+    src.append("    this.").append(property).append(" = ").append(property).append(";\n");
+    src.append("  }\n\n");
+  }
+
+  protected String writeResource(int index) {
+    String name = resourceName(index);
+    String type = qualifiedTypeName(index % this.typeCount);
+    String input = qualifiedTypeName((index * 3 + 1) % this.typeCount);
+    String list = this.generics ? qualifiedEnvelopeName() + "<" + type + ">" : "List<" + type + ">";
+
+    StringBuilder src = new StringBuilder();
+    src.append("package ").append(resourcesPackage()).append(";\n\n");
+    src.append("import javax.ws.rs.*;\n");
+    src.append("import java.util.List;\n\n");
+    src.append("/**\n");
+    src.append(" * Synthetic resource number ").append(index).append(".\n");
+    src.append(" */\n");
+    src.append("@Path(\"/resource").append(index).append("\")\n");
+    src.append("public class ").append(name).append(" {\n\n");
+    src.append("  /**\n");
+    src.append("   * Read a {@link ").append(type).append("}.\n");
+    src.append("   *\n");
+    src.append("   * @param id The id of the ").append(type).append(".\n");
+    src.append("   * @return The ").append(type).append(".\n");
+    src.append("   */\n");
+    src.append("  @GET\n");
+    src.append("  @Path(\"{id}\")\n");
+    src.append("  @Produces({\"application/xml\", \"application/json\"})\n");
+    src.append("  public ").append(type).append(" read(@PathParam(\"id\") String id) {\n");
+    src.append("    return null;\n");
+    src.append("  }\n\n");
+    src.append("  /**\n");
+    src.append("   * List the {@link ").append(type).append("}s.\n");
+    src.append("   *\n");
+    src.append("   * @param offset Where to start.\n");
+    src.append("   * @param limit How many to return.\n");
+    src.append("   * @return The list.\n");
+    src.append("   */\n");
+    src.append("  @GET\n");
+    src.append("  @Produces({\"application/xml\", \"application/json\"})\n");
+    src.append("  public ").append(list).append(" list(@QueryParam(\"offset\") int offset, @QueryParam(\"limit\") int limit) {\n");
+    src.append("    return null;\n");
+    src.append("  }\n\n");
+    src.append("  /**\n");
+    src.append("   * Write a ").append(input).append(".\n");
+    src.append("   *\n");
+    src.append("   * @param id The id.\n");
+    src.append("   * @param value The value to write.\n");
+    src.append("   */\n");
+    src.append("  @PUT\n");
+    src.append("  @Path(\"{id}\")\n");
+    src.append("  @Consumes({\"application/xml\", \"application/json\"})\n");
+    src.append("  public void write(@PathParam(\"id\") String id, ").append(input).append(" value) {\n");
+    src.append("  }\n");
+    src.append("}\n");
+    return src.toString();
+  }
+
+  protected File write(File srcDir, String pckg, String simpleName, String source) throws IOException {
+    File dir = new File(srcDir, pckg.replace('.', File.separatorChar));
+    dir.mkdirs();
+    File file = new File(dir, simpleName + ".java");
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "utf-8");
+    try {
+      writer.write(source);
+    }
+    finally {
+      writer.close();
+    }
+    return file;
+  }
+
+  /**
+   * Write a synthetic API to a source directory.
+   *
+   * @param args The source directory, followed by any of the options --types=N, --resources=N, --depth=N,
+   *             --namespaces=N, --generics and --package=P.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length == 0) {
+      System.err.println("Usage: SyntheticApi <srcDir> [--types=N] [--resources=N] [--depth=N] [--namespaces=N] [--generics] [--package=P]");
+      System.exit(1);
+    }
+
+    SyntheticApi api = new SyntheticApi();
+    for (int i = 1; i < args.length; i++) {
+      String arg = args[i];
+      if (arg.startsWith("--types=")) {
+        api.setTypeCount(Integer.parseInt(arg.substring(8)));
+      }
+      else if (arg.startsWith("--resources=")) {
+        api.setResourceCount(Integer.parseInt(arg.substring(12)));
+      }
+      else if (arg.startsWith("--depth=")) {
+        api.setDepth(Integer.parseInt(arg.substring(8)));
+      }
+      else if (arg.startsWith("--namespaces=")) {
+        api.setNamespaceCount(Integer.parseInt(arg.substring(13)));
+      }
+      else if (arg.equals("--generics")) {
+        api.setGenerics(true);
+      }
+      else if (arg.startsWith("--package=")) {
+        api.setBasePackage(arg.substring(10));
+      }
+      else {
+        throw new IllegalArgumentException("Unknown option: " + arg);
+      }
+    }
+
+    List<File> sourceFiles = api.writeTo(new File(args[0]));
+    System.out.println("Wrote " + sourceFiles.size() + " source files to " + args[0] + ".");
+  }
+}
@@ -0,0 +1,71 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.benchmarks;
+
+import com.webcohesion.enunciate.util.freemarker.TemplateEngine;
+import freemarker.template.Configuration;
+import freemarker.template.DefaultObjectWrapper;
+import freemarker.template.TemplateException;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micro-benchmark of rendering a template with the shared template engine, with a model resembling a client-side type.
+ *
+ * @author Ryan Heaton
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TemplateRenderingBenchmark {
+
+  @Param({"10", "100"})
+  public int properties;
+
+  private URL template;
+  private Map<String, Object> model;
+  private DefaultObjectWrapper wrapper;
+
+  @Setup
+  public void createModel() {
+    this.template = TemplateRenderingBenchmark.class.getResource("type.fmt");
+    this.wrapper = new DefaultObjectWrapper(Configuration.VERSION_2_3_22);
+    this.model = new HashMap<String, Object>();
+    this.model.put("packageName", "com.example.api.model");
+    this.model.put("typeName", "Person");
+    List<Map<String, String>> properties = new ArrayList<Map<String, String>>();
+    for (int i = 0; i < this.properties; i++) {
+      Map<String, String> property = new HashMap<String, String>();
+      property.put("name", "property" + i);
+      property.put("type", i % 2 == 0 ? "String" : "java.util.List<Person>");
+      property.put("doc", "Property number " + i + " of the person.");
+      properties.add(property);
+    }
+    this.model.put("properties", properties);
+  }
+
+  @Benchmark
+  public String render() throws IOException, TemplateException {
+    return TemplateEngine.INSTANCE.process(this.template, this.model, this.wrapper);
+  }
+}
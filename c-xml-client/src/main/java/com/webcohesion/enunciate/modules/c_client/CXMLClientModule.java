@@ -45,18 +45,11 @@ import com.webcohesion.enunciate.modules.jaxb.util.ReferencedNamespacesMethod;
 import com.webcohesion.enunciate.modules.jaxrs.JaxrsModule;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
+import com.webcohesion.enunciate.util.freemarker.TemplateEngine;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 import java.util.regex.Pattern;
@@ -66,6 +59,8 @@ import java.util.regex.Pattern;
  */
 public class CXMLClientModule extends BasicGeneratingModule implements ApiFeatureProviderModule {
 
+  private final CXMLClientObjectWrapper objectWrapper = new CXMLClientObjectWrapper();
+
   /**
    * The pattern to scrub is any non-word character.
    */
@@ -297,33 +292,7 @@ public class CXMLClientModule extends BasicGeneratingModule implements ApiFeatur
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new CXMLClientObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return TemplateEngine.INSTANCE.process(templateURL, model, this.objectWrapper);
   }
 
   /**
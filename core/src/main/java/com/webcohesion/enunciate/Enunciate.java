@@ -19,18 +19,21 @@ import com.sun.tools.javac.api.JavacTool;
 import com.webcohesion.enunciate.api.ApiRegistry;
 import com.webcohesion.enunciate.artifacts.Artifact;
 import com.webcohesion.enunciate.io.InvokeEnunciateModule;
+import com.webcohesion.enunciate.metrics.MetricsReport;
+import com.webcohesion.enunciate.metrics.ModuleMetrics;
 import com.webcohesion.enunciate.module.ApiRegistryAwareModule;
 import com.webcohesion.enunciate.module.DependencySpec;
 import com.webcohesion.enunciate.module.DependingModuleAwareModule;
 import com.webcohesion.enunciate.module.EnunciateModule;
+import com.webcohesion.enunciate.scan.ApiScanCache;
+import com.webcohesion.enunciate.scan.ScanPathScanner;
+import com.webcohesion.enunciate.util.AntPatternMatcher;
 import org.apache.commons.configuration.ConfigurationException;
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.alg.CycleDetector;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.jgrapht.traverse.TopologicalOrderIterator;
-import org.reflections.Reflections;
-import org.reflections.util.ConfigurationBuilder;
 import rx.Observable;
 import rx.Scheduler;
 import rx.schedulers.Schedulers;
@@ -40,8 +43,11 @@ import java.io.*;
 import java.net.*;
 import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipInputStream;
 import java.util.zip.ZipOutputStream;
@@ -58,10 +64,14 @@ public class Enunciate implements Runnable {
   private List<EnunciateModule> modules;
   private final Set<String> includePatterns = new TreeSet<String>();
   private final Set<String> excludePatterns = new TreeSet<String>();
+  private final Set<String> scanExcludePatterns = new TreeSet<String>();
   private List<File> classpath = null;
   private List<File> sourcepath = null;
   // so sad that we can't multi-thread the modules; the Javac implementation is not thread safe. You get errors like "java.lang.AssertionError: Filling jar"...
-  private ExecutorService executorService = null; // Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+  // the extra threads are only used to scan the classpath.
+  private ExecutorService executorService = null;
+  private final List<ModuleMetrics> moduleMetrics = new CopyOnWriteArrayList<ModuleMetrics>();
+  private final List<EnunciateListener> listeners = new CopyOnWriteArrayList<EnunciateListener>();
   private EnunciateLogger logger = new EnunciateConsoleLogger();
   private final EnunciateConfiguration configuration = new EnunciateConfiguration();
   private File buildDir;
@@ -69,6 +79,9 @@ public class Enunciate implements Runnable {
   private final Set<Artifact> artifacts = new TreeSet<Artifact>();
   private final Map<String, File> exports = new HashMap<String, File>();
   private final ApiRegistry apiRegistry = new ApiRegistry();
+  private boolean scanCacheEnabled = false;
+  private File scanIndexDir;
+  private boolean metricsReportEnabled = false;
 
   public List<EnunciateModule> getModules() {
     return modules;
@@ -153,6 +166,22 @@ public class Enunciate implements Runnable {
     return this;
   }
 
+  /**
+   * Ant patterns for the classpath entries (jars or directories) that can't contain any API types and therefore don't
+   * need to be scanned. A pattern without a '/' is matched against the name of the entry (e.g. "spring-*.jar");
+   * otherwise it's matched against the absolute path of the entry (e.g. "/opt/tools/lib/**").
+   *
+   * @return The patterns for the classpath entries that are not scanned.
+   */
+  public Set<String> getScanExcludePatterns() {
+    return Collections.unmodifiableSet(scanExcludePatterns);
+  }
+
+  public Enunciate addScanExclude(String pattern) {
+    this.scanExcludePatterns.add(pattern);
+    return this;
+  }
+
   public List<File> getClasspath() {
     return classpath;
   }
@@ -176,12 +205,115 @@ public class Enunciate implements Runnable {
       this.executorService = null;
     }
     else {
-      this.executorService = Executors.newFixedThreadPool(extraThreadCount);
+      this.executorService = Executors.newFixedThreadPool(extraThreadCount, new ThreadFactory() {
+        private final AtomicInteger threadCount = new AtomicInteger(0);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+          Thread thread = new Thread(runnable, "enunciate-" + this.threadCount.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        }
+      });
     }
 
     return this;
   }
 
+  /**
+   * The wall time (in milliseconds) spent invoking each module, by module name.
+   *
+   * @return The wall time spent invoking each module.
+   */
+  public Map<String, Long> getModuleTimes() {
+    Map<String, Long> moduleTimes = new TreeMap<String, Long>();
+    for (ModuleMetrics metrics : this.moduleMetrics) {
+      if (metrics.getOutcome() != ModuleMetrics.Outcome.skipped) {
+        moduleTimes.put(metrics.getModuleName(), metrics.getWallTime());
+      }
+    }
+    return Collections.unmodifiableMap(moduleTimes);
+  }
+
+  /**
+   * The metrics of the modules that have been invoked (or skipped), in the order they finished.
+   *
+   * @return The metrics of the modules.
+   */
+  public List<ModuleMetrics> getModuleMetrics() {
+    return Collections.unmodifiableList(moduleMetrics);
+  }
+
+  /**
+   * Record the metrics of a module that has been invoked (or skipped).
+   *
+   * @param metrics The metrics.
+   */
+  public void recordModuleMetrics(ModuleMetrics metrics) {
+    this.moduleMetrics.add(metrics);
+  }
+
+  /**
+   * The listeners to the invocation of the modules.
+   *
+   * @return The listeners.
+   */
+  public List<EnunciateListener> getListeners() {
+    return listeners;
+  }
+
+  public Enunciate addListener(EnunciateListener listener) {
+    this.listeners.add(listener);
+    return this;
+  }
+
+  /**
+   * Whether to write a JSON report of the module metrics to the build directory after the modules have been invoked.
+   *
+   * @return Whether to write a JSON report of the module metrics.
+   */
+  public boolean isMetricsReportEnabled() {
+    return metricsReportEnabled;
+  }
+
+  public Enunciate setMetricsReportEnabled(boolean metricsReportEnabled) {
+    this.metricsReportEnabled = metricsReportEnabled;
+    return this;
+  }
+
+  /**
+   * Whether the results of the API scan of the classpath are cached in the build directory between builds.
+   *
+   * @return Whether the results of the API scan are cached.
+   */
+  public boolean isScanCacheEnabled() {
+    return scanCacheEnabled;
+  }
+
+  public Enunciate setScanCacheEnabled(boolean scanCacheEnabled) {
+    this.scanCacheEnabled = scanCacheEnabled;
+    return this;
+  }
+
+  /**
+   * The directory in which the results of scanning each jar on the classpath are indexed by the hash of the jar, so that
+   * unchanged jars don't need to be scanned again. The directory can be shared between builds (e.g. ~/.enunciate/scan-cache).
+   * If not set, jars are indexed in the build directory if the {@link #isScanCacheEnabled() scan cache is enabled}.
+   *
+   * @return The directory in which the classpath jars are indexed, or null if they aren't indexed.
+   */
+  public File getScanIndexDir() {
+    if (this.scanIndexDir == null && this.scanCacheEnabled && this.buildDir != null) {
+      return new File(this.buildDir, "scan-index");
+    }
+    return scanIndexDir;
+  }
+
+  public Enunciate setScanIndexDir(File scanIndexDir) {
+    this.scanIndexDir = scanIndexDir;
+    return this;
+  }
+
   public EnunciateLogger getLogger() {
     return logger;
   }
@@ -294,7 +426,9 @@ public class Enunciate implements Runnable {
    * @return Whether the artifact was successfully added.
    */
   public boolean addArtifact(Artifact artifact) {
-    return this.artifacts.add(artifact);
+    synchronized (this.artifacts) {
+      return this.artifacts.add(artifact);
+    }
   }
 
   /**
@@ -412,6 +546,7 @@ public class Enunciate implements Runnable {
     dstChannel.transferFrom(srcChannel, 0, srcChannel.size());
     srcChannel.close();
     dstChannel.close();
+    ModuleMetrics.fileWritten();
   }
 
   /**
@@ -464,6 +599,7 @@ public class Enunciate implements Runnable {
     }
 
     zipout.close();
+    ModuleMetrics.fileWritten();
 
     return anyFiles;
   }
@@ -510,6 +646,7 @@ public class Enunciate implements Runnable {
           out.write(buffer, 0, len);
         }
         out.close();
+        ModuleMetrics.fileWritten();
       }
 
       in.closeEntry();
@@ -533,6 +670,7 @@ public class Enunciate implements Runnable {
     while ((len = stream.read(buffer)) > 0) {
       out.write(buffer, 0, len);
     }
+    ModuleMetrics.fileWritten();
   }
 
   @Override
@@ -561,8 +699,7 @@ public class Enunciate implements Runnable {
         }
       }
 
-      Reflections reflections = loadApiReflections(scanpath);
-      Set<String> scannedEntries = reflections.getStore().get(EnunciateReflectionsScanner.class.getSimpleName()).keySet();
+      Set<String> scannedEntries = scanApiEntries(scanpath);
       Set<String> includedTypes = new HashSet<String>();
       Set<String> scannedSourceFiles = new HashSet<String>();
       for (String entry : scannedEntries) {
@@ -764,6 +901,35 @@ public class Enunciate implements Runnable {
     }
   }
 
+  /**
+   * Invoked by the annotation processor after all the modules have been invoked (or skipped): logs the module times,
+   * notifies the listeners, and writes the metrics report, if enabled.
+   */
+  void engineFinished() {
+    List<ModuleMetrics> metrics = new ArrayList<ModuleMetrics>(this.moduleMetrics);
+    if (!metrics.isEmpty()) {
+      getLogger().info("Module invocation times:");
+      for (Map.Entry<String, Long> moduleTime : getModuleTimes().entrySet()) {
+        getLogger().info("  %s: %d ms", moduleTime.getKey(), moduleTime.getValue());
+      }
+    }
+
+    for (EnunciateListener listener : this.listeners) {
+      listener.engineFinished(this, metrics);
+    }
+
+    if (this.metricsReportEnabled && this.buildDir != null) {
+      File report = new File(this.buildDir, "enunciate-metrics.json");
+      try {
+        new MetricsReport(metrics).writeTo(report);
+        getLogger().info("Module metrics written to %s.", report);
+      }
+      catch (IOException e) {
+        getLogger().warn("Unable to write module metrics to %s: %s", report, e.getMessage());
+      }
+    }
+  }
+
   private String findEncoding(List<String> compilerArgs) {
     for (int i = 0; i < compilerArgs.size(); i++) {
       String arg = compilerArgs.get(i);
@@ -801,16 +967,93 @@ public class Enunciate implements Runnable {
     return sourceFiles;
   }
 
-  protected Reflections loadApiReflections(List<URL> classpath) {
-    ConfigurationBuilder reflectionSpec = new ConfigurationBuilder()
-      .setUrls(classpath)
-      .setScanners(new EnunciateReflectionsScanner(this, getModules()));
+  /**
+   * Scan the specified scan path for API entries (API types and the java source files for them), using the cached
+   * results of a previous scan if the scan path hasn't changed.
+   *
+   * @param scanpath The scan path.
+   * @return The scanned entries.
+   */
+  protected Set<String> scanApiEntries(List<URL> scanpath) {
+    scanpath = filterScanpath(scanpath);
+    EnunciateReflectionsScanner scanner = new EnunciateReflectionsScanner(this, getModules());
+    ApiScanCache cache = null;
+    if (this.scanCacheEnabled && this.buildDir != null) {
+      cache = new ApiScanCache(new File(this.buildDir, "api-scan.cache"));
+      try {
+        if (cache.load(scanpath)) {
+          getLogger().debug("Scan path unchanged; replaying API scan from %s.", cache.getFile());
+          Set<String> scannedEntries = scanner.replay(cache);
+          if (cache.isStale()) {
+            //the scan path was touched but not changed; remember it as it is now.
+            storeScanCache(cache, scanpath);
+          }
+          return scannedEntries;
+        }
+      }
+      catch (IOException e) {
+        getLogger().debug("Unable to load API scan cache %s: %s", cache.getFile(), e.getMessage());
+      }
+      scanner.recordTo(cache);
+    }
+
+    List<ScanPathScanner.Entry> entries = new ScanPathScanner(getLogger(), this.executorService).setIndexDir(getScanIndexDir()).scan(scanpath);
+    Set<String> scannedEntries = scanner.scan(entries);
+
+    if (cache != null) {
+      storeScanCache(cache, scanpath);
+    }
+
+    return scannedEntries;
+  }
+
+  private void storeScanCache(ApiScanCache cache, List<URL> scanpath) {
+    try {
+      cache.store(scanpath);
+    }
+    catch (IOException e) {
+      getLogger().debug("Unable to store API scan cache %s: %s", cache.getFile(), e.getMessage());
+    }
+  }
 
-    if (this.executorService != null) {
-      reflectionSpec = reflectionSpec.setExecutorService(this.executorService);
+  /**
+   * Filter the scan path entries that match one of the {@link #getScanExcludePatterns() scan exclude patterns} out of
+   * the specified scan path.
+   *
+   * @param scanpath The scan path.
+   * @return The entries of the scan path that are to be scanned.
+   */
+  protected List<URL> filterScanpath(List<URL> scanpath) {
+    if (this.scanExcludePatterns.isEmpty()) {
+      return scanpath;
     }
 
-    return new Reflections(reflectionSpec);
+    AntPatternMatcher matcher = new AntPatternMatcher();
+    matcher.setPathSeparator("/");
+    List<URL> filtered = new ArrayList<URL>(scanpath.size());
+    for (URL entry : scanpath) {
+      String path = entry.getPath();
+      if (path.endsWith("/")) {
+        path = path.substring(0, path.length() - 1);
+      }
+      String name = path.substring(path.lastIndexOf('/') + 1);
+
+      boolean excluded = false;
+      for (String pattern : this.scanExcludePatterns) {
+        if (matcher.match(pattern, pattern.indexOf('/') < 0 ? name : path)) {
+          excluded = true;
+          break;
+        }
+      }
+
+      if (excluded) {
+        getLogger().debug("Not scanning %s: excluded from the scan.", entry);
+      }
+      else {
+        filtered.add(entry);
+      }
+    }
+    return filtered;
   }
 
   public void visitFiles(File dir, FileFilter filter, FileVisitor visitor) {
@@ -910,7 +1153,7 @@ public class Enunciate implements Runnable {
       Set<DefaultEdge> dependencies = graph.incomingEdgesOf(module);
       if (dependencies == null || dependencies.isEmpty()) {
         //no dependencies on this module; plug in directly to the source.
-        moduleWork = source.doOnEach(new InvokeEnunciateModule(modules.get(module))).cache();
+        moduleWork = source.doOnEach(new InvokeEnunciateModule(this, modules.get(module))).cache();
       }
       else {
         Observable<EnunciateContext> dependencyWork = source;
@@ -924,7 +1167,7 @@ public class Enunciate implements Runnable {
         }
 
         //zip up all the dependencies.
-        moduleWork = dependencyWork.last().doOnEach(new InvokeEnunciateModule(modules.get(module))).cache();
+        moduleWork = dependencyWork.last().doOnEach(new InvokeEnunciateModule(this, modules.get(module))).cache();
       }
 
       moduleWorkset.put(module, moduleWork);
@@ -119,7 +119,12 @@ public class EnunciateAnnotationProcessor extends AbstractProcessor {
       Observable<EnunciateContext> engine = this.enunciate.composeEngine(this.context, enabledModules, graph);
 
       //fire off (and block on) the engine.
-      engine.toList().toBlocking().single();
+      try {
+        engine.toList().toBlocking().single();
+      }
+      finally {
+        this.enunciate.engineFinished();
+      }
 
       this.processed = true;
     }
@@ -18,10 +18,7 @@ package com.webcohesion.enunciate;
 import com.webcohesion.enunciate.api.ApiRegistry;
 import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
 import com.webcohesion.enunciate.javac.decorations.DecoratedRoundEnvironment;
-import com.webcohesion.enunciate.util.AntPatternInclude;
-import com.webcohesion.enunciate.util.AntPatternMatcher;
-import com.webcohesion.enunciate.util.StringEqualsInclude;
-import org.reflections.util.FilterBuilder;
+import com.webcohesion.enunciate.util.AntPatternSet;
 
 import javax.lang.model.element.Element;
 import javax.lang.model.element.PackageElement;
@@ -44,9 +41,9 @@ public class EnunciateContext {
   private Set<Element> apiElements;
   private Set<Element> localApiElements;
   private DecoratedRoundEnvironment roundEnvironment;
-  private final FilterBuilder includeFilter;
-  private final FilterBuilder excludeFilter;
-  private final Map<String, List<FilterBuilder>> facetFilter;
+  private final AntPatternSet<String> includeFilter;
+  private final AntPatternSet<String> excludeFilter;
+  private final AntPatternSet<String> facetFilter;
 
   public EnunciateContext(DecoratedProcessingEnvironment processingEnvironment, EnunciateLogger logger, ApiRegistry registry, EnunciateConfiguration configuration, Set<String> includes, Set<String> excludes) {
     this.processingEnvironment = processingEnvironment;
@@ -130,7 +127,7 @@ public class EnunciateContext {
       }
     }
 
-    return this.includeFilter.apply(className);
+    return this.includeFilter.matches(className);
   }
 
   public boolean isExcluded(Element next) {
@@ -149,49 +146,37 @@ public class EnunciateContext {
       return true;
     }
 
-    boolean filteredIn = this.includeFilter != null && this.includeFilter.apply(className);
-    boolean filteredOut = this.excludeFilter != null && this.excludeFilter.apply(className);
+    boolean filteredIn = this.includeFilter != null && this.includeFilter.matches(className);
+    boolean filteredOut = this.excludeFilter != null && this.excludeFilter.matches(className);
     return !filteredIn && filteredOut;
   }
 
   public Set<String> getConfiguredFacets(String fqn) {
-    TreeSet<String> facets = new TreeSet<String>();
-    for (Map.Entry<String, List<FilterBuilder>> facetPatterns : this.facetFilter.entrySet()) {
-      for (FilterBuilder filterBuilder : facetPatterns.getValue()) {
-        if (filterBuilder.apply(fqn)) {
-          facets.add(facetPatterns.getKey());
-        }
-      }
-    }
-    return facets;
+    return new TreeSet<String>(this.facetFilter.findMatches(fqn));
   }
 
-  private FilterBuilder buildFilter(Set<String> includes) {
-    FilterBuilder includeFilter = null;
+  private AntPatternSet<String> buildFilter(Set<String> includes) {
+    AntPatternSet<String> includeFilter = null;
     if (includes != null && !includes.isEmpty()) {
-      includeFilter = new FilterBuilder();
+      includeFilter = new AntPatternSet<String>();
       for (String include : includes) {
-        if (AntPatternMatcher.isValidPattern(include)) {
-          includeFilter = includeFilter.add(new AntPatternInclude(include));
-        }
-        else {
-          includeFilter = includeFilter.add(new StringEqualsInclude(include));
-        }
+        includeFilter.add(include, include);
       }
     }
     return includeFilter;
   }
 
-  protected HashMap<String, List<FilterBuilder>> buildFacetFilter(Map<String, String> facetPatterns) {
-    HashMap<String, List<FilterBuilder>> filters = new HashMap<String, List<FilterBuilder>>();
+  /**
+   * Build the facet filter from the configured facet patterns.
+   *
+   * @param facetPatterns The facet names, keyed by pattern.
+   * @return The facet filter: the patterns, each associated with the name of its facet.
+   */
+  protected AntPatternSet<String> buildFacetFilter(Map<String, String> facetPatterns) {
+    AntPatternSet<String> filters = new AntPatternSet<String>();
     if (facetPatterns != null) {
       for (Map.Entry<String, String> facetPattern : facetPatterns.entrySet()) {
-        List<FilterBuilder> patternMatchers = filters.get(facetPattern.getValue());
-        if (patternMatchers == null) {
-          patternMatchers = new ArrayList<FilterBuilder>();
-          filters.put(facetPattern.getValue(), patternMatchers);
-        }
-        patternMatchers.add(buildFilter(Collections.singleton(facetPattern.getKey())));
+        filters.add(facetPattern.getKey(), facetPattern.getValue());
       }
     }
     return filters;
@@ -0,0 +1,54 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate;
+
+import com.webcohesion.enunciate.metrics.ModuleMetrics;
+import com.webcohesion.enunciate.module.EnunciateModule;
+
+import java.util.List;
+
+/**
+ * Listens to the invocation of the modules by the engine, e.g. to instrument the build. Note that independent modules
+ * may be invoked concurrently, so implementations must be thread-safe.
+ *
+ * @author Ryan Heaton
+ */
+public interface EnunciateListener {
+
+  /**
+   * Invoked (on the invoking thread) just before a module is invoked.
+   *
+   * @param module The module.
+   */
+  void moduleStarted(EnunciateModule module);
+
+  /**
+   * Invoked (on the invoking thread) just after a module has been invoked, whether or not it completed normally, or
+   * after it has been skipped because a module it depends on failed.
+   *
+   * @param module The module.
+   * @param metrics The metrics of the invocation.
+   */
+  void moduleFinished(EnunciateModule module, ModuleMetrics metrics);
+
+  /**
+   * Invoked after all the modules have been invoked (or skipped).
+   *
+   * @param engine The engine.
+   * @param metrics The metrics of all the modules, in the order they finished.
+   */
+  void engineFinished(Enunciate engine, List<ModuleMetrics> metrics);
+}
@@ -15,12 +15,18 @@
  */
 package com.webcohesion.enunciate;
 
+import com.google.common.collect.HashMultimap;
 import com.webcohesion.enunciate.module.EnunciateModule;
 import com.webcohesion.enunciate.module.TypeDetectingModule;
+import com.webcohesion.enunciate.scan.ApiScanCache;
+import com.webcohesion.enunciate.scan.ScanPathScanner;
+import com.webcohesion.enunciate.scan.ScannedType;
+import com.webcohesion.enunciate.scan.ScannedTypeMetadataAdapter;
 import com.webcohesion.enunciate.util.*;
+import javassist.bytecode.AccessFlag;
 import org.reflections.adapters.MetadataAdapter;
 import org.reflections.scanners.AbstractScanner;
-import org.reflections.util.FilterBuilder;
+import org.reflections.util.ConfigurationBuilder;
 import org.reflections.vfs.Vfs;
 
 import java.util.ArrayList;
@@ -33,9 +39,10 @@ import java.util.Set;
 @SuppressWarnings ( "unchecked" )
 public class EnunciateReflectionsScanner extends AbstractScanner {
 
-  private final FilterBuilder includeFilter;
-  private final FilterBuilder excludeFilter;
+  private final AntPatternSet<String> includeFilter;
+  private final AntPatternSet<String> excludeFilter;
   private final List<TypeDetectingModule> detectingModules;
+  private ApiScanCache cache;
 
   public EnunciateReflectionsScanner(Enunciate enunciate, List<EnunciateModule> modules) {
     this.detectingModules = new ArrayList<TypeDetectingModule>();
@@ -45,36 +52,84 @@ public class EnunciateReflectionsScanner extends AbstractScanner {
       }
     }
 
-    FilterBuilder includeFilter = null;
-    Set<String> includes = enunciate.getIncludePatterns();
-    if (includes != null && !includes.isEmpty()) {
-      includeFilter = new FilterBuilder();
-      for (String include : includes) {
-        if (AntPatternMatcher.isValidPattern(include)) {
-          includeFilter = includeFilter.add(new AntPatternInclude(include));
-        }
-        else {
-          includeFilter = includeFilter.add(new StringEqualsInclude(include));
-        }
+    this.includeFilter = buildFilter(enunciate.getIncludePatterns());
+    this.excludeFilter = buildFilter(enunciate.getExcludePatterns());
+  }
+
+  private static AntPatternSet<String> buildFilter(Set<String> patterns) {
+    AntPatternSet<String> filter = null;
+    if (patterns != null && !patterns.isEmpty()) {
+      filter = new AntPatternSet<String>();
+      for (String pattern : patterns) {
+        filter.add(pattern, pattern);
       }
     }
+    return filter;
+  }
+
+  /**
+   * Record everything that is scanned to the specified cache.
+   *
+   * @param cache The cache.
+   * @return this
+   */
+  public EnunciateReflectionsScanner recordTo(ApiScanCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
+  /**
+   * Replay a previously-recorded scan, as if the scan path were being scanned.
+   *
+   * @param cache The cache holding the recorded scan.
+   * @return The scanned entries.
+   */
+  public Set<String> replay(ApiScanCache cache) {
+    useScannedTypes();
+
+    for (ScannedType type : cache.getTypes()) {
+      scan(type);
+    }
+
+    for (String sourceFile : cache.getSourceFiles()) {
+      addSourceFile(sourceFile);
+    }
+
+    return getStore().keySet();
+  }
 
-    FilterBuilder excludeFilter = null;
-    Set<String> excludes = enunciate.getExcludePatterns();
-    if (excludes != null && !excludes.isEmpty()) {
-      excludeFilter = new FilterBuilder();
-      for (String exclude : excludes) {
-        if (AntPatternMatcher.isValidPattern(exclude)) {
-          excludeFilter = excludeFilter.add(new AntPatternInclude(exclude));
-        }
-        else {
-          excludeFilter = excludeFilter.add(new StringEqualsInclude(exclude));
-        }
+  /**
+   * Feed the results of a scan of the scan path through the type detecting modules, in scan path order.
+   *
+   * @param entries The results of scanning each entry of the scan path.
+   * @return The scanned entries.
+   */
+  public Set<String> scan(List<ScanPathScanner.Entry> entries) {
+    useScannedTypes();
+
+    for (ScanPathScanner.Entry entry : entries) {
+      for (ScannedType type : entry.getTypes()) {
+        scan(type);
+      }
+
+      for (String sourceFile : entry.getSourceFiles()) {
+        addSourceFile(sourceFile);
       }
     }
 
-    this.includeFilter = includeFilter;
-    this.excludeFilter = excludeFilter;
+    return getStore().keySet();
+  }
+
+  private void useScannedTypes() {
+    setConfiguration(new ConfigurationBuilder().setMetadataAdapter(new ScannedTypeMetadataAdapter()));
+    setStore(HashMultimap.<String, String>create());
+  }
+
+  private void addSourceFile(String sourceFile) {
+    getStore().put(sourceFile, sourceFile);
+    if (this.cache != null) {
+      this.cache.addSourceFile(sourceFile);
+    }
   }
 
   public boolean acceptsInput(String file) {
@@ -84,7 +139,7 @@ public class EnunciateReflectionsScanner extends AbstractScanner {
   @Override
   public Object scan(Vfs.File file, Object classObject) {
     if (file.getName().endsWith(".java")) {
-      getStore().put(file.getRelativePath(), file.getRelativePath());
+      addSourceFile(file.getRelativePath());
       return classObject;
     }
     else {
@@ -97,6 +152,16 @@ public class EnunciateReflectionsScanner extends AbstractScanner {
 
     MetadataAdapter metadata = getMetadataAdapter();
 
+    if (this.cache != null) {
+      if (type instanceof ScannedType) {
+        this.cache.addType((ScannedType) type);
+      }
+      else {
+        int accessFlags = metadata.isPublic(type) ? AccessFlag.PUBLIC : 0;
+        this.cache.addType(new ScannedType(metadata.getClassName(type), accessFlags, metadata.getSuperclassName(type), metadata.getInterfacesNames(type), metadata.getClassAnnotationNames(type)));
+      }
+    }
+
     for (TypeDetectingModule detectingModule : this.detectingModules) {
       if (detectingModule.typeDetected(type, metadata)) {
         detected = true;
@@ -106,13 +171,13 @@ public class EnunciateReflectionsScanner extends AbstractScanner {
 
     String className = metadata.getClassName(type);
 
-    boolean filteredIn = this.includeFilter != null && this.includeFilter.apply(className);
+    boolean filteredIn = this.includeFilter != null && this.includeFilter.matches(className);
     if (filteredIn) {
       //if it's explicitly included, add it.
       getStore().put(className, className);
     }
     else {
-      boolean filteredOut = this.excludeFilter != null && this.excludeFilter.apply(className);
+      boolean filteredOut = this.excludeFilter != null && this.excludeFilter.matches(className);
       if (detected && !filteredOut) {
         //else if it's detected and not explicitly excluded, add it.
         getStore().put(className, className);
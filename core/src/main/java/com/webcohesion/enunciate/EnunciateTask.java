@@ -46,6 +46,11 @@ public class EnunciateTask extends MatchingTask {
   private File buildDir;
   private String javacSourceVersion = null;
   private String javacTargetVersion = null;
+  private int threads = 1;
+  private boolean scanCache = false;
+  private String scanExcludes;
+  private File scanIndexDir;
+  private boolean metricsReport = false;
   private final ArrayList<Export> exports = new ArrayList<Export>();
   private final ArrayList<JavacArgument> javacArguments = new ArrayList<JavacArgument>();
 
@@ -72,6 +77,22 @@ public class EnunciateTask extends MatchingTask {
       this.buildDir.mkdirs();
       enunciate.setBuildDir(this.buildDir);
 
+      //set the threads.
+      if (this.threads > 1) {
+        enunciate.setExtraThreadCount(this.threads);
+      }
+
+      enunciate.setScanCacheEnabled(this.scanCache);
+      enunciate.setScanIndexDir(this.scanIndexDir);
+      if (this.scanExcludes != null) {
+        for (String scanExclude : this.scanExcludes.split(",")) {
+          if (!scanExclude.trim().isEmpty()) {
+            enunciate.addScanExclude(scanExclude.trim());
+          }
+        }
+      }
+      enunciate.setMetricsReportEnabled(this.metricsReport);
+
       //add the source files.
       DirectoryScanner scanner = getDirectoryScanner(basedir);
       scanner.scan();
@@ -237,6 +258,51 @@ public class EnunciateTask extends MatchingTask {
     this.javacTargetVersion = javacTargetVersion;
   }
 
+  /**
+   * The number of threads to use to scan the classpath concurrently.
+   *
+   * @param threads The number of threads to use to scan the classpath concurrently.
+   */
+  public void setThreads(int threads) {
+    this.threads = threads;
+  }
+
+  /**
+   * Whether to cache the results of the classpath scan in the build directory.
+   *
+   * @param scanCache Whether to cache the results of the classpath scan in the build directory.
+   */
+  public void setScanCache(boolean scanCache) {
+    this.scanCache = scanCache;
+  }
+
+  /**
+   * The directory in which to index the results of scanning each classpath jar, so unchanged jars aren't scanned again.
+   *
+   * @param scanIndexDir The directory in which to index the classpath jars.
+   */
+  public void setScanIndexDir(File scanIndexDir) {
+    this.scanIndexDir = scanIndexDir;
+  }
+
+  /**
+   * Comma-separated Ant patterns for the classpath entries (e.g. "spring-*.jar") that don't need to be scanned for API types.
+   *
+   * @param scanExcludes The patterns for the classpath entries that don't need to be scanned.
+   */
+  public void setScanExcludes(String scanExcludes) {
+    this.scanExcludes = scanExcludes;
+  }
+
+  /**
+   * Whether to write a JSON report of the time, CPU and memory used by each module to the build directory.
+   *
+   * @param metricsReport Whether to write a JSON report of the module metrics to the build directory.
+   */
+  public void setMetricsReport(boolean metricsReport) {
+    this.metricsReport = metricsReport;
+  }
+
   /**
    * The classpath to use to enunciate.
    *
@@ -15,7 +15,11 @@
  */
 package com.webcohesion.enunciate.io;
 
+import com.webcohesion.enunciate.Enunciate;
 import com.webcohesion.enunciate.EnunciateContext;
+import com.webcohesion.enunciate.EnunciateListener;
+import com.webcohesion.enunciate.metrics.ModuleMetrics;
+import com.webcohesion.enunciate.module.BasicGeneratingModule;
 import com.webcohesion.enunciate.module.EnunciateModule;
 import rx.Observer;
 
@@ -24,9 +28,12 @@ import rx.Observer;
  */
 public class InvokeEnunciateModule implements Observer<EnunciateContext> {
 
+  private final Enunciate engine;
   private final EnunciateModule module;
+  private volatile boolean invoked = false;
 
-  public InvokeEnunciateModule(EnunciateModule module) {
+  public InvokeEnunciateModule(Enunciate engine, EnunciateModule module) {
+    this.engine = engine;
     this.module = module;
   }
 
@@ -38,11 +45,50 @@ public class InvokeEnunciateModule implements Observer<EnunciateContext> {
 
   @Override
   public void onError(Throwable throwable) {
+    if (this.invoked) {
+      //the module itself failed; already recorded.
+      return;
+    }
 
+    //a module this one depends on failed, so this one won't be invoked.
+    this.engine.getLogger().warn("Module %s was skipped because a module it depends on failed: %s", this.module.getName(), throwable.getMessage());
+    ModuleMetrics metrics = ModuleMetrics.skipped(this.module.getName());
+    this.engine.recordModuleMetrics(metrics);
+    for (EnunciateListener listener : this.engine.getListeners()) {
+      listener.moduleFinished(this.module, metrics);
+    }
   }
 
   @Override
   public void onNext(EnunciateContext enunciateContext) {
-    this.module.call(enunciateContext);
+    this.invoked = true;
+
+    for (EnunciateListener listener : this.engine.getListeners()) {
+      listener.moduleStarted(this.module);
+    }
+
+    ModuleMetrics metrics = new ModuleMetrics(this.module.getName());
+    ModuleMetrics.Outcome outcome = ModuleMetrics.Outcome.failed;
+    metrics.start();
+    try {
+      this.module.call(enunciateContext);
+
+      if (this.module instanceof BasicGeneratingModule) {
+        //the module generated its out-of-date outputs; remember what they were generated from.
+        ((BasicGeneratingModule) this.module).storeFingerprints();
+      }
+
+      outcome = ModuleMetrics.Outcome.completed;
+    }
+    finally {
+      metrics.stop(outcome);
+      if (outcome == ModuleMetrics.Outcome.failed) {
+        this.engine.getLogger().error("Module %s failed after %d ms.", this.module.getName(), metrics.getWallTime());
+      }
+      this.engine.recordModuleMetrics(metrics);
+      for (EnunciateListener listener : this.engine.getListeners()) {
+        listener.moduleFinished(this.module, metrics);
+      }
+    }
   }
 }
@@ -0,0 +1,97 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.metrics;
+
+import java.io.*;
+import java.util.List;
+
+/**
+ * A JSON report of the metrics of the modules invoked by the engine.
+ *
+ * @author Ryan Heaton
+ */
+public class MetricsReport {
+
+  private final List<ModuleMetrics> metrics;
+
+  public MetricsReport(List<ModuleMetrics> metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Write the report to the specified file.
+   *
+   * @param file The file.
+   */
+  public void writeTo(File file) throws IOException {
+    if (file.getParentFile() != null && !file.getParentFile().exists()) {
+      file.getParentFile().mkdirs();
+    }
+
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "utf-8"));
+    try {
+      writeTo(writer);
+    }
+    finally {
+      writer.close();
+    }
+  }
+
+  /**
+   * Write the report to the specified writer.
+   *
+   * @param writer The writer.
+   */
+  public void writeTo(Writer writer) throws IOException {
+    writer.write("{\n  \"modules\": [");
+    for (int i = 0; i < this.metrics.size(); i++) {
+      ModuleMetrics metrics = this.metrics.get(i);
+      writer.write(i == 0 ? "\n" : ",\n");
+      writer.write("    {");
+      writer.write("\"name\": " + quote(metrics.getModuleName()));
+      writer.write(", \"outcome\": " + quote(metrics.getOutcome() == null ? null : metrics.getOutcome().name()));
+      writer.write(", \"thread\": " + quote(metrics.getThreadName()));
+      writer.write(", \"wallTimeMillis\": " + metrics.getWallTime());
+      writer.write(", \"cpuTimeMillis\": " + metrics.getCpuTime());
+      writer.write(", \"allocatedBytes\": " + metrics.getAllocatedBytes());
+      writer.write(", \"templatesRendered\": " + metrics.getTemplatesRendered());
+      writer.write(", \"filesWritten\": " + metrics.getFilesWritten());
+      writer.write("}");
+    }
+    writer.write("\n  ]\n}\n");
+  }
+
+  private static String quote(String value) {
+    if (value == null) {
+      return "null";
+    }
+
+    StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if (ch == '"' || ch == '\\') {
+        quoted.append('\\').append(ch);
+      }
+      else if (ch < 0x20) {
+        quoted.append(String.format("\\u%04x", (int) ch));
+      }
+      else {
+        quoted.append(ch);
+      }
+    }
+    return quoted.append('"').toString();
+  }
+}
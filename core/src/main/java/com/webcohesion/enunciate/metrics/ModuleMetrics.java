@@ -0,0 +1,227 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The metrics of the invocation of a module: wall time, CPU time and bytes allocated by the invoking thread, and the
+ * number of templates rendered and files written by the module (including by any threads the module starts).<br>
+ * <br>
+ * While a module is being invoked, its metrics are bound to the invoking thread (and inherited by any threads it
+ * creates), so code that renders templates or writes files can record them with {@link #templateRendered()} and
+ * {@link #fileWritten()} without knowing which module it's working for.
+ *
+ * @author Ryan Heaton
+ */
+public class ModuleMetrics {
+
+  public enum Outcome {
+
+    /**
+     * The module was invoked and completed normally.
+     */
+    completed,
+
+    /**
+     * The module was invoked and failed.
+     */
+    failed,
+
+    /**
+     * The module wasn't invoked because a module it depends on failed.
+     */
+    skipped
+  }
+
+  private static final InheritableThreadLocal<ModuleMetrics> CURRENT = new InheritableThreadLocal<ModuleMetrics>();
+  private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+  private static final Method ALLOCATED_BYTES = findAllocatedBytesMethod();
+
+  private final String moduleName;
+  private final AtomicInteger templatesRendered = new AtomicInteger(0);
+  private final AtomicInteger filesWritten = new AtomicInteger(0);
+  private Outcome outcome;
+  private String threadName;
+  private long wallTime = 0;
+  private long cpuTime = -1;
+  private long allocatedBytes = -1;
+  private long startNanos;
+  private long startCpuTime;
+  private long startAllocatedBytes;
+
+  public ModuleMetrics(String moduleName) {
+    this.moduleName = moduleName;
+  }
+
+  /**
+   * Metrics for a module that wasn't invoked because a module it depends on failed.
+   *
+   * @param moduleName The name of the module.
+   * @return The metrics.
+   */
+  public static ModuleMetrics skipped(String moduleName) {
+    ModuleMetrics metrics = new ModuleMetrics(moduleName);
+    metrics.outcome = Outcome.skipped;
+    return metrics;
+  }
+
+  /**
+   * Start measuring the invocation of the module on the current thread.
+   */
+  public void start() {
+    this.threadName = Thread.currentThread().getName();
+    this.startCpuTime = currentThreadCpuTime();
+    this.startAllocatedBytes = currentThreadAllocatedBytes();
+    this.startNanos = System.nanoTime();
+    CURRENT.set(this);
+  }
+
+  /**
+   * Stop measuring the invocation of the module on the current thread.
+   *
+   * @param outcome The outcome of the invocation.
+   */
+  public void stop(Outcome outcome) {
+    CURRENT.remove();
+    this.wallTime = (System.nanoTime() - this.startNanos) / 1000000;
+    long cpuTime = currentThreadCpuTime();
+    this.cpuTime = cpuTime < 0 || this.startCpuTime < 0 ? -1 : (cpuTime - this.startCpuTime) / 1000000;
+    long allocatedBytes = currentThreadAllocatedBytes();
+    this.allocatedBytes = allocatedBytes < 0 || this.startAllocatedBytes < 0 ? -1 : allocatedBytes - this.startAllocatedBytes;
+    this.outcome = outcome;
+  }
+
+  /**
+   * Record that a template was rendered on behalf of the module being invoked by the current thread, if any.
+   */
+  public static void templateRendered() {
+    ModuleMetrics current = CURRENT.get();
+    if (current != null) {
+      current.templatesRendered.incrementAndGet();
+    }
+  }
+
+  /**
+   * Record that a file was written on behalf of the module being invoked by the current thread, if any.
+   */
+  public static void fileWritten() {
+    ModuleMetrics current = CURRENT.get();
+    if (current != null) {
+      current.filesWritten.incrementAndGet();
+    }
+  }
+
+  public String getModuleName() {
+    return moduleName;
+  }
+
+  public Outcome getOutcome() {
+    return outcome;
+  }
+
+  /**
+   * The name of the thread that invoked the module.
+   *
+   * @return The name of the thread that invoked the module, or null if the module wasn't invoked.
+   */
+  public String getThreadName() {
+    return threadName;
+  }
+
+  /**
+   * The wall time of the invocation.
+   *
+   * @return The wall time of the invocation, in milliseconds.
+   */
+  public long getWallTime() {
+    return wallTime;
+  }
+
+  /**
+   * The CPU time used by the invoking thread.
+   *
+   * @return The CPU time used by the invoking thread, in milliseconds, or -1 if not supported by the JVM.
+   */
+  public long getCpuTime() {
+    return cpuTime;
+  }
+
+  /**
+   * The number of bytes allocated by the invoking thread.
+   *
+   * @return The number of bytes allocated by the invoking thread, or -1 if not supported by the JVM.
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  public int getTemplatesRendered() {
+    return templatesRendered.get();
+  }
+
+  public int getFilesWritten() {
+    return filesWritten.get();
+  }
+
+  private static long currentThreadCpuTime() {
+    try {
+      return THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+    catch (UnsupportedOperationException e) {
+      return -1;
+    }
+  }
+
+  private static long currentThreadAllocatedBytes() {
+    if (ALLOCATED_BYTES == null) {
+      return -1;
+    }
+
+    try {
+      return (Long) ALLOCATED_BYTES.invoke(THREADS, Thread.currentThread().getId());
+    }
+    catch (Exception e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Allocated bytes are only available through the HotSpot extension of the thread MX bean (JDK 6u25 and up), so the
+   * method is looked up reflectively.
+   *
+   * @return The method, or null if not available.
+   */
+  private static Method findAllocatedBytesMethod() {
+    try {
+      Class<?> hotspotThreads = Class.forName("com.sun.management.ThreadMXBean");
+      if (hotspotThreads.isInstance(THREADS)) {
+        Method supported = hotspotThreads.getMethod("isThreadAllocatedMemorySupported");
+        Method enabled = hotspotThreads.getMethod("isThreadAllocatedMemoryEnabled");
+        if ((Boolean) supported.invoke(THREADS) && (Boolean) enabled.invoke(THREADS)) {
+          return hotspotThreads.getMethod("getThreadAllocatedBytes", long.class);
+        }
+      }
+    }
+    catch (Exception e) {
+      //fall through...
+    }
+    return null;
+  }
+}
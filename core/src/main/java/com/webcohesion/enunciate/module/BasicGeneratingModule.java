@@ -15,29 +15,262 @@
  */
 package com.webcohesion.enunciate.module;
 
+import com.webcohesion.enunciate.EnunciateConfiguration;
+import com.webcohesion.enunciate.EnunciateContext;
+import com.webcohesion.enunciate.EnunciateException;
 import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
 import com.webcohesion.enunciate.javac.decorations.SourcePosition;
+import com.webcohesion.enunciate.util.HashUtils;
+import org.apache.commons.configuration.Configuration;
 
 import javax.lang.model.element.Element;
-import java.io.File;
+import javax.lang.model.element.TypeElement;
+import java.io.*;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Set;
+import java.security.MessageDigest;
+import java.util.*;
 
 /**
  * @author Ryan Heaton
  */
 public abstract class BasicGeneratingModule extends BasicEnunicateModule {
 
+  static final String SOURCES_FINGERPRINT_PROPERTY = BasicGeneratingModule.class.getName() + "#sourcesFingerprint";
+
+  private String inputFingerprint;
+  private final Map<File, String> pendingFingerprints = new LinkedHashMap<File, String>();
+
+  @Override
+  public void init(EnunciateContext context) {
+    super.init(context);
+    this.inputFingerprint = null;
+    this.pendingFingerprints.clear();
+  }
+
+  /**
+   * Whether the specified destination file (or directory) was generated from the current inputs. The inputs are
+   * fingerprinted by content (the API source files, the API elements, the configuration, and the module), and the
+   * fingerprint is compared against the manifest that was stored next to the destination when it was last generated.
+   * If the destination is not up-to-date, it's assumed it's about to be (re)generated, and its manifest will be stored
+   * when {@link #storeFingerprints()} is called.
+   *
+   * @param destDir The destination file or directory.
+   * @return Whether the destination is up-to-date.
+   */
+  public boolean isUpToDateWithSources(File destDir) {
+    if (destDir == null) {
+      return false;
+    }
+
+    String fingerprint = getInputFingerprint();
+    File manifest = getFingerprintManifest(destDir);
+    if (!destDir.exists()) {
+      debug("%s is NOT up-to-date because it doesn't exist.", destDir);
+    }
+    else if (fingerprint.equals(readFingerprint(manifest))) {
+      debug("%s is up-to-date because the fingerprint of its inputs hasn't changed.", destDir);
+      return true;
+    }
+    else {
+      debug("%s is NOT up-to-date because the fingerprint of its inputs has changed.", destDir);
+    }
+
+    //the manifest is stale until the destination has been regenerated.
+    manifest.delete();
+    synchronized (this.pendingFingerprints) {
+      this.pendingFingerprints.put(destDir, fingerprint);
+    }
+    return false;
+  }
+
+  /**
+   * Store the fingerprint manifests of all the destinations that have been (re)generated since they were found to be
+   * out-of-date. Called by the engine after the module has been successfully invoked.
+   */
+  public void storeFingerprints() {
+    synchronized (this.pendingFingerprints) {
+      for (Map.Entry<File, String> pending : this.pendingFingerprints.entrySet()) {
+        File destFile = pending.getKey();
+        if (destFile.exists()) {
+          File manifest = getFingerprintManifest(destFile);
+          try {
+            Writer writer = new OutputStreamWriter(new FileOutputStream(manifest), "utf-8");
+            try {
+              writer.write(pending.getValue());
+            }
+            finally {
+              writer.close();
+            }
+          }
+          catch (IOException e) {
+            warn("Unable to store fingerprint manifest %s: %s", manifest, e.getMessage());
+          }
+        }
+      }
+      this.pendingFingerprints.clear();
+    }
+  }
+
+  /**
+   * The manifest file holding the fingerprint of the inputs the specified destination was generated from.
+   *
+   * @param destFile The destination.
+   * @return The manifest file.
+   */
+  protected File getFingerprintManifest(File destFile) {
+    return new File(destFile.getAbsoluteFile().getParentFile(), "." + destFile.getName() + ".fingerprint");
+  }
+
+  /**
+   * The fingerprint of the inputs to this module.
+   *
+   * @return The fingerprint of the inputs to this module.
+   */
+  protected String getInputFingerprint() {
+    if (this.inputFingerprint == null) {
+      MessageDigest digest = HashUtils.newDigest();
+      HashUtils.update(digest, getName());
+      HashUtils.update(digest, getClass().getName());
+      HashUtils.update(digest, getClass().getPackage() == null ? null : getClass().getPackage().getImplementationVersion());
+
+      EnunciateConfiguration configuration = this.context.getConfiguration();
+      HashUtils.update(digest, configuration.getSlug());
+      HashUtils.update(digest, configuration.getVersion());
+      HashUtils.update(digest, configuration.getTitle());
+      HashUtils.update(digest, configuration.getCopyright());
+      Configuration source = configuration.getSource();
+      Set<String> relevantModules = getUpstreamModules();
+      relevantModules.add(getName());
+      TreeSet<String> keys = new TreeSet<String>();
+      Iterator<String> it = source.getKeys();
+      while (it.hasNext()) {
+        String key = it.next();
+        String module = moduleOf(key);
+        if (module == null || relevantModules.contains(module)) {
+          //the configuration of modules this one doesn't depend on doesn't affect what it generates.
+          keys.add(key);
+        }
+      }
+      for (String key : keys) {
+        HashUtils.update(digest, key);
+        HashUtils.update(digest, String.valueOf(source.getProperty(key)));
+      }
+
+      HashUtils.update(digest, getSourcesFingerprint());
+      this.inputFingerprint = HashUtils.toHex(digest.digest());
+    }
+    return this.inputFingerprint;
+  }
+
+  /**
+   * The names of the enabled modules this module depends on, directly or indirectly.
+   *
+   * @return The names of the modules this module depends on.
+   */
+  protected Set<String> getUpstreamModules() {
+    Set<String> upstream = new TreeSet<String>();
+    LinkedList<String> downstream = new LinkedList<String>();
+    downstream.add(getName());
+    while (!downstream.isEmpty()) {
+      String name = downstream.removeFirst();
+      for (EnunciateModule module : this.enunciate.getModules()) {
+        if (module instanceof BasicEnunicateModule) {
+          Set<String> depending = ((BasicEnunicateModule) module).dependingModules;
+          if (depending != null && depending.contains(name) && upstream.add(module.getName())) {
+            downstream.add(module.getName());
+          }
+        }
+      }
+    }
+    return upstream;
+  }
+
+  /**
+   * The name of the module the given configuration key belongs to, or null if it's not module configuration.
+   */
+  private static String moduleOf(String key) {
+    if (!key.startsWith("modules.")) {
+      return null;
+    }
+
+    int start = "modules.".length();
+    int end = start;
+    while (end < key.length() && key.charAt(end) != '.' && key.charAt(end) != '[' && key.charAt(end) != '(') {
+      end++;
+    }
+    return key.substring(start, end);
+  }
+
+  /**
+   * The fingerprint of the API elements and their source files. The same for all modules, so it's computed once per context.
+   *
+   * @return The fingerprint of the API elements and their source files.
+   */
+  protected String getSourcesFingerprint() {
+    synchronized (this.context) {
+      String fingerprint = this.context.getProperty(SOURCES_FINGERPRINT_PROPERTY, String.class);
+      if (fingerprint == null) {
+        DecoratedProcessingEnvironment env = this.context.getProcessingEnvironment();
+        TreeSet<String> elements = new TreeSet<String>();
+        TreeSet<String> sources = new TreeSet<String>();
+        for (Element apiElement : this.context.getApiElements()) {
+          elements.add(apiElement instanceof TypeElement ? ((TypeElement) apiElement).getQualifiedName().toString() : String.valueOf(apiElement));
+          URI uri = findSourceUri(env, apiElement);
+          if (uri != null) {
+            sources.add(uri.toString());
+          }
+        }
+
+        MessageDigest digest = HashUtils.newDigest();
+        for (String element : elements) {
+          HashUtils.update(digest, element);
+        }
+        for (String source : sources) {
+          HashUtils.update(digest, source);
+          URI uri = URI.create(source);
+          if ("file".equalsIgnoreCase(uri.getScheme())) {
+            try {
+              HashUtils.update(digest, new File(uri.getPath()));
+            }
+            catch (IOException e) {
+              throw new EnunciateException(e);
+            }
+          }
+        }
+
+        fingerprint = HashUtils.toHex(digest.digest());
+        this.context.setProperty(SOURCES_FINGERPRINT_PROPERTY, fingerprint);
+      }
+      return fingerprint;
+    }
+  }
+
+  private static String readFingerprint(File manifest) {
+    if (!manifest.exists()) {
+      return null;
+    }
+
+    try {
+      BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(manifest), "utf-8"));
+      try {
+        return reader.readLine();
+      }
+      finally {
+        reader.close();
+      }
+    }
+    catch (IOException e) {
+      return null;
+    }
+  }
+
   /**
    * Whether all files in the specified directory are newer than all the source files.
    *
    * @param destDir The directory.
    * @return Whether the destination directory is up-to-date.
    */
-  public boolean isUpToDateWithSources(File destDir) {
+  public boolean isUpToDateWithSourceTimestamps(File destDir) {
     Set<Element> apiElements = this.context.getApiElements();
     DecoratedProcessingEnvironment env = this.context.getProcessingEnvironment();
     long newestSourceTimestamp = 0;
@@ -56,13 +289,12 @@ public abstract class BasicGeneratingModule extends BasicEnunicateModule {
 
   public long findSourceTimestamp(DecoratedProcessingEnvironment env, Element apiElement) {
     SourcePosition sp = env.findSourcePosition(apiElement);
-    URI uri = sp == null ? null : sp.getPath() == null ? null : sp.getPath().getCompilationUnit() == null ? null : sp.getPath().getCompilationUnit().getSourceFile() == null ? null : sp.getPath().getCompilationUnit().getSourceFile().toUri();
-    if (uri != null && "file".equalsIgnoreCase(uri.getScheme())) {
-      //it's a file uri.
-      return new File(uri.getPath()).lastModified();
-    }
+    return sp == null ? 0 : sp.getSourceTimestamp();
+  }
 
-    return 0;
+  protected URI findSourceUri(DecoratedProcessingEnvironment env, Element apiElement) {
+    SourcePosition sp = env.findSourcePosition(apiElement);
+    return sp == null ? null : sp.getSourceUri();
   }
 
   protected boolean isUpToDate(long newestSourceTimestamp, File destFile) {
@@ -0,0 +1,389 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.scan;
+
+import com.webcohesion.enunciate.util.HashUtils;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * On-disk cache of the results of an API scan, keyed by a fingerprint of the scan path. The cache holds the class-level
+ * metadata of every type that was scanned (not just the detected ones), and where its class file was found, so that the
+ * type detecting modules can be replayed against it and end up in the same state they would have been in after a full
+ * scan.
+ *
+ * @author Ryan Heaton
+ */
+public class ApiScanCache {
+
+  private static final String FORMAT = "enunciate-api-scan-cache 2";
+  private static final String TYPE_RECORD = "T";
+  private static final String SOURCE_RECORD = "S";
+
+  private final File file;
+  private final List<ScannedType> types = Collections.synchronizedList(new ArrayList<ScannedType>());
+  private final Set<String> sourceFiles = Collections.synchronizedSet(new TreeSet<String>());
+  private String statFingerprint;
+  private String contentFingerprint;
+  private boolean stale = false;
+
+  public ApiScanCache(File file) {
+    this.file = file;
+  }
+
+  public File getFile() {
+    return file;
+  }
+
+  /**
+   * The types recorded in (or loaded from) the cache.
+   *
+   * @return The types recorded in (or loaded from) the cache.
+   */
+  public List<ScannedType> getTypes() {
+    return types;
+  }
+
+  /**
+   * The java source files recorded in (or loaded from) the cache, relative to their scan path entry.
+   *
+   * @return The java source files recorded in (or loaded from) the cache.
+   */
+  public Set<String> getSourceFiles() {
+    return sourceFiles;
+  }
+
+  public void addType(ScannedType type) {
+    this.types.add(type);
+  }
+
+  public void addSourceFile(String path) {
+    this.sourceFiles.add(path);
+  }
+
+  /**
+   * Whether the cache was loaded even though the files of the scan path were touched since it was stored (because their
+   * contents hadn't changed). A stale cache should be stored again so the next load doesn't have to read the scan path.
+   *
+   * @return Whether the loaded cache is stale.
+   */
+  public boolean isStale() {
+    return stale;
+  }
+
+  /**
+   * Load the cache, if it exists and it matches the specified fingerprint.
+   *
+   * @param fingerprint The fingerprint.
+   * @return Whether the cache was loaded.
+   */
+  public boolean load(String fingerprint) throws IOException {
+    this.types.clear();
+    this.sourceFiles.clear();
+
+    if (fingerprint == null || !this.file.exists()) {
+      return false;
+    }
+
+    BufferedReader reader = open();
+    try {
+      if (!FORMAT.equals(reader.readLine()) || !fingerprint.equals(reader.readLine())) {
+        return false;
+      }
+
+      reader.readLine(); //content fingerprint.
+      readRecords(reader);
+    }
+    finally {
+      reader.close();
+    }
+
+    return true;
+  }
+
+  /**
+   * Load the cache, if it exists and it was stored for the specified scan path as it is now. The scan path is first
+   * compared by the path, size and last-modified time of each of its files. Only if those differ are the contents of the
+   * files read to compare them.
+   *
+   * @param scanpath The scan path.
+   * @return Whether the cache was loaded.
+   */
+  public boolean load(List<URL> scanpath) throws IOException {
+    this.types.clear();
+    this.sourceFiles.clear();
+    this.stale = false;
+
+    this.statFingerprint = statFingerprint(scanpath);
+    this.contentFingerprint = null;
+    if (this.statFingerprint == null || !this.file.exists()) {
+      return false;
+    }
+
+    BufferedReader reader = open();
+    try {
+      if (!FORMAT.equals(reader.readLine())) {
+        return false;
+      }
+
+      String statFingerprint = reader.readLine();
+      String contentFingerprint = reader.readLine();
+      if (!this.statFingerprint.equals(statFingerprint)) {
+        //the files were touched; see if they actually changed.
+        this.contentFingerprint = contentFingerprint(scanpath);
+        if (contentFingerprint == null || !contentFingerprint.equals(this.contentFingerprint)) {
+          return false;
+        }
+        this.stale = true;
+      }
+      else {
+        this.contentFingerprint = contentFingerprint;
+      }
+
+      readRecords(reader);
+    }
+    finally {
+      reader.close();
+    }
+
+    return true;
+  }
+
+  private BufferedReader open() throws IOException {
+    return new BufferedReader(new InputStreamReader(new GZIPInputStream(new FileInputStream(this.file)), "utf-8"));
+  }
+
+  private void readRecords(BufferedReader reader) throws IOException {
+    //only keep what's read if all of it can be read.
+    List<ScannedType> types = new ArrayList<ScannedType>();
+    List<String> sourceFiles = new ArrayList<String>();
+    String line = reader.readLine();
+    while (line != null) {
+      String[] record = line.split("\t", -1);
+      if (TYPE_RECORD.equals(record[0]) && record.length == 8) {
+        int accessFlags;
+        try {
+          accessFlags = Integer.parseInt(record[2]);
+        }
+        catch (NumberFormatException e) {
+          throw new IOException("Corrupt API scan cache " + this.file + ": " + line);
+        }
+        String superclassName = record[3].isEmpty() ? null : record[3];
+        URL origin = record[6].isEmpty() ? null : new URL(record[6]);
+        String path = record[7].isEmpty() ? null : record[7];
+        types.add(new ScannedType(record[1], accessFlags, superclassName, readList(record[4]), readList(record[5]), origin, path));
+      }
+      else if (SOURCE_RECORD.equals(record[0]) && record.length == 2) {
+        sourceFiles.add(record[1]);
+      }
+      else {
+        throw new IOException("Corrupt API scan cache " + this.file + ": " + line);
+      }
+      line = reader.readLine();
+    }
+
+    this.types.addAll(types);
+    this.sourceFiles.addAll(sourceFiles);
+  }
+
+  /**
+   * Store the cache under the specified fingerprint.
+   *
+   * @param fingerprint The fingerprint.
+   */
+  public void store(String fingerprint) throws IOException {
+    if (fingerprint == null) {
+      return;
+    }
+
+    store(fingerprint, "");
+  }
+
+  /**
+   * Store the cache for the specified scan path, as it is now.
+   *
+   * @param scanpath The scan path.
+   */
+  public void store(List<URL> scanpath) throws IOException {
+    String statFingerprint = this.statFingerprint == null ? statFingerprint(scanpath) : this.statFingerprint;
+    if (statFingerprint == null) {
+      return;
+    }
+
+    String contentFingerprint = this.contentFingerprint == null ? contentFingerprint(scanpath) : this.contentFingerprint;
+    store(statFingerprint, contentFingerprint);
+    this.stale = false;
+  }
+
+  private void store(String fingerprint, String contentFingerprint) throws IOException {
+    File dir = this.file.getParentFile();
+    if (dir != null && !dir.exists()) {
+      dir.mkdirs();
+    }
+
+    //write to a temporary file first so a concurrent build sharing the cache never sees a partially-written cache.
+    File tmp = new File(dir, this.file.getName() + "." + UUID.randomUUID() + ".tmp");
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new GZIPOutputStream(new FileOutputStream(tmp)), "utf-8"));
+    try {
+      writer.write(FORMAT);
+      writer.write('\n');
+      writer.write(fingerprint);
+      writer.write('\n');
+      writer.write(contentFingerprint == null ? "" : contentFingerprint);
+      writer.write('\n');
+      synchronized (this.types) {
+        for (ScannedType type : this.types) {
+          writer.write(TYPE_RECORD);
+          writer.write('\t');
+          writer.write(type.getClassName());
+          writer.write('\t');
+          writer.write(String.valueOf(type.getAccessFlags()));
+          writer.write('\t');
+          writer.write(type.getSuperclassName() == null ? "" : type.getSuperclassName());
+          writer.write('\t');
+          writeList(writer, type.getInterfaceNames());
+          writer.write('\t');
+          writeList(writer, type.getClassAnnotationNames());
+          writer.write('\t');
+          writer.write(type.getOrigin() == null ? "" : type.getOrigin().toExternalForm());
+          writer.write('\t');
+          writer.write(type.getPath() == null ? "" : type.getPath());
+          writer.write('\n');
+        }
+      }
+      synchronized (this.sourceFiles) {
+        for (String sourceFile : this.sourceFiles) {
+          writer.write(SOURCE_RECORD);
+          writer.write('\t');
+          writer.write(sourceFile);
+          writer.write('\n');
+        }
+      }
+    }
+    finally {
+      writer.close();
+    }
+
+    if (!tmp.renameTo(this.file)) {
+      //some platforms won't rename over an existing file.
+      this.file.delete();
+      if (!tmp.renameTo(this.file)) {
+        tmp.delete();
+        throw new IOException("Unable to write " + this.file + ".");
+      }
+    }
+  }
+
+  private static List<String> readList(String value) {
+    if (value.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(value.split(","));
+  }
+
+  private static void writeList(Writer writer, List<String> values) throws IOException {
+    if (values != null) {
+      Iterator<String> it = values.iterator();
+      while (it.hasNext()) {
+        writer.write(it.next());
+        if (it.hasNext()) {
+          writer.write(',');
+        }
+      }
+    }
+  }
+
+  /**
+   * Compute a fingerprint of the path, size and last-modified time of each file of the specified scan path. Nothing is
+   * read, so this is cheap, but it changes whenever a file is touched, even if its contents don't change.
+   *
+   * @param scanpath The scan path.
+   * @return The fingerprint, or null if the scan path can't be fingerprinted (e.g. it contains non-file URLs).
+   */
+  public static String statFingerprint(List<URL> scanpath) {
+    List<File> files = toFiles(scanpath);
+    if (files == null) {
+      return null;
+    }
+
+    MessageDigest digest = HashUtils.newDigest();
+    for (File file : files) {
+      HashUtils.update(digest, file.getAbsolutePath());
+      updateStat(digest, file);
+    }
+    return HashUtils.toHex(digest.digest());
+  }
+
+  private static void updateStat(MessageDigest digest, File file) {
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      if (children != null) {
+        Arrays.sort(children);
+        for (File child : children) {
+          HashUtils.update(digest, child.getName());
+          updateStat(digest, child);
+        }
+      }
+    }
+    else if (file.exists()) {
+      HashUtils.update(digest, String.valueOf(file.length()));
+      HashUtils.update(digest, String.valueOf(file.lastModified()));
+    }
+  }
+
+  /**
+   * Compute a fingerprint of the contents of the specified scan path.
+   *
+   * @param scanpath The scan path.
+   * @return The fingerprint, or null if the scan path can't be fingerprinted (e.g. it contains non-file URLs).
+   */
+  public static String contentFingerprint(List<URL> scanpath) throws IOException {
+    List<File> files = toFiles(scanpath);
+    if (files == null) {
+      return null;
+    }
+
+    MessageDigest digest = HashUtils.newDigest();
+    for (File file : files) {
+      HashUtils.update(digest, file.getAbsolutePath());
+      HashUtils.update(digest, file);
+    }
+    return HashUtils.toHex(digest.digest());
+  }
+
+  private static List<File> toFiles(List<URL> scanpath) {
+    List<File> files = new ArrayList<File>(scanpath.size());
+    for (URL entry : scanpath) {
+      if (!"file".equals(entry.getProtocol())) {
+        return null;
+      }
+
+      try {
+        files.add(new File(entry.toURI()));
+      }
+      catch (URISyntaxException e) {
+        return null;
+      }
+    }
+    return files;
+  }
+}
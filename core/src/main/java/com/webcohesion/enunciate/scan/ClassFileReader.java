@@ -0,0 +1,330 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.scan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Reads the class-level metadata of a type (its name, superclass, interfaces and class annotations) directly from its
+ * class file. Only the constant pool, the class header and the class attributes are read; fields and methods are skipped
+ * over without being parsed. If the constant pool doesn't reference an annotations attribute at all, the type can't have
+ * any annotations, so the rest of the class file isn't even looked at.
+ *
+ * @author Ryan Heaton
+ */
+public class ClassFileReader {
+
+  private static final int MAGIC = 0xCAFEBABE;
+  private static final byte[] VISIBLE_ANNOTATIONS = ascii("RuntimeVisibleAnnotations");
+  private static final byte[] INVISIBLE_ANNOTATIONS = ascii("RuntimeInvisibleAnnotations");
+
+  private final byte[] bytes;
+  private int position;
+  private int[] utf8Offsets;
+  private int[] classNameIndexes;
+
+  private ClassFileReader(byte[] bytes) {
+    this.bytes = bytes;
+  }
+
+  /**
+   * Read the class-level metadata from the specified class file.
+   *
+   * @param in The stream to the class file. The stream is read to its end but not closed.
+   * @return The scanned type.
+   * @throws IOException If the class file couldn't be read or isn't a valid class file.
+   */
+  public static ScannedType read(InputStream in) throws IOException {
+    return read(readFully(in));
+  }
+
+  /**
+   * Read the class-level metadata from the specified class file.
+   *
+   * @param classFile The bytes of the class file.
+   * @return The scanned type.
+   * @throws IOException If the bytes aren't a valid class file.
+   */
+  public static ScannedType read(byte[] classFile) throws IOException {
+    try {
+      return new ClassFileReader(classFile).read();
+    }
+    catch (ArrayIndexOutOfBoundsException e) {
+      IOException io = new IOException("Truncated class file."); io.initCause(e); throw io;
+    }
+  }
+
+  private ScannedType read() throws IOException {
+    if (readInt() != MAGIC) {
+      throw new IOException("Not a class file.");
+    }
+    this.position += 4; //minor and major version.
+
+    boolean annotated = readConstantPool();
+
+    int accessFlags = readUnsignedShort();
+    String className = className(readUnsignedShort());
+    String superclassName = className(readUnsignedShort());
+    int interfaceCount = readUnsignedShort();
+    List<String> interfaceNames = interfaceCount == 0 ? Collections.<String>emptyList() : new ArrayList<String>(interfaceCount);
+    for (int i = 0; i < interfaceCount; i++) {
+      interfaceNames.add(className(readUnsignedShort()));
+    }
+
+    List<String> annotationNames = Collections.emptyList();
+    if (annotated) {
+      skipMembers(); //fields.
+      skipMembers(); //methods.
+      int attributeCount = readUnsignedShort();
+      for (int i = 0; i < attributeCount; i++) {
+        int nameIndex = readUnsignedShort();
+        int length = readInt();
+        int end = this.position + length;
+        if (utf8Equals(nameIndex, VISIBLE_ANNOTATIONS) || utf8Equals(nameIndex, INVISIBLE_ANNOTATIONS)) {
+          if (annotationNames.isEmpty()) {
+            annotationNames = new ArrayList<String>();
+          }
+          readAnnotationNames(annotationNames);
+        }
+        this.position = end;
+      }
+    }
+
+    return new ScannedType(className, accessFlags, superclassName, interfaceNames, annotationNames);
+  }
+
+  /**
+   * Read the constant pool, remembering where the UTF-8 entries are and which class entries point to them.
+   *
+   * @return Whether the constant pool names an annotations attribute.
+   */
+  private boolean readConstantPool() throws IOException {
+    int count = readUnsignedShort();
+    this.utf8Offsets = new int[count];
+    this.classNameIndexes = new int[count];
+    boolean annotated = false;
+    for (int i = 1; i < count; i++) {
+      int tag = this.bytes[this.position++];
+      switch (tag) {
+        case 1: //utf8
+          this.utf8Offsets[i] = this.position;
+          int length = readUnsignedShort();
+          if (!annotated && (utf8Equals(i, VISIBLE_ANNOTATIONS) || utf8Equals(i, INVISIBLE_ANNOTATIONS))) {
+            annotated = true;
+          }
+          this.position += length;
+          break;
+        case 7: //class
+          this.classNameIndexes[i] = readUnsignedShort();
+          break;
+        case 8: //string
+        case 16: //method type
+        case 19: //module
+        case 20: //package
+          this.position += 2;
+          break;
+        case 15: //method handle
+          this.position += 3;
+          break;
+        case 3: //integer
+        case 4: //float
+        case 9: //field ref
+        case 10: //method ref
+        case 11: //interface method ref
+        case 12: //name and type
+        case 17: //dynamic
+        case 18: //invoke dynamic
+          this.position += 4;
+          break;
+        case 5: //long
+        case 6: //double
+          this.position += 8;
+          i++; //takes up two entries.
+          break;
+        default:
+          throw new IOException("Unknown constant pool tag " + tag + ".");
+      }
+    }
+    return annotated;
+  }
+
+  private void skipMembers() {
+    int memberCount = readUnsignedShort();
+    for (int i = 0; i < memberCount; i++) {
+      this.position += 6; //access flags, name, descriptor.
+      int attributeCount = readUnsignedShort();
+      for (int j = 0; j < attributeCount; j++) {
+        this.position += 2; //name.
+        int length = readInt();
+        this.position += length;
+      }
+    }
+  }
+
+  private void readAnnotationNames(List<String> annotationNames) throws IOException {
+    int annotationCount = readUnsignedShort();
+    for (int i = 0; i < annotationCount; i++) {
+      annotationNames.add(descriptorClassName(readUnsignedShort()));
+      skipElementValuePairs();
+    }
+  }
+
+  private void skipAnnotation() throws IOException {
+    this.position += 2; //type.
+    skipElementValuePairs();
+  }
+
+  private void skipElementValuePairs() throws IOException {
+    int pairCount = readUnsignedShort();
+    for (int i = 0; i < pairCount; i++) {
+      this.position += 2; //name.
+      skipElementValue();
+    }
+  }
+
+  private void skipElementValue() throws IOException {
+    int tag = this.bytes[this.position++];
+    switch (tag) {
+      case 'B':
+      case 'C':
+      case 'D':
+      case 'F':
+      case 'I':
+      case 'J':
+      case 'S':
+      case 'Z':
+      case 's':
+      case 'c':
+        this.position += 2;
+        break;
+      case 'e':
+        this.position += 4;
+        break;
+      case '@':
+        skipAnnotation();
+        break;
+      case '[':
+        int valueCount = readUnsignedShort();
+        for (int i = 0; i < valueCount; i++) {
+          skipElementValue();
+        }
+        break;
+      default:
+        throw new IOException("Unknown element value tag " + (char) tag + ".");
+    }
+  }
+
+  private String className(int classIndex) throws IOException {
+    if (classIndex == 0) {
+      return null; //java.lang.Object has no superclass.
+    }
+    return utf8(this.classNameIndexes[classIndex]).replace('/', '.');
+  }
+
+  private String descriptorClassName(int utf8Index) throws IOException {
+    String descriptor = utf8(utf8Index);
+    if (descriptor.length() > 2 && descriptor.charAt(0) == 'L' && descriptor.charAt(descriptor.length() - 1) == ';') {
+      descriptor = descriptor.substring(1, descriptor.length() - 1);
+    }
+    return descriptor.replace('/', '.');
+  }
+
+  private boolean utf8Equals(int utf8Index, byte[] value) {
+    int offset = this.utf8Offsets[utf8Index];
+    int length = ((this.bytes[offset] & 0xFF) << 8) | (this.bytes[offset + 1] & 0xFF);
+    if (length != value.length) {
+      return false;
+    }
+    offset += 2;
+    for (int i = 0; i < length; i++) {
+      if (this.bytes[offset + i] != value[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private String utf8(int utf8Index) throws IOException {
+    int offset = this.utf8Offsets[utf8Index];
+    if (offset == 0) {
+      throw new IOException("Invalid constant pool reference " + utf8Index + ".");
+    }
+    int length = ((this.bytes[offset] & 0xFF) << 8) | (this.bytes[offset + 1] & 0xFF);
+    offset += 2;
+    char[] chars = new char[length];
+    int charCount = 0;
+    int end = offset + length;
+    while (offset < end) {
+      //"modified" utf-8; see the JVM spec, section 4.4.7.
+      int b = this.bytes[offset++] & 0xFF;
+      if (b < 0x80) {
+        chars[charCount++] = (char) b;
+      }
+      else if ((b & 0xE0) == 0xC0) {
+        chars[charCount++] = (char) (((b & 0x1F) << 6) | (this.bytes[offset++] & 0x3F));
+      }
+      else {
+        chars[charCount++] = (char) (((b & 0x0F) << 12) | ((this.bytes[offset++] & 0x3F) << 6) | (this.bytes[offset++] & 0x3F));
+      }
+    }
+    return new String(chars, 0, charCount);
+  }
+
+  private int readUnsignedShort() {
+    int value = ((this.bytes[this.position] & 0xFF) << 8) | (this.bytes[this.position + 1] & 0xFF);
+    this.position += 2;
+    return value;
+  }
+
+  private int readInt() {
+    int value = ((this.bytes[this.position] & 0xFF) << 24) | ((this.bytes[this.position + 1] & 0xFF) << 16) | ((this.bytes[this.position + 2] & 0xFF) << 8) | (this.bytes[this.position + 3] & 0xFF);
+    this.position += 4;
+    return value;
+  }
+
+  static byte[] readFully(InputStream in) throws IOException {
+    byte[] buffer = new byte[4 * 1024];
+    int count = 0;
+    int len;
+    while ((len = in.read(buffer, count, buffer.length - count)) >= 0) {
+      count += len;
+      if (count == buffer.length) {
+        byte[] grown = new byte[buffer.length * 2];
+        System.arraycopy(buffer, 0, grown, 0, count);
+        buffer = grown;
+      }
+    }
+
+    if (count == buffer.length) {
+      return buffer;
+    }
+    byte[] classFile = new byte[count];
+    System.arraycopy(buffer, 0, classFile, 0, count);
+    return classFile;
+  }
+
+  private static byte[] ascii(String value) {
+    byte[] bytes = new byte[value.length()];
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = (byte) value.charAt(i);
+    }
+    return bytes;
+  }
+}
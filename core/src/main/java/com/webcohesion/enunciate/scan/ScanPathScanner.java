@@ -0,0 +1,325 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.scan;
+
+import com.webcohesion.enunciate.EnunciateException;
+import com.webcohesion.enunciate.EnunciateLogger;
+import com.webcohesion.enunciate.util.HashUtils;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Scans the entries of a scan path (directories and jars) for class files and java source files. Class files are read
+ * with a {@link ClassFileReader}, so nothing is loaded or parsed beyond the class-level metadata. If an executor is
+ * supplied, the entries are scanned concurrently, but the results are always returned in scan path order so that the
+ * type detecting modules see the same types in the same order regardless of the number of threads.
+ *
+ * Jars rarely change between builds, so if an index directory is supplied, the results of scanning each jar are stored
+ * there under the hash of the jar and the jar isn't opened again until its contents change.
+ *
+ * @author Ryan Heaton
+ */
+public class ScanPathScanner {
+
+  private final EnunciateLogger logger;
+  private final ExecutorService executor;
+  private File indexDir;
+
+  public ScanPathScanner(EnunciateLogger logger, ExecutorService executor) {
+    this.logger = logger;
+    this.executor = executor;
+  }
+
+  /**
+   * The directory holding the index of each jar that has been scanned, keyed by the hash of the contents of the jar.
+   * Jars with an index are not opened; the types and source files recorded in the index are used instead.
+   *
+   * @return The directory holding the jar indexes, or null if jars are not indexed.
+   */
+  public File getIndexDir() {
+    return indexDir;
+  }
+
+  public ScanPathScanner setIndexDir(File indexDir) {
+    this.indexDir = indexDir;
+    return this;
+  }
+
+  /**
+   * Scan the specified scan path.
+   *
+   * @param scanpath The scan path.
+   * @return The results of scanning each entry of the scan path, in scan path order.
+   */
+  public List<Entry> scan(List<URL> scanpath) {
+    List<Entry> entries = new ArrayList<Entry>(scanpath.size());
+    if (this.executor == null || scanpath.size() < 2) {
+      for (URL url : scanpath) {
+        entries.add(scan(url));
+      }
+    }
+    else {
+      List<Future<Entry>> futures = new ArrayList<Future<Entry>>(scanpath.size());
+      for (final URL url : scanpath) {
+        futures.add(this.executor.submit(new Callable<Entry>() {
+          @Override
+          public Entry call() throws Exception {
+            return scan(url);
+          }
+        }));
+      }
+
+      for (Future<Entry> future : futures) {
+        try {
+          entries.add(future.get());
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new EnunciateException(e);
+        }
+        catch (ExecutionException e) {
+          Throwable cause = e.getCause();
+          if (cause instanceof RuntimeException) {
+            throw (RuntimeException) cause;
+          }
+          throw new EnunciateException(cause);
+        }
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Scan a single entry of the scan path.
+   *
+   * @param url The entry.
+   * @return The results of the scan.
+   */
+  public Entry scan(URL url) {
+    Entry entry = new Entry(url);
+    try {
+      File file = toFile(url);
+      if (file == null) {
+        scanZip(url, entry);
+      }
+      else if (file.isDirectory()) {
+        scanDirectory(file, "", entry);
+      }
+      else if (file.exists()) {
+        if (this.indexDir == null) {
+          scanZip(file, entry);
+        }
+        else {
+          scanIndexedZip(file, entry);
+        }
+      }
+      else {
+        this.logger.debug("Scan path entry %s doesn't exist.", url);
+      }
+    }
+    catch (IOException e) {
+      this.logger.warn("Unable to scan %s: %s", url, e.getMessage());
+    }
+    return entry;
+  }
+
+  private void scanDirectory(File dir, String relativePath, Entry entry) throws IOException {
+    File[] files = dir.listFiles();
+    if (files == null) {
+      return;
+    }
+
+    for (File file : files) {
+      String path = relativePath + file.getName();
+      if (file.isDirectory()) {
+        scanDirectory(file, path + '/', entry);
+      }
+      else if (path.endsWith(".class")) {
+        InputStream in = new FileInputStream(file);
+        try {
+          readClass(path, in, entry);
+        }
+        finally {
+          in.close();
+        }
+      }
+      else if (path.endsWith(".java")) {
+        entry.sourceFiles.add(path);
+      }
+    }
+  }
+
+  private void scanZip(File file, Entry entry) throws IOException {
+    ZipFile zip = new ZipFile(file);
+    try {
+      Enumeration<? extends ZipEntry> zipEntries = zip.entries();
+      while (zipEntries.hasMoreElements()) {
+        ZipEntry zipEntry = zipEntries.nextElement();
+        String path = zipEntry.getName();
+        if (zipEntry.isDirectory()) {
+          continue;
+        }
+
+        if (path.endsWith(".class")) {
+          InputStream in = zip.getInputStream(zipEntry);
+          try {
+            readClass(path, in, entry);
+          }
+          finally {
+            in.close();
+          }
+        }
+        else if (path.endsWith(".java")) {
+          entry.sourceFiles.add(path);
+        }
+      }
+    }
+    finally {
+      zip.close();
+    }
+  }
+
+  private void scanIndexedZip(File file, Entry entry) throws IOException {
+    String hash = HashUtils.hash(file);
+    ApiScanCache index = new ApiScanCache(new File(this.indexDir, hash + ".idx"));
+    try {
+      if (index.load(hash)) {
+        this.logger.debug("Using the scan index %s for %s.", index.getFile(), file);
+        for (ScannedType type : index.getTypes()) {
+          //the index may have been written for an identical jar somewhere else.
+          entry.types.add(type.locatedAt(entry.url, type.getPath()));
+        }
+        entry.sourceFiles.addAll(index.getSourceFiles());
+        return;
+      }
+    }
+    catch (IOException e) {
+      this.logger.debug("Unable to load the scan index %s for %s: %s", index.getFile(), file, e.getMessage());
+    }
+
+    scanZip(file, entry);
+
+    for (ScannedType type : entry.types) {
+      index.addType(type);
+    }
+    for (String sourceFile : entry.sourceFiles) {
+      index.addSourceFile(sourceFile);
+    }
+
+    try {
+      index.store(hash);
+    }
+    catch (IOException e) {
+      this.logger.debug("Unable to store the scan index %s for %s: %s", index.getFile(), file, e.getMessage());
+    }
+  }
+
+  private void scanZip(URL url, Entry entry) throws IOException {
+    ZipInputStream zip = new ZipInputStream(url.openStream());
+    try {
+      ZipEntry zipEntry = zip.getNextEntry();
+      while (zipEntry != null) {
+        String path = zipEntry.getName();
+        if (!zipEntry.isDirectory()) {
+          if (path.endsWith(".class")) {
+            readClass(path, zip, entry);
+          }
+          else if (path.endsWith(".java")) {
+            entry.sourceFiles.add(path);
+          }
+        }
+        zip.closeEntry();
+        zipEntry = zip.getNextEntry();
+      }
+    }
+    finally {
+      zip.close();
+    }
+  }
+
+  private void readClass(String path, InputStream in, Entry entry) {
+    try {
+      entry.types.add(ClassFileReader.read(in).locatedAt(entry.url, path));
+    }
+    catch (IOException e) {
+      this.logger.debug("Unable to read class file %s in %s: %s", path, entry.url, e.getMessage());
+    }
+  }
+
+  private static File toFile(URL url) {
+    if (!"file".equals(url.getProtocol())) {
+      return null;
+    }
+
+    try {
+      return new File(url.toURI());
+    }
+    catch (URISyntaxException e) {
+      return new File(url.getPath());
+    }
+  }
+
+  /**
+   * The results of scanning a single entry of the scan path.
+   */
+  public static class Entry {
+
+    private final URL url;
+    private final List<ScannedType> types = new ArrayList<ScannedType>();
+    private final List<String> sourceFiles = new ArrayList<String>();
+
+    Entry(URL url) {
+      this.url = url;
+    }
+
+    public URL getUrl() {
+      return url;
+    }
+
+    /**
+     * The types found in the entry.
+     *
+     * @return The types found in the entry.
+     */
+    public List<ScannedType> getTypes() {
+      return types;
+    }
+
+    /**
+     * The java source files found in the entry, relative to the entry.
+     *
+     * @return The java source files found in the entry.
+     */
+    public List<String> getSourceFiles() {
+      return sourceFiles;
+    }
+  }
+}
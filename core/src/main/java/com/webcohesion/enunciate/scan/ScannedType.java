@@ -0,0 +1,140 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.scan;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.util.List;
+
+/**
+ * The class-level metadata of a type found on the scan path, along with where its class file was found. The class-level
+ * metadata is all most type detecting modules look at, so it's all that's remembered between builds; anything else
+ * (fields, methods) is read from the class file when it's asked for.
+ *
+ * @author Ryan Heaton
+ */
+public class ScannedType {
+
+  private final String className;
+  private final int accessFlags;
+  private final String superclassName;
+  private final List<String> interfaceNames;
+  private final List<String> classAnnotationNames;
+  private final URL origin;
+  private final String path;
+
+  public ScannedType(String className, int accessFlags, String superclassName, List<String> interfaceNames, List<String> classAnnotationNames) {
+    this(className, accessFlags, superclassName, interfaceNames, classAnnotationNames, null, null);
+  }
+
+  public ScannedType(String className, int accessFlags, String superclassName, List<String> interfaceNames, List<String> classAnnotationNames, URL origin, String path) {
+    this.className = className;
+    this.accessFlags = accessFlags;
+    this.superclassName = superclassName;
+    this.interfaceNames = interfaceNames;
+    this.classAnnotationNames = classAnnotationNames;
+    this.origin = origin;
+    this.path = path;
+  }
+
+  public String getClassName() {
+    return className;
+  }
+
+  /**
+   * The access flags of the type, as found in the class file.
+   *
+   * @return The access flags of the type.
+   */
+  public int getAccessFlags() {
+    return accessFlags;
+  }
+
+  public String getSuperclassName() {
+    return superclassName;
+  }
+
+  public List<String> getInterfaceNames() {
+    return interfaceNames;
+  }
+
+  public List<String> getClassAnnotationNames() {
+    return classAnnotationNames;
+  }
+
+  /**
+   * The scan path entry (directory or jar) the class file was found in.
+   *
+   * @return The scan path entry the class file was found in, or null if unknown.
+   */
+  public URL getOrigin() {
+    return origin;
+  }
+
+  /**
+   * The path of the class file, relative to its {@link #getOrigin() origin}.
+   *
+   * @return The path of the class file, or null if unknown.
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * This type, found at the specified location.
+   *
+   * @param origin The scan path entry (directory or jar) the class file was found in.
+   * @param path The path of the class file, relative to the scan path entry.
+   * @return This type, found at the specified location.
+   */
+  public ScannedType locatedAt(URL origin, String path) {
+    return new ScannedType(this.className, this.accessFlags, this.superclassName, this.interfaceNames, this.classAnnotationNames, origin, path);
+  }
+
+  /**
+   * The URL to the class file of this type.
+   *
+   * @return The URL to the class file of this type, or null if the location of the class file is unknown.
+   */
+  public URL getClassFileURL() throws MalformedURLException {
+    if (this.origin == null || this.path == null) {
+      return null;
+    }
+
+    if ("file".equals(this.origin.getProtocol())) {
+      File file;
+      try {
+        file = new File(this.origin.toURI());
+      }
+      catch (URISyntaxException e) {
+        file = new File(this.origin.getPath());
+      }
+
+      if (file.isDirectory()) {
+        return new File(file, this.path).toURI().toURL();
+      }
+    }
+
+    return new URL("jar:" + this.origin.toExternalForm() + "!/" + this.path);
+  }
+
+  @Override
+  public String toString() {
+    return this.className;
+  }
+}
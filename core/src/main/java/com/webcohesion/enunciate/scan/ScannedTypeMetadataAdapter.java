@@ -0,0 +1,194 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.scan;
+
+import com.webcohesion.enunciate.EnunciateException;
+import javassist.bytecode.AccessFlag;
+import javassist.bytecode.ClassFile;
+import javassist.bytecode.FieldInfo;
+import javassist.bytecode.MethodInfo;
+import org.reflections.adapters.JavassistAdapter;
+import org.reflections.adapters.MetadataAdapter;
+import org.reflections.vfs.Vfs;
+
+import java.io.*;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Metadata adapter for scanned types. The class-level metadata comes straight from the scanned type (which may have been
+ * read from a cache). The first time the fields or methods of a type are asked for, its class file is read (from where
+ * it was found on the scan path) with the same Javassist adapter a Reflections scan uses, and the member-level metadata
+ * comes from that.
+ *
+ * @author Ryan Heaton
+ */
+public class ScannedTypeMetadataAdapter implements MetadataAdapter<ScannedType, FieldInfo, MethodInfo> {
+
+  private final JavassistAdapter classFiles = new JavassistAdapter();
+  private final ConcurrentMap<ScannedType, ClassFile> loadedClassFiles = new ConcurrentHashMap<ScannedType, ClassFile>();
+
+  @Override
+  public String getClassName(ScannedType cls) {
+    return cls.getClassName();
+  }
+
+  @Override
+  public String getSuperclassName(ScannedType cls) {
+    return cls.getSuperclassName();
+  }
+
+  @Override
+  public List<String> getInterfacesNames(ScannedType cls) {
+    return cls.getInterfaceNames();
+  }
+
+  @Override
+  public List<FieldInfo> getFields(ScannedType cls) {
+    return this.classFiles.getFields(loadClassFile(cls));
+  }
+
+  @Override
+  public List<MethodInfo> getMethods(ScannedType cls) {
+    return this.classFiles.getMethods(loadClassFile(cls));
+  }
+
+  @Override
+  public String getMethodName(MethodInfo method) {
+    return this.classFiles.getMethodName(method);
+  }
+
+  @Override
+  public List<String> getParameterNames(MethodInfo method) {
+    return this.classFiles.getParameterNames(method);
+  }
+
+  @Override
+  public List<String> getClassAnnotationNames(ScannedType cls) {
+    return cls.getClassAnnotationNames();
+  }
+
+  @Override
+  public List<String> getFieldAnnotationNames(FieldInfo field) {
+    return this.classFiles.getFieldAnnotationNames(field);
+  }
+
+  @Override
+  public List<String> getMethodAnnotationNames(MethodInfo method) {
+    return this.classFiles.getMethodAnnotationNames(method);
+  }
+
+  @Override
+  public List<String> getParameterAnnotationNames(MethodInfo method, int parameterIndex) {
+    return this.classFiles.getParameterAnnotationNames(method, parameterIndex);
+  }
+
+  @Override
+  public String getReturnTypeName(MethodInfo method) {
+    return this.classFiles.getReturnTypeName(method);
+  }
+
+  @Override
+  public String getFieldName(FieldInfo field) {
+    return this.classFiles.getFieldName(field);
+  }
+
+  @Override
+  public ScannedType getOfCreateClassObject(Vfs.File file) throws Exception {
+    byte[] bytes;
+    InputStream in = file.openInputStream();
+    try {
+      bytes = ClassFileReader.readFully(in);
+    }
+    finally {
+      in.close();
+    }
+
+    //a virtual file can't be found again later, so hang on to its class file.
+    ScannedType type = ClassFileReader.read(bytes);
+    this.loadedClassFiles.put(type, new ClassFile(new DataInputStream(new ByteArrayInputStream(bytes))));
+    return type;
+  }
+
+  @Override
+  public String getMethodModifier(MethodInfo method) {
+    return this.classFiles.getMethodModifier(method);
+  }
+
+  @Override
+  public String getMethodKey(ScannedType cls, MethodInfo method) {
+    return this.classFiles.getMethodKey(loadClassFile(cls), method);
+  }
+
+  @Override
+  public String getMethodFullKey(ScannedType cls, MethodInfo method) {
+    return this.classFiles.getMethodFullKey(loadClassFile(cls), method);
+  }
+
+  @Override
+  public boolean isPublic(Object o) {
+    if (o instanceof ScannedType) {
+      return AccessFlag.isPublic(((ScannedType) o).getAccessFlags());
+    }
+
+    return this.classFiles.isPublic(o);
+  }
+
+  @Override
+  public boolean acceptsInput(String file) {
+    return this.classFiles.acceptsInput(file);
+  }
+
+  /**
+   * Load the class file of the specified type.
+   *
+   * @param type The type.
+   * @return The class file.
+   */
+  protected ClassFile loadClassFile(ScannedType type) {
+    ClassFile classFile = this.loadedClassFiles.get(type);
+    if (classFile == null) {
+      try {
+        URL url = type.getClassFileURL();
+        if (url == null) {
+          throw new EnunciateException("Unable to find the class file of " + type.getClassName() + ".");
+        }
+
+        URLConnection connection = url.openConnection();
+        connection.setUseCaches(false); //don't hold the jar open.
+        InputStream in = connection.getInputStream();
+        try {
+          classFile = new ClassFile(new DataInputStream(new BufferedInputStream(in)));
+        }
+        finally {
+          in.close();
+        }
+      }
+      catch (IOException e) {
+        throw new EnunciateException("Unable to read the class file of " + type.getClassName() + ".", e);
+      }
+
+      ClassFile existing = this.loadedClassFiles.putIfAbsent(type, classFile);
+      if (existing != null) {
+        classFile = existing;
+      }
+    }
+    return classFile;
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.webcohesion.enunciate.util;
 
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
 import com.webcohesion.enunciate.javac.decorations.element.DecoratedElement;
 import com.webcohesion.enunciate.javac.javadoc.JavaDoc;
 
@@ -26,59 +27,183 @@ import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
  */
 public class AnnotationUtils {
 
+  /**
+   * Property of the processing environment holding the inherited annotations and javadoc tags already looked up, keyed
+   * by the element and the annotation class (or tag name). The lookups walk the enclosing elements and the superclasses,
+   * and the resource models repeat them for every method of the same class.
+   */
+  private static final String INHERITED_LOOKUPS_PROPERTY = AnnotationUtils.class.getName() + "#inheritedLookups";
+
   private AnnotationUtils() {}
 
+  /**
+   * The annotations of the specified type on the specified element, its enclosing elements and (for types) its superclasses.
+   *
+   * @param clazz The annotation type.
+   * @param el The element.
+   * @return The annotations, nearest first. The list is not modifiable.
+   */
   public static <A extends Annotation> List<A> getAnnotations(Class<A> clazz, Element el) {
-    if (el == null || (el instanceof TypeElement && Object.class.getName().equals(((TypeElement) el).getQualifiedName().toString()))) {
+    if (el == null || isObject(el)) {
       return Collections.emptyList();
     }
 
-    ArrayList<A> allAnnotations = new ArrayList<A>();
-    A annotation = el.getAnnotation(clazz);
-    if (annotation != null) {
-      allAnnotations.add(annotation);
+    ConcurrentMap<InheritedLookup, List<?>> lookups = getInheritedLookups(el);
+    if (lookups == null) {
+      return lookupAnnotations(clazz, el);
     }
 
-    allAnnotations.addAll(getAnnotations(clazz, el.getEnclosingElement()));
+    InheritedLookup key = new InheritedLookup(clazz, el);
+    @SuppressWarnings ( "unchecked" )
+    List<A> annotations = (List<A>) lookups.get(key);
+    if (annotations == null) {
+      annotations = lookupAnnotations(clazz, el);
+      lookups.putIfAbsent(key, annotations);
+    }
+    return annotations;
+  }
 
+  private static <A extends Annotation> List<A> lookupAnnotations(Class<A> clazz, Element el) {
+    A annotation = el.getAnnotation(clazz);
+    List<A> enclosingAnnotations = getAnnotations(clazz, el.getEnclosingElement());
+    List<A> superclassAnnotations = Collections.emptyList();
     if (el instanceof TypeElement) {
       //include the superclass.
       TypeMirror superclass = ((TypeElement) el).getSuperclass();
       if (superclass instanceof DeclaredType) {
-        allAnnotations.addAll(getAnnotations(clazz, ((DeclaredType) superclass).asElement()));
+        superclassAnnotations = getAnnotations(clazz, ((DeclaredType) superclass).asElement());
       }
     }
 
-    return allAnnotations;
+    return concat(annotation, enclosingAnnotations, superclassAnnotations);
   }
 
+  /**
+   * The specified javadoc tags of the specified element, its enclosing elements and (for types) its superclasses.
+   *
+   * @param tag The tag name.
+   * @param el The element.
+   * @return The tags, nearest first. The list is not modifiable.
+   */
   public static List<JavaDoc.JavaDocTagList> getJavaDocTags(String tag, DecoratedElement el) {
-    if (el == null || (el instanceof TypeElement && Object.class.getName().equals(((TypeElement) el).getQualifiedName().toString()))) {
+    if (el == null || isObject(el)) {
       return Collections.emptyList();
     }
 
-    ArrayList<JavaDoc.JavaDocTagList> allTags = new ArrayList<JavaDoc.JavaDocTagList>();
-    JavaDoc.JavaDocTagList tagList = el.getJavaDoc().get(tag);
-    if (tagList != null && !tagList.isEmpty()) {
-      allTags.add(tagList);
+    ConcurrentMap<InheritedLookup, List<?>> lookups = getInheritedLookups(el);
+    InheritedLookup key = new InheritedLookup(tag, el);
+    @SuppressWarnings ( "unchecked" )
+    List<JavaDoc.JavaDocTagList> tags = (List<JavaDoc.JavaDocTagList>) lookups.get(key);
+    if (tags == null) {
+      tags = lookupJavaDocTags(tag, el);
+      lookups.putIfAbsent(key, tags);
     }
+    return tags;
+  }
 
-    allTags.addAll(getJavaDocTags(tag, (DecoratedElement) el.getEnclosingElement()));
+  private static List<JavaDoc.JavaDocTagList> lookupJavaDocTags(String tag, DecoratedElement el) {
+    JavaDoc.JavaDocTagList tagList = el.getJavaDoc().get(tag);
+    if (tagList != null && tagList.isEmpty()) {
+      tagList = null;
+    }
 
+    List<JavaDoc.JavaDocTagList> enclosingTags = getJavaDocTags(tag, (DecoratedElement) el.getEnclosingElement());
+    List<JavaDoc.JavaDocTagList> superclassTags = Collections.emptyList();
     if (el instanceof TypeElement) {
       //include the superclass.
       TypeMirror superclass = ((TypeElement) el).getSuperclass();
       if (superclass instanceof DeclaredType) {
-        allTags.addAll(getJavaDocTags(tag, (DecoratedElement) ((DeclaredType) superclass).asElement()));
+        superclassTags = getJavaDocTags(tag, (DecoratedElement) ((DeclaredType) superclass).asElement());
       }
     }
 
-    return allTags;
+    return concat(tagList, enclosingTags, superclassTags);
+  }
+
+  private static boolean isObject(Element el) {
+    return el instanceof TypeElement && Object.class.getName().equals(((TypeElement) el).getQualifiedName().toString());
+  }
+
+  private static <T> List<T> concat(T first, List<T> enclosing, List<T> superclass) {
+    //most elements inherit nothing (or only from one place), so avoid copying where we can.
+    if (first == null) {
+      if (enclosing.isEmpty()) {
+        return superclass;
+      }
+      else if (superclass.isEmpty()) {
+        return enclosing;
+      }
+    }
+    else if (enclosing.isEmpty() && superclass.isEmpty()) {
+      return Collections.singletonList(first);
+    }
+
+    ArrayList<T> all = new ArrayList<T>((first == null ? 0 : 1) + enclosing.size() + superclass.size());
+    if (first != null) {
+      all.add(first);
+    }
+    all.addAll(enclosing);
+    all.addAll(superclass);
+    return Collections.unmodifiableList(all);
+  }
+
+  @SuppressWarnings ( "unchecked" )
+  private static ConcurrentMap<InheritedLookup, List<?>> getInheritedLookups(Element el) {
+    if (!(el instanceof DecoratedElement)) {
+      return null;
+    }
+
+    DecoratedProcessingEnvironment env = ((DecoratedElement) el).getProcessingEnvironment();
+    ConcurrentMap<InheritedLookup, List<?>> lookups = (ConcurrentMap<InheritedLookup, List<?>>) env.getProperty(INHERITED_LOOKUPS_PROPERTY);
+    if (lookups == null) {
+      synchronized (env) {
+        lookups = (ConcurrentMap<InheritedLookup, List<?>>) env.getProperty(INHERITED_LOOKUPS_PROPERTY);
+        if (lookups == null) {
+          lookups = new ConcurrentHashMap<InheritedLookup, List<?>>();
+          env.setProperty(INHERITED_LOOKUPS_PROPERTY, lookups);
+        }
+      }
+    }
+    return lookups;
+  }
+
+  private static final class InheritedLookup {
+
+    private final Object what;
+    private final Element el;
+
+    private InheritedLookup(Object what, Element el) {
+      //key on the undecorated element: the models wrap decorated elements again, and decorated elements don't hash like what they decorate.
+      while (el instanceof DecoratedElement) {
+        el = ((DecoratedElement) el).getDelegate();
+      }
+      this.what = what;
+      this.el = el;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof InheritedLookup)) {
+        return false;
+      }
+      InheritedLookup that = (InheritedLookup) o;
+      return this.what.equals(that.what) && this.el.equals(that.el);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * this.what.hashCode() + this.el.hashCode();
+    }
   }
 }
@@ -0,0 +1,174 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+/**
+ * An Ant-style pattern that has been parsed once so it can be matched against many paths.
+ *
+ * @author Ryan Heaton
+ * @see AntPatternMatcher#compile(String)
+ */
+public final class AntPattern {
+
+  private final String pattern;
+  private final String separator;
+  private final String[] dirs;
+  private final boolean startsWithSeparator;
+  private final boolean endsWithSeparator;
+  private final String literalPrefix;
+  private final String literalSuffix;
+
+  AntPattern(String pattern, String separator) {
+    this.pattern = pattern;
+    this.separator = separator;
+    this.dirs = AntPatternMatcher.tokenize(pattern, separator);
+    this.startsWithSeparator = pattern.startsWith(separator);
+    this.endsWithSeparator = pattern.endsWith(separator);
+    this.literalPrefix = literalPrefix(pattern, separator);
+    this.literalSuffix = literalSuffix(pattern, separator);
+  }
+
+  /**
+   * The part of the pattern before its first wildcard. Every path that matches this pattern starts with it.
+   */
+  private static String literalPrefix(String pattern, String separator) {
+    int wildcard = pattern.length();
+    for (int i = 0; i < pattern.length(); i++) {
+      char ch = pattern.charAt(i);
+      if (ch == '*' || ch == '?') {
+        wildcard = i;
+        break;
+      }
+    }
+
+    String prefix = pattern.substring(0, wildcard);
+    if (wildcard == pattern.length()) {
+      //no wildcards, but trailing empty directories are dropped when the pattern is split, so they aren't necessarily in the path.
+      while (prefix.endsWith(separator)) {
+        prefix = prefix.substring(0, prefix.length() - separator.length());
+      }
+    }
+    else if (prefix.endsWith(separator) && pattern.startsWith("**", wildcard)) {
+      int dirEnd = pattern.indexOf(separator, wildcard);
+      if ((dirEnd < 0 ? pattern.length() : dirEnd) - wildcard == 2) {
+        //a '**' directory matches no directories at all, so the separator before it isn't necessarily in the path.
+        prefix = prefix.substring(0, prefix.length() - separator.length());
+      }
+    }
+    return prefix;
+  }
+
+  /**
+   * The part of the pattern after its last wildcard, less any trailing separators. Every path that matches this pattern ends with
+   * it (less any trailing separators).
+   */
+  private static String literalSuffix(String pattern, String separator) {
+    int wildcard = -1;
+    for (int i = pattern.length() - 1; i >= 0; i--) {
+      char ch = pattern.charAt(i);
+      if (ch == '*' || ch == '?') {
+        wildcard = i;
+        break;
+      }
+    }
+
+    if (wildcard < 0) {
+      //no wildcards; the prefix already says it all.
+      return "";
+    }
+
+    String suffix = pattern.substring(wildcard + 1);
+    while (suffix.endsWith(separator)) {
+      suffix = suffix.substring(0, suffix.length() - separator.length());
+    }
+
+    if (suffix.startsWith(separator) && wildcard > 0 && pattern.charAt(wildcard - 1) == '*' && (wildcard == 1 || pattern.startsWith(separator, wildcard - 1 - separator.length()))) {
+      //a '**' directory matches no directories at all, so the separator after it isn't necessarily in the path.
+      suffix = suffix.substring(separator.length());
+    }
+    return suffix;
+  }
+
+  private boolean endsWithLiteralSuffix(String path) {
+    int end = path.length();
+    while (end >= this.separator.length() && end > 0 && path.startsWith(this.separator, end - this.separator.length())) {
+      end -= this.separator.length();
+    }
+    int start = end - this.literalSuffix.length();
+    return start >= 0 && path.regionMatches(start, this.literalSuffix, 0, this.literalSuffix.length());
+  }
+
+  /**
+   * The pattern.
+   *
+   * @return The pattern.
+   */
+  public String getPattern() {
+    return pattern;
+  }
+
+  /**
+   * The path separator of the pattern.
+   *
+   * @return The path separator of the pattern.
+   */
+  public String getSeparator() {
+    return separator;
+  }
+
+  /**
+   * The literal prefix of the pattern. Every path that matches this pattern starts with this prefix.
+   *
+   * @return The literal prefix of the pattern.
+   */
+  public String getLiteralPrefix() {
+    return literalPrefix;
+  }
+
+  /**
+   * Whether the given path matches this pattern.
+   *
+   * @param path The path.
+   * @return Whether the path matches.
+   */
+  public boolean matches(String path) {
+    return matches(path, null);
+  }
+
+  /**
+   * Whether the given path matches this pattern.
+   *
+   * @param path The path.
+   * @param pathDirs The path, already split into its directories on the separator of this pattern, or null if not split yet.
+   * @return Whether the path matches.
+   */
+  boolean matches(String path, String[] pathDirs) {
+    if (!path.startsWith(this.literalPrefix) || !endsWithLiteralSuffix(path)) {
+      return false;
+    }
+
+    if (path.startsWith(this.separator) != this.startsWithSeparator) {
+      return false;
+    }
+
+    return AntPatternMatcher.doMatch(this.dirs, this.endsWithSeparator, path, pathDirs == null ? AntPatternMatcher.tokenize(path, this.separator) : pathDirs, this.separator, true);
+  }
+
+  @Override
+  public String toString() {
+    return this.pattern;
+  }
+}
@@ -23,15 +23,17 @@ import org.reflections.util.FilterBuilder;
 public final class AntPatternInclude extends FilterBuilder.Include {
 
   private final String pattern;
+  private final AntPattern compiled;
 
   public AntPatternInclude(String pattern) {
     super("-");
     this.pattern = pattern;
+    this.compiled = AntPatternMatcher.INSTANCE.compile(pattern);
   }
 
   @Override
   public boolean apply(String input) {
-    return AntPatternMatcher.INSTANCE.match(this.pattern, input);
+    return this.compiled.matches(input);
   }
 
   @Override
@@ -15,8 +15,10 @@
  */
 package com.webcohesion.enunciate.util;
 
-import com.google.common.base.Predicate;
-import org.reflections.util.FilterBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Ant-style pattern matcher. By default, this matcher matches on FQN, so the path separator is the '.'.
@@ -36,6 +38,7 @@ public class AntPatternMatcher {
   public static final String DEFAULT_PATH_SEPARATOR = ".";
 
   private String pathSeparator = DEFAULT_PATH_SEPARATOR;
+  private final ConcurrentMap<String, AntPattern> compiled = new ConcurrentHashMap<String, AntPattern>();
 
   public static boolean isValidPattern(String pattern) {
     return INSTANCE.isPattern(pattern);
@@ -49,6 +52,16 @@ public class AntPatternMatcher {
    */
   public void setPathSeparator(String pathSeparator) {
     this.pathSeparator = (pathSeparator != null ? pathSeparator : DEFAULT_PATH_SEPARATOR);
+    this.compiled.clear();
+  }
+
+  /**
+   * The path separator.
+   *
+   * @return The path separator.
+   */
+  public String getPathSeparator() {
+    return pathSeparator;
   }
 
   /**
@@ -62,7 +75,22 @@ public class AntPatternMatcher {
   }
 
   public boolean match(String pattern, String path) {
-    return doMatch(pattern, path, true);
+    AntPattern compiled = this.compiled.get(pattern);
+    if (compiled == null) {
+      compiled = compile(pattern);
+      this.compiled.putIfAbsent(pattern, compiled);
+    }
+    return compiled.matches(path);
+  }
+
+  /**
+   * Compile the given pattern so it can be matched against many paths without being parsed again.
+   *
+   * @param pattern The pattern.
+   * @return The compiled pattern.
+   */
+  public AntPattern compile(String pattern) {
+    return new AntPattern(pattern, this.pathSeparator);
   }
 
   /**
@@ -79,11 +107,21 @@ public class AntPatternMatcher {
       return false;
     }
 
-    String pathSeparatorSplitPattern = ".".equals(this.pathSeparator) ? "\\." : this.pathSeparator; //escape the special '.' for regexp splitting.
-    pathSeparatorSplitPattern = "\\".equals(pathSeparatorSplitPattern) ? "\\\\" : pathSeparatorSplitPattern; //escape the special '\' for regexp splitting.
-    String[] pattDirs = pattern.split(pathSeparatorSplitPattern);
-    String[] pathDirs = path.split(pathSeparatorSplitPattern);
+    return doMatch(tokenize(pattern, this.pathSeparator), pattern.endsWith(this.pathSeparator), path, tokenize(path, this.pathSeparator), this.pathSeparator, fullMatch);
+  }
 
+  /**
+   * Match the given <code>path</code> against a pattern that has already been split into its directories.
+   * @param pattDirs the directories of the pattern
+   * @param patternEndsWithSeparator whether the pattern ends with the path separator
+   * @param path the path String to test (its leading separator has already been checked against the pattern)
+   * @param pathDirs the directories of the path
+   * @param pathSeparator the path separator
+   * @param fullMatch whether a full pattern match is required
+   * @return <code>true</code> if the supplied <code>path</code> matched,
+   * <code>false</code> if it didn't
+   */
+  static boolean doMatch(String[] pattDirs, boolean patternEndsWithSeparator, String path, String[] pathDirs, String pathSeparator, boolean fullMatch) {
     int pattIdxStart = 0;
     int pattIdxEnd = pattDirs.length - 1;
     int pathIdxStart = 0;
@@ -105,14 +143,14 @@ public class AntPatternMatcher {
     if (pathIdxStart > pathIdxEnd) {
       // Path is exhausted, only match if rest of pattern is * or **'s
       if (pattIdxStart > pattIdxEnd) {
-        return (pattern.endsWith(this.pathSeparator) ?
-            path.endsWith(this.pathSeparator) : !path.endsWith(this.pathSeparator));
+        return (patternEndsWithSeparator ?
+            path.endsWith(pathSeparator) : !path.endsWith(pathSeparator));
       }
       if (!fullMatch) {
         return true;
       }
       if (pattIdxStart == pattIdxEnd && pattDirs[pattIdxStart].equals("*") &&
-          path.endsWith(this.pathSeparator)) {
+          path.endsWith(pathSeparator)) {
         return true;
       }
       for (int i = pattIdxStart; i <= pattIdxEnd; i++) {
@@ -175,8 +213,8 @@ public class AntPatternMatcher {
       strLoop:
           for (int i = 0; i <= strLength - patLength; i++) {
             for (int j = 0; j < patLength; j++) {
-              String subPat = (String) pattDirs[pattIdxStart + j + 1];
-              String subStr = (String) pathDirs[pathIdxStart + i + j];
+              String subPat = pattDirs[pattIdxStart + j + 1];
+              String subStr = pathDirs[pathIdxStart + i + j];
               if (!matchStrings(subPat, subStr)) {
                 continue strLoop;
               }
@@ -202,6 +240,36 @@ public class AntPatternMatcher {
     return true;
   }
 
+  /**
+   * Split the given string on the path separator, the way <code>String.split</code> would (trailing empty directories are
+   * dropped), without compiling a regular expression to do it.
+   *
+   * @param str The string to split.
+   * @param separator The path separator.
+   * @return The directories.
+   */
+  static String[] tokenize(String str, String separator) {
+    int next = str.indexOf(separator);
+    if (next < 0) {
+      return new String[] {str};
+    }
+
+    List<String> dirs = new ArrayList<String>();
+    int start = 0;
+    while (next >= 0) {
+      dirs.add(str.substring(start, next));
+      start = next + separator.length();
+      next = str.indexOf(separator, start);
+    }
+    dirs.add(str.substring(start));
+
+    int size = dirs.size();
+    while (size > 0 && dirs.get(size - 1).isEmpty()) {
+      size--;
+    }
+    return dirs.subList(0, size).toArray(new String[size]);
+  }
+
   /**
    * Tests whether or not a string matches against a pattern.
    * The pattern may contain two special characters:<br>
@@ -214,22 +282,14 @@ public class AntPatternMatcher {
    * @return <code>true</code> if the string matches against the
    * pattern, or <code>false</code> otherwise.
    */
-  private boolean matchStrings(String pattern, String str) {
-    char[] patArr = pattern.toCharArray();
-    char[] strArr = str.toCharArray();
+  static boolean matchStrings(String pattern, String str) {
     int patIdxStart = 0;
-    int patIdxEnd = patArr.length - 1;
+    int patIdxEnd = pattern.length() - 1;
     int strIdxStart = 0;
-    int strIdxEnd = strArr.length - 1;
+    int strIdxEnd = str.length() - 1;
     char ch;
 
-    boolean containsStar = false;
-    for (int i = 0; i < patArr.length; i++) {
-      if (patArr[i] == '*') {
-        containsStar = true;
-        break;
-      }
-    }
+    boolean containsStar = pattern.indexOf('*') >= 0;
 
     if (!containsStar) {
       // No '*'s, so we make a shortcut
@@ -237,9 +297,9 @@ public class AntPatternMatcher {
         return false; // Pattern and string do not have the same size
       }
       for (int i = 0; i <= patIdxEnd; i++) {
-        ch = patArr[i];
+        ch = pattern.charAt(i);
         if (ch != '?') {
-          if (ch != strArr[i]) {
+          if (ch != str.charAt(i)) {
             return false;// Character mismatch
           }
         }
@@ -253,9 +313,9 @@ public class AntPatternMatcher {
     }
 
     // Process characters before first star
-    while ((ch = patArr[patIdxStart]) != '*' && strIdxStart <= strIdxEnd) {
+    while ((ch = pattern.charAt(patIdxStart)) != '*' && strIdxStart <= strIdxEnd) {
       if (ch != '?') {
-        if (ch != strArr[strIdxStart]) {
+        if (ch != str.charAt(strIdxStart)) {
           return false;// Character mismatch
         }
       }
@@ -266,7 +326,7 @@ public class AntPatternMatcher {
       // All characters in the string are used. Check if only '*'s are
       // left in the pattern. If so, we succeeded. Otherwise failure.
       for (int i = patIdxStart; i <= patIdxEnd; i++) {
-        if (patArr[i] != '*') {
+        if (pattern.charAt(i) != '*') {
           return false;
         }
       }
@@ -274,9 +334,9 @@ public class AntPatternMatcher {
     }
 
     // Process characters after last star
-    while ((ch = patArr[patIdxEnd]) != '*' && strIdxStart <= strIdxEnd) {
+    while ((ch = pattern.charAt(patIdxEnd)) != '*' && strIdxStart <= strIdxEnd) {
       if (ch != '?') {
-        if (ch != strArr[strIdxEnd]) {
+        if (ch != str.charAt(strIdxEnd)) {
           return false;// Character mismatch
         }
       }
@@ -287,7 +347,7 @@ public class AntPatternMatcher {
       // All characters in the string are used. Check if only '*'s are
       // left in the pattern. If so, we succeeded. Otherwise failure.
       for (int i = patIdxStart; i <= patIdxEnd; i++) {
-        if (patArr[i] != '*') {
+        if (pattern.charAt(i) != '*') {
           return false;
         }
       }
@@ -299,7 +359,7 @@ public class AntPatternMatcher {
     while (patIdxStart != patIdxEnd && strIdxStart <= strIdxEnd) {
       int patIdxTmp = -1;
       for (int i = patIdxStart + 1; i <= patIdxEnd; i++) {
-        if (patArr[i] == '*') {
+        if (pattern.charAt(i) == '*') {
           patIdxTmp = i;
           break;
         }
@@ -317,9 +377,9 @@ public class AntPatternMatcher {
       strLoop:
       for (int i = 0; i <= strLength - patLength; i++) {
         for (int j = 0; j < patLength; j++) {
-          ch = patArr[patIdxStart + j + 1];
+          ch = pattern.charAt(patIdxStart + j + 1);
           if (ch != '?') {
-            if (ch != strArr[strIdxStart + i + j]) {
+            if (ch != str.charAt(strIdxStart + i + j)) {
               continue strLoop;
             }
           }
@@ -340,7 +400,7 @@ public class AntPatternMatcher {
     // All characters in the string are used. Check if only '*'s are left
     // in the pattern. If so, we succeeded. Otherwise failure.
     for (int i = patIdxStart; i <= patIdxEnd; i++) {
-      if (patArr[i] != '*') {
+      if (pattern.charAt(i) != '*') {
         return false;
       }
     }
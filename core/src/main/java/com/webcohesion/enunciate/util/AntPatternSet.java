@@ -0,0 +1,210 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A set of Ant-style patterns (and plain strings, which match only themselves), each associated with a value, that can be
+ * matched against a path all at once. The patterns are compiled once and indexed by their literal prefixes, so matching a path
+ * only walks the path once and only fully matches the patterns whose literal prefix the path starts with, however many patterns
+ * are in the set.<br/><br/>
+ *
+ * Patterns are to be added before the set is shared; matching is safe to do concurrently.
+ *
+ * @author Ryan Heaton
+ */
+public class AntPatternSet<V> {
+
+  private final String pathSeparator;
+  private final Map<String, List<V>> literals = new HashMap<String, List<V>>();
+  private final Node<V> root = new Node<V>();
+  private int size = 0;
+
+  public AntPatternSet() {
+    this(AntPatternMatcher.DEFAULT_PATH_SEPARATOR);
+  }
+
+  public AntPatternSet(String pathSeparator) {
+    this.pathSeparator = pathSeparator;
+  }
+
+  /**
+   * Add a pattern to this set.
+   *
+   * @param pattern The pattern. If it's not {@link AntPatternMatcher#isPattern(String) a pattern}, it matches only itself.
+   * @param value The value to associate with the pattern.
+   * @return this
+   */
+  public AntPatternSet<V> add(String pattern, V value) {
+    if (AntPatternMatcher.isValidPattern(pattern)) {
+      AntPattern compiled = new AntPattern(pattern, this.pathSeparator);
+      String prefix = compiled.getLiteralPrefix();
+      Node<V> node = this.root;
+      for (int i = 0; i < prefix.length(); i++) {
+        node = node.childFor(prefix.charAt(i));
+      }
+      node.patterns.add(new PatternEntry<V>(compiled, value));
+    }
+    else {
+      List<V> values = this.literals.get(pattern);
+      if (values == null) {
+        values = new ArrayList<V>(1);
+        this.literals.put(pattern, values);
+      }
+      values.add(value);
+    }
+    this.size++;
+    return this;
+  }
+
+  /**
+   * Whether this set has no patterns.
+   *
+   * @return Whether this set has no patterns.
+   */
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  /**
+   * Whether the given path matches any of the patterns in this set.
+   *
+   * @param path The path.
+   * @return Whether the path matches any of the patterns.
+   */
+  public boolean matches(String path) {
+    if (path == null) {
+      return false;
+    }
+
+    if (this.literals.containsKey(path)) {
+      return true;
+    }
+
+    String[] pathDirs = null;
+    Node<V> node = this.root;
+    int i = 0;
+    while (node != null) {
+      for (PatternEntry<V> entry : node.patterns) {
+        if (pathDirs == null) {
+          pathDirs = AntPatternMatcher.tokenize(path, this.pathSeparator);
+        }
+        if (entry.pattern.matches(path, pathDirs)) {
+          return true;
+        }
+      }
+      node = i < path.length() ? node.child(path.charAt(i++)) : null;
+    }
+    return false;
+  }
+
+  /**
+   * Find the values of all the patterns in this set that match the given path.
+   *
+   * @param path The path.
+   * @return The values of the matching patterns, in no particular order.
+   */
+  public List<V> findMatches(String path) {
+    if (path == null) {
+      return Collections.emptyList();
+    }
+
+    List<V> matches = null;
+    List<V> literalMatches = this.literals.get(path);
+    if (literalMatches != null) {
+      matches = new ArrayList<V>(literalMatches);
+    }
+
+    String[] pathDirs = null;
+    Node<V> node = this.root;
+    int i = 0;
+    while (node != null) {
+      for (PatternEntry<V> entry : node.patterns) {
+        if (pathDirs == null) {
+          //split the path only once, for all the candidate patterns.
+          pathDirs = AntPatternMatcher.tokenize(path, this.pathSeparator);
+        }
+        if (entry.pattern.matches(path, pathDirs)) {
+          if (matches == null) {
+            matches = new ArrayList<V>();
+          }
+          matches.add(entry.value);
+        }
+      }
+      node = i < path.length() ? node.child(path.charAt(i++)) : null;
+    }
+
+    return matches == null ? Collections.<V>emptyList() : matches;
+  }
+
+  private static final class PatternEntry<V> {
+
+    private final AntPattern pattern;
+    private final V value;
+
+    private PatternEntry(AntPattern pattern, V value) {
+      this.pattern = pattern;
+      this.value = value;
+    }
+  }
+
+  /**
+   * A node of the literal prefix trie: the patterns whose literal prefix ends here, and the children by next character.
+   */
+  private static final class Node<V> {
+
+    private final List<PatternEntry<V>> patterns = new ArrayList<PatternEntry<V>>(0);
+    private char[] keys = new char[0];
+    private Node<V>[] children = newNodes(0);
+
+    @SuppressWarnings ( "unchecked" )
+    private static <V> Node<V>[] newNodes(int size) {
+      return new Node[size];
+    }
+
+    private Node<V> child(char ch) {
+      int index = Arrays.binarySearch(this.keys, ch);
+      return index < 0 ? null : this.children[index];
+    }
+
+    private Node<V> childFor(char ch) {
+      int index = Arrays.binarySearch(this.keys, ch);
+      if (index >= 0) {
+        return this.children[index];
+      }
+
+      index = -index - 1;
+      char[] keys = new char[this.keys.length + 1];
+      Node<V>[] children = newNodes(this.children.length + 1);
+      System.arraycopy(this.keys, 0, keys, 0, index);
+      System.arraycopy(this.children, 0, children, 0, index);
+      System.arraycopy(this.keys, index, keys, index + 1, this.keys.length - index);
+      System.arraycopy(this.children, index, children, index + 1, this.children.length - index);
+      Node<V> child = new Node<V>();
+      keys[index] = ch;
+      children[index] = child;
+      this.keys = keys;
+      this.children = children;
+      return child;
+    }
+  }
+}
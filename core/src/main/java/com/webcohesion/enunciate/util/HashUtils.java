@@ -0,0 +1,127 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+/**
+ * Utilities for computing content hashes.
+ *
+ * @author Ryan Heaton
+ */
+public class HashUtils {
+
+  private HashUtils() {}
+
+  /**
+   * Create a new (SHA-1) digest.
+   *
+   * @return The digest.
+   */
+  public static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-1");
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Compute the hash of the contents of the specified file or directory.
+   *
+   * @param file The file or directory.
+   * @return The hash, as a hex string.
+   */
+  public static String hash(File file) throws IOException {
+    MessageDigest digest = newDigest();
+    update(digest, file);
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Update a digest with the contents of the specified file. If the file is a directory, the names and contents of
+   * all the files in the directory are digested, in a stable order.
+   *
+   * @param digest The digest.
+   * @param file The file or directory.
+   */
+  public static void update(MessageDigest digest, File file) throws IOException {
+    update(digest, file, new byte[8 * 1024]);
+  }
+
+  private static void update(MessageDigest digest, File file, byte[] buffer) throws IOException {
+    if (file.isDirectory()) {
+      File[] children = file.listFiles();
+      if (children != null) {
+        Arrays.sort(children);
+        for (File child : children) {
+          update(digest, child.getName());
+          update(digest, child, buffer);
+        }
+      }
+    }
+    else if (file.exists()) {
+      InputStream in = new FileInputStream(file);
+      try {
+        int len;
+        while ((len = in.read(buffer)) > 0) {
+          digest.update(buffer, 0, len);
+        }
+      }
+      finally {
+        in.close();
+      }
+    }
+  }
+
+  /**
+   * Update a digest with the (UTF-8) bytes of a string.
+   *
+   * @param digest The digest.
+   * @param value The value.
+   */
+  public static void update(MessageDigest digest, String value) {
+    try {
+      digest.update(String.valueOf(value).getBytes("utf-8"));
+      digest.update((byte) 0);
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * Convert the specified bytes to a hex string.
+   *
+   * @param bytes The bytes.
+   * @return The hex string.
+   */
+  public static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) {
+      hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+    }
+    return hex.toString();
+  }
+}
@@ -16,13 +16,12 @@
 package com.webcohesion.enunciate.util.freemarker;
 
 import com.webcohesion.enunciate.EnunciateLogger;
+import com.webcohesion.enunciate.metrics.ModuleMetrics;
 import freemarker.core.Environment;
 import freemarker.template.*;
 import freemarker.template.utility.DeepUnwrap;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.*;
 import java.util.Map;
 
 /**
@@ -73,9 +72,14 @@ public class FileDirective implements TemplateDirectiveModel {
       output.getParentFile().mkdirs();
     }
 
-    PrintWriter writer = new PrintWriter(output, charset);
+    Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(output), charset));
     this.logger.debug("Writing %s...", output);
-    body.render(writer);
-    writer.close();
+    try {
+      body.render(writer);
+    }
+    finally {
+      writer.close();
+    }
+    ModuleMetrics.fileWritten();
   }
 }
@@ -0,0 +1,138 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.util.freemarker;
+
+import com.webcohesion.enunciate.metrics.ModuleMetrics;
+import freemarker.cache.URLTemplateLoader;
+import freemarker.core.Environment;
+import freemarker.template.*;
+
+import java.io.*;
+import java.net.MalformedURLException;
+import java.net.URL;
+
+/**
+ * The engine used by the generating modules to process their templates. Holds a single (thread-safe) FreeMarker
+ * configuration, so templates are only loaded and parsed once, no matter how many times (or from how many modules)
+ * they're processed. The object wrapper is supplied per-invocation, so modules with their own object wrappers
+ * share the same template cache.
+ *
+ * @author Ryan Heaton
+ */
+public class TemplateEngine {
+
+  public static final TemplateEngine INSTANCE = new TemplateEngine();
+
+  private final Configuration configuration;
+
+  public TemplateEngine() {
+    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
+
+    configuration.setTemplateLoader(new URLTemplateLoader() {
+      protected URL getURL(String name) {
+        try {
+          return new URL(name);
+        }
+        catch (MalformedURLException e) {
+          return null;
+        }
+      }
+    });
+
+    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
+      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
+        throw templateException;
+      }
+    });
+
+    configuration.setLocalizedLookup(false);
+    configuration.setDefaultEncoding("UTF-8");
+    configuration.setURLEscapingCharset("UTF-8");
+    this.configuration = configuration;
+  }
+
+  /**
+   * The FreeMarker configuration. Must not be modified; it's shared between modules and threads.
+   *
+   * @return The FreeMarker configuration.
+   */
+  public Configuration getConfiguration() {
+    return configuration;
+  }
+
+  /**
+   * Get the (cached) template at the specified URL.
+   *
+   * @param templateURL The template URL.
+   * @return The template.
+   */
+  public Template getTemplate(URL templateURL) throws IOException {
+    return this.configuration.getTemplate(templateURL.toString());
+  }
+
+  /**
+   * Process the template at the specified URL.
+   *
+   * @param templateURL The template URL.
+   * @param model The model.
+   * @param wrapper The object wrapper to use, or null for the default.
+   * @param out Where to write the output.
+   */
+  public void process(URL templateURL, Object model, ObjectWrapper wrapper, Writer out) throws IOException, TemplateException {
+    Template template = getTemplate(templateURL);
+    Environment environment = template.createProcessingEnvironment(model, out, wrapper);
+    if (wrapper != null) {
+      //the wrapper applies to everything the template touches, not just the root model.
+      environment.setObjectWrapper(wrapper);
+    }
+    environment.process();
+    ModuleMetrics.templateRendered();
+  }
+
+  /**
+   * Process the template at the specified URL, streaming the output (UTF-8) to the specified file.
+   *
+   * @param templateURL The template URL.
+   * @param model The model.
+   * @param wrapper The object wrapper to use, or null for the default.
+   * @param file The file to write the output to.
+   */
+  public void process(URL templateURL, Object model, ObjectWrapper wrapper, File file) throws IOException, TemplateException {
+    Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), "utf-8"));
+    try {
+      process(templateURL, model, wrapper, out);
+    }
+    finally {
+      out.close();
+    }
+    ModuleMetrics.fileWritten();
+  }
+
+  /**
+   * Process the template at the specified URL, returning the output.
+   *
+   * @param templateURL The template URL.
+   * @param model The model.
+   * @param wrapper The object wrapper to use, or null for the default.
+   * @return The output.
+   */
+  public String process(URL templateURL, Object model, ObjectWrapper wrapper) throws IOException, TemplateException {
+    StringWriter output = new StringWriter();
+    process(templateURL, model, wrapper, output);
+    output.close();
+    return output.toString();
+  }
+}
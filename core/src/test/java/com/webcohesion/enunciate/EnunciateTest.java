@@ -15,14 +15,17 @@
  */
 package com.webcohesion.enunciate;
 
+import com.webcohesion.enunciate.metrics.MetricsReport;
+import com.webcohesion.enunciate.metrics.ModuleMetrics;
+import com.webcohesion.enunciate.module.BasicGeneratingModule;
 import com.webcohesion.enunciate.module.DependencySpec;
 import com.webcohesion.enunciate.module.DependingModuleAwareModule;
 import com.webcohesion.enunciate.module.EnunciateModule;
 import com.webcohesion.enunciate.module.TypeDetectingModule;
+import com.webcohesion.enunciate.scan.ApiScanCache;
 import org.jgrapht.DirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
 import org.junit.Test;
-import org.reflections.Reflections;
 import org.reflections.adapters.MetadataAdapter;
 
 import javax.tools.JavaCompiler;
@@ -31,6 +34,7 @@ import java.io.*;
 import java.net.URI;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.jar.JarEntry;
 import java.util.jar.JarOutputStream;
 
@@ -75,6 +79,22 @@ public class EnunciateTest {
     }
   }
 
+  @Test
+  public void testGeneratingModuleUpstreamModules() throws Exception {
+    final Map<String, TestGeneratingModule> myModules = new HashMap<String, TestGeneratingModule>();
+    myModules.put("a", new TestGeneratingModule("a"));
+    myModules.put("b", new TestGeneratingModule("b", "a"));
+    myModules.put("c", new TestGeneratingModule("c", "b"));
+    myModules.put("d", new TestGeneratingModule("d"));
+
+    Enunciate enunciate = new Enunciate().setModules(new ArrayList<EnunciateModule>(myModules.values()));
+    enunciate.buildModuleGraph(myModules);
+    assertEquals(new TreeSet<String>(Arrays.asList("a", "b")), myModules.get("c").getUpstreamModules());
+    assertEquals(new TreeSet<String>(Arrays.asList("a")), myModules.get("b").getUpstreamModules());
+    assertTrue(myModules.get("a").getUpstreamModules().isEmpty());
+    assertTrue(myModules.get("d").getUpstreamModules().isEmpty());
+  }
+
   @Test
   public void testCallOrder() throws Exception {
     final Map<String, TestModule> myModules = new HashMap<String, TestModule>();
@@ -97,12 +117,84 @@ public class EnunciateTest {
     assertTrue("'e' should be before 'f': " + moduleCallOrder, moduleCallOrder.indexOf("e") < moduleCallOrder.indexOf("f"));
   }
 
+  @Test
+  public void testCallOrderWithThreads() throws Exception {
+    final Map<String, TestModule> myModules = new HashMap<String, TestModule>();
+    List<String> moduleCallOrder = Collections.synchronizedList(new ArrayList<String>());
+    myModules.put("a", new TestModule("a", moduleCallOrder));
+    myModules.put("b", new TestModule("b", moduleCallOrder));
+    myModules.put("c", new TestModule("c", moduleCallOrder));
+    myModules.put("d", new TestModule("d", moduleCallOrder, "a"));
+    myModules.put("e", new TestModule("e", moduleCallOrder, "b", "c"));
+    myModules.put("f", new TestModule("f", moduleCallOrder, "d", "e"));
+
+    Enunciate enunciate = new Enunciate().setExtraThreadCount(4);
+    enunciate.composeEngine(new EnunciateContext(null, null, null, null, null, null), myModules, enunciate.buildModuleGraph(myModules)).toBlocking().single();
+    assertEquals(6, moduleCallOrder.size());
+    assertEquals(6, enunciate.getModuleTimes().size());
+
+    assertTrue("'a' should be before 'd': " + moduleCallOrder, moduleCallOrder.indexOf("a") < moduleCallOrder.indexOf("d"));
+    assertTrue("'b' should be before 'e': " + moduleCallOrder, moduleCallOrder.indexOf("b") < moduleCallOrder.indexOf("e"));
+    assertTrue("'c' should be before 'e': " + moduleCallOrder, moduleCallOrder.indexOf("c") < moduleCallOrder.indexOf("e"));
+    assertTrue("'d' should be before 'f': " + moduleCallOrder, moduleCallOrder.indexOf("d") < moduleCallOrder.indexOf("f"));
+    assertTrue("'e' should be before 'f': " + moduleCallOrder, moduleCallOrder.indexOf("e") < moduleCallOrder.indexOf("f"));
+  }
+
+  @Test
+  public void testModuleMetrics() throws Exception {
+    final Map<String, TestModule> myModules = new HashMap<String, TestModule>();
+    List<String> moduleCallOrder = Collections.synchronizedList(new ArrayList<String>());
+    myModules.put("a", new TestModule("a", moduleCallOrder));
+    myModules.put("b", new TestModule("b", moduleCallOrder) {
+      @Override
+      public void call(EnunciateContext context) {
+        throw new IllegalStateException("b failed");
+      }
+    });
+    myModules.put("c", new TestModule("c", moduleCallOrder, "a", "b"));
+    myModules.put("d", new TestModule("d", moduleCallOrder, "c"));
+
+    final Map<String, ModuleMetrics.Outcome> outcomes = new ConcurrentHashMap<String, ModuleMetrics.Outcome>();
+    Enunciate enunciate = new Enunciate().addListener(new EnunciateListener() {
+      @Override
+      public void moduleStarted(EnunciateModule module) {
+      }
+
+      @Override
+      public void moduleFinished(EnunciateModule module, ModuleMetrics metrics) {
+        outcomes.put(module.getName(), metrics.getOutcome());
+      }
+
+      @Override
+      public void engineFinished(Enunciate engine, List<ModuleMetrics> metrics) {
+      }
+    });
+
+    try {
+      enunciate.composeEngine(new EnunciateContext(null, null, null, null, null, null), myModules, enunciate.buildModuleGraph(myModules)).toBlocking().single();
+      fail();
+    }
+    catch (IllegalStateException e) {
+      assertEquals("b failed", e.getMessage());
+    }
+
+    assertEquals(ModuleMetrics.Outcome.completed, outcomes.get("a"));
+    assertEquals(ModuleMetrics.Outcome.failed, outcomes.get("b"));
+    assertEquals(ModuleMetrics.Outcome.skipped, outcomes.get("c"));
+    assertEquals(ModuleMetrics.Outcome.skipped, outcomes.get("d"));
+    assertEquals(4, enunciate.getModuleMetrics().size());
+    assertEquals(2, enunciate.getModuleTimes().size());
+
+    StringWriter report = new StringWriter();
+    new MetricsReport(enunciate.getModuleMetrics()).writeTo(report);
+    assertTrue(report.toString().contains("\"name\": \"b\", \"outcome\": \"failed\""));
+  }
+
   @Test
   public void testClasspathScanning() throws Exception {
     Enunciate enunciate = new Enunciate();
     enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
-    Reflections reflections = enunciate.loadApiReflections(buildTestClasspath());
-    Set<String> scannedEntries = reflections.getStore().get(EnunciateReflectionsScanner.class.getSimpleName()).keySet();
+    Set<String> scannedEntries = enunciate.scanApiEntries(buildTestClasspath());
     assertTrue(scannedEntries.contains("enunciate.Class1"));
     assertTrue(scannedEntries.contains("enunciate.Class2"));
     assertTrue(scannedEntries.contains("enunciate.Class3"));
@@ -111,6 +203,104 @@ public class EnunciateTest {
     assertFalse(scannedEntries.isEmpty());
   }
 
+  @Test
+  public void testParallelClasspathScanningWithExcludes() throws Exception {
+    List<URL> classpath = buildTestClasspath();
+    String excludedJar = new File(classpath.get(1).toURI()).getName();
+
+    Enunciate enunciate = new Enunciate().setExtraThreadCount(2).addScanExclude(excludedJar);
+    enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
+    Set<String> scannedEntries = enunciate.scanApiEntries(classpath);
+    assertTrue(scannedEntries.contains("enunciate.Class1"));
+    assertFalse(scannedEntries.contains("enunciate.Class2"));
+    assertTrue(scannedEntries.contains("enunciate.Class3"));
+    assertTrue(scannedEntries.contains("enunciate/Class1.java"));
+    assertEquals(3, scannedEntries.size());
+  }
+
+  @Test
+  public void testClasspathScanningCache() throws Exception {
+    List<URL> classpath = buildTestClasspath();
+    File buildDir = createTempDir();
+
+    Enunciate enunciate = new Enunciate().setBuildDir(buildDir).setScanCacheEnabled(true);
+    enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
+    Set<String> scannedEntries = new TreeSet<String>(enunciate.scanApiEntries(classpath));
+    assertTrue(new File(buildDir, "api-scan.cache").exists());
+
+    enunciate = new Enunciate().setBuildDir(buildDir).setScanCacheEnabled(true);
+    final List<String> detectedTypes = new ArrayList<String>();
+    final List<String> detectedMethods = new ArrayList<String>();
+    enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>()) {
+      @Override
+      @SuppressWarnings("unchecked")
+      public boolean typeDetected(Object type, MetadataAdapter metadata) {
+        detectedTypes.add(metadata.getClassName(type));
+        assertTrue(metadata.isPublic(type));
+        for (Object method : metadata.getMethods(type)) {
+          detectedMethods.add(metadata.getClassName(type) + "#" + metadata.getMethodName(method));
+        }
+        return true;
+      }
+    }));
+    Set<String> replayedEntries = new TreeSet<String>(enunciate.scanApiEntries(classpath));
+    assertEquals(scannedEntries, replayedEntries);
+    assertEquals(3, detectedTypes.size());
+    assertTrue(detectedTypes.contains("enunciate.Class1"));
+    //the member-level metadata of replayed types is read from the class files.
+    assertTrue(detectedMethods.toString(), detectedMethods.contains("enunciate.Class1#do1Thing"));
+  }
+
+  @Test
+  public void testClasspathScanningCacheFingerprint() throws Exception {
+    List<URL> classpath = buildTestClasspath();
+    File cacheFile = new File(createTempDir(), "api-scan.cache");
+
+    ApiScanCache cache = new ApiScanCache(cacheFile);
+    assertFalse(cache.load(classpath));
+    cache.addSourceFile("enunciate/Class1.java");
+    cache.store(classpath);
+
+    cache = new ApiScanCache(cacheFile);
+    assertTrue(cache.load(classpath));
+    assertFalse(cache.isStale());
+    assertEquals(Collections.singleton("enunciate/Class1.java"), cache.getSourceFiles());
+
+    //touching a jar without changing it only costs a comparison of the contents.
+    File jar = new File(classpath.get(0).toURI());
+    assertTrue(jar.setLastModified(jar.lastModified() - 60000));
+    cache = new ApiScanCache(cacheFile);
+    assertTrue(cache.load(classpath));
+    assertTrue(cache.isStale());
+    cache.store(classpath);
+    cache = new ApiScanCache(cacheFile);
+    assertTrue(cache.load(classpath));
+    assertFalse(cache.isStale());
+
+    //changing it misses.
+    FileOutputStream out = new FileOutputStream(jar, true);
+    out.write(0);
+    out.close();
+    assertFalse(new ApiScanCache(cacheFile).load(classpath));
+  }
+
+  @Test
+  public void testClasspathScanIndex() throws Exception {
+    List<URL> classpath = buildTestClasspath();
+    File indexDir = createTempDir();
+
+    Enunciate enunciate = new Enunciate().setScanIndexDir(indexDir);
+    enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
+    Set<String> scannedEntries = new TreeSet<String>(enunciate.scanApiEntries(classpath));
+    String[] indexes = indexDir.list();
+    assertEquals(2, indexes.length); //one for each jar; directories aren't indexed.
+
+    enunciate = new Enunciate().setScanIndexDir(indexDir);
+    enunciate.setModules(Arrays.asList((EnunciateModule) new TestModule("test", new ArrayList<String>())));
+    assertEquals(scannedEntries, new TreeSet<String>(enunciate.scanApiEntries(classpath)));
+    assertEquals(2, indexDir.list().length);
+  }
+
   private List<URL> buildTestClasspath() throws Exception {
     JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
 
@@ -267,4 +457,44 @@ public class EnunciateTest {
       return true;
     }
   }
+
+  private static class TestGeneratingModule extends BasicGeneratingModule implements DependencySpec {
+
+    private final String name;
+    private final Set<String> moduleDependencies;
+
+    private TestGeneratingModule(String name, String... moduleDependencies) {
+      this.name = name;
+      this.moduleDependencies = new TreeSet<String>(Arrays.asList(moduleDependencies));
+    }
+
+    @Override
+    public String getName() {
+      return this.name;
+    }
+
+    @Override
+    public Set<String> getUpstreamModules() {
+      return super.getUpstreamModules();
+    }
+
+    @Override
+    public List<DependencySpec> getDependencySpecifications() {
+      return Arrays.asList((DependencySpec) this);
+    }
+
+    @Override
+    public boolean accept(EnunciateModule module) {
+      return this.moduleDependencies.contains(module.getName());
+    }
+
+    @Override
+    public boolean isFulfilled() {
+      return true;
+    }
+
+    @Override
+    public void call(EnunciateContext context) {
+    }
+  }
 }
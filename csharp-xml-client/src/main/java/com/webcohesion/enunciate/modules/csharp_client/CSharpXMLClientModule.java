@@ -47,18 +47,13 @@ import com.webcohesion.enunciate.modules.jaxws.model.WebParam;
 import com.webcohesion.enunciate.util.freemarker.ClientPackageForMethod;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
+import com.webcohesion.enunciate.util.freemarker.TemplateEngine;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
 import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.DeclaredType;
 import java.io.*;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 
@@ -67,6 +62,8 @@ import java.util.*;
  */
 public class CSharpXMLClientModule extends BasicGeneratingModule implements ApiFeatureProviderModule {
 
+  private final CSharpXMLClientObjectWrapper objectWrapper = new CSharpXMLClientObjectWrapper();
+
   private static final String LIRBARY_DESCRIPTION_PROPERTY = "com.webcohesion.enunciate.modules.csharp_client.CSharpXMLClientModule#LIRBARY_DESCRIPTION_PROPERTY";
 
   JaxbModule jaxbModule;
@@ -586,33 +583,7 @@ public class CSharpXMLClientModule extends BasicGeneratingModule implements ApiF
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new CSharpXMLClientObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return TemplateEngine.INSTANCE.process(templateURL, model, this.objectWrapper);
   }
 
   /**
@@ -0,0 +1,285 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.docs;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Index of the byte offsets at which the assumed base uri (declared by the "enunciate-assumed-base-uri" processing instruction)
+ * appears in the text and attribute values of a generated IDL file. The IDL filter of the runtime uses the index to substitute
+ * the real base uri into the IDL without parsing it. The index is only of use where the IDL is served from, so it's only
+ * written alongside the copies of the IDL in the documentation.
+ *
+ * @author Ryan Heaton
+ */
+final class AssumedBaseUriIndex {
+
+  /**
+   * The suffix of the index file, written alongside the IDL file.
+   */
+  static final String FILE_SUFFIX = ".offsets";
+
+  private static final byte[] INSTRUCTION_START = bytes("<?enunciate-assumed-base-uri");
+  private static final byte[] INSTRUCTION_END = bytes("?>");
+  private static final byte[] COMMENT_START = bytes("<!--");
+  private static final byte[] COMMENT_END = bytes("-->");
+  private static final byte[] CDATA_START = bytes("<![CDATA[");
+  private static final byte[] CDATA_END = bytes("]]>");
+  private static final byte[] XMLNS = bytes("xmlns");
+
+  private AssumedBaseUriIndex() {
+  }
+
+  /**
+   * Write the index for the specified (UTF-8) IDL file, or delete any stale index if the assumed base uri of the file can't
+   * be indexed.
+   *
+   * @param idlFile The IDL file.
+   */
+  static void write(File idlFile) throws IOException {
+    File indexFile = new File(idlFile.getParentFile(), idlFile.getName() + FILE_SUFFIX);
+    Properties index = index(read(idlFile));
+    if (index == null) {
+      if (indexFile.exists()) {
+        indexFile.delete();
+      }
+      return;
+    }
+
+    OutputStream out = new FileOutputStream(indexFile);
+    try {
+      index.store(out, "Offsets of the assumed base uri in " + idlFile.getName());
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Index the specified (UTF-8) IDL.
+   *
+   * @param idl The IDL.
+   * @return The index, or null if the IDL doesn't declare an assumed base uri that can be indexed.
+   */
+  static Properties index(byte[] idl) throws UnsupportedEncodingException {
+    int instructionStart = indexOf(idl, INSTRUCTION_START, 0, idl.length);
+    if (instructionStart < 0) {
+      return null;
+    }
+
+    int dataStart = instructionStart + INSTRUCTION_START.length;
+    int dataEnd = indexOf(idl, INSTRUCTION_END, dataStart, idl.length);
+    if (dataEnd < 0) {
+      return null;
+    }
+
+    String assumedBaseUri = new String(idl, dataStart, dataEnd - dataStart, "utf-8").trim();
+    if (assumedBaseUri.endsWith("/")) {
+      assumedBaseUri = assumedBaseUri.substring(0, assumedBaseUri.length() - 1);
+    }
+    if (!assumedBaseUri.contains("://") || containsMarkup(assumedBaseUri)) {
+      //relative (or escaped) base uris can't be reliably located by bytes; the filter will parse the IDL.
+      return null;
+    }
+
+    int instructionEnd = dataEnd + INSTRUCTION_END.length;
+    if (instructionEnd < idl.length && idl[instructionEnd] == '\r') {
+      instructionEnd++;
+    }
+    if (instructionEnd < idl.length && idl[instructionEnd] == '\n') {
+      instructionEnd++;
+    }
+
+    byte[] base = bytes(assumedBaseUri);
+    List<Integer> offsets = new ArrayList<Integer>();
+    int i = 0;
+    while (i < idl.length) {
+      if (idl[i] != '<') {
+        int end = indexOf(idl, (byte) '<', i);
+        addOffsets(idl, base, i, end, offsets);
+        i = end;
+      }
+      else if (startsWith(idl, COMMENT_START, i)) {
+        i = skipPast(idl, COMMENT_END, i + COMMENT_START.length);
+      }
+      else if (startsWith(idl, CDATA_START, i)) {
+        int end = indexOf(idl, CDATA_END, i + CDATA_START.length, idl.length);
+        if (end < 0) {
+          return null;
+        }
+        addOffsets(idl, base, i + CDATA_START.length, end, offsets);
+        i = end + CDATA_END.length;
+      }
+      else if (i + 1 < idl.length && idl[i + 1] == '?') {
+        i = skipPast(idl, INSTRUCTION_END, i + 2);
+      }
+      else if (i + 1 < idl.length && (idl[i + 1] == '!' || idl[i + 1] == '/')) {
+        i = indexOf(idl, (byte) '>', i) + 1;
+      }
+      else {
+        i = scanStartTag(idl, base, i, offsets);
+      }
+
+      if (i <= 0) {
+        //malformed.
+        return null;
+      }
+    }
+
+    StringBuilder offsetList = new StringBuilder();
+    for (Integer offset : offsets) {
+      if (offsetList.length() > 0) {
+        offsetList.append(',');
+      }
+      offsetList.append(offset);
+    }
+
+    Properties index = new Properties();
+    index.setProperty("length", String.valueOf(idl.length));
+    index.setProperty("encoding", "UTF-8");
+    index.setProperty("assumed-base-uri", assumedBaseUri);
+    index.setProperty("instruction", instructionStart + "," + instructionEnd);
+    index.setProperty("offsets", offsetList.toString());
+    return index;
+  }
+
+  private static int scanStartTag(byte[] idl, byte[] base, int i, List<Integer> offsets) {
+    int j = i + 1;
+    while (j < idl.length && !isWhitespace(idl[j]) && idl[j] != '>' && idl[j] != '/') {
+      j++;
+    }
+
+    while (j < idl.length) {
+      byte b = idl[j];
+      if (b == '>') {
+        return j + 1;
+      }
+      else if (b == '/' || isWhitespace(b)) {
+        j++;
+        continue;
+      }
+
+      int nameStart = j;
+      while (j < idl.length && idl[j] != '=' && !isWhitespace(idl[j])) {
+        j++;
+      }
+      int nameEnd = j;
+      while (j < idl.length && (isWhitespace(idl[j]) || idl[j] == '=')) {
+        j++;
+      }
+      if (j >= idl.length || (idl[j] != '"' && idl[j] != '\'')) {
+        return -1;
+      }
+
+      int valueStart = j + 1;
+      int valueEnd = indexOf(idl, idl[j], valueStart);
+      if (valueEnd >= idl.length) {
+        return -1;
+      }
+
+      if (!isNamespaceDeclaration(idl, nameStart, nameEnd)) {
+        addOffsets(idl, base, valueStart, valueEnd, offsets);
+      }
+      j = valueEnd + 1;
+    }
+    return -1;
+  }
+
+  private static boolean isNamespaceDeclaration(byte[] idl, int nameStart, int nameEnd) {
+    int length = nameEnd - nameStart;
+    return startsWith(idl, XMLNS, nameStart) && (length == 5 || (length > 5 && idl[nameStart + 5] == ':'));
+  }
+
+  private static void addOffsets(byte[] idl, byte[] base, int start, int end, List<Integer> offsets) {
+    int offset = indexOf(idl, base, start, end);
+    while (offset >= 0) {
+      offsets.add(offset);
+      offset = indexOf(idl, base, offset + base.length, end);
+    }
+  }
+
+  private static int skipPast(byte[] idl, byte[] token, int start) {
+    int end = indexOf(idl, token, start, idl.length);
+    return end < 0 ? -1 : end + token.length;
+  }
+
+  private static int indexOf(byte[] idl, byte b, int start) {
+    int i = start;
+    while (i < idl.length && idl[i] != b) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int indexOf(byte[] idl, byte[] token, int start, int end) {
+    for (int i = start; i + token.length <= end; i++) {
+      if (startsWith(idl, token, i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static boolean startsWith(byte[] idl, byte[] token, int offset) {
+    if (offset + token.length > idl.length) {
+      return false;
+    }
+    for (int i = 0; i < token.length; i++) {
+      if (idl[offset + i] != token[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isWhitespace(byte b) {
+    return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+  }
+
+  private static boolean containsMarkup(String value) {
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      if (ch == '&' || ch == '<' || ch == '>' || ch == '"' || ch == '\'') {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static byte[] read(File file) throws IOException {
+    byte[] bytes = new byte[(int) file.length()];
+    DataInputStream in = new DataInputStream(new FileInputStream(file));
+    try {
+      in.readFully(bytes);
+    }
+    finally {
+      in.close();
+    }
+    return bytes;
+  }
+
+  private static byte[] bytes(String value) {
+    try {
+      return value.getBytes("utf-8");
+    }
+    catch (UnsupportedEncodingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
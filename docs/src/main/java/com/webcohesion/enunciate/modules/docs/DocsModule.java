@@ -32,12 +32,9 @@ import com.webcohesion.enunciate.artifacts.ClientLibraryJavaArtifact;
 import com.webcohesion.enunciate.artifacts.FileArtifact;
 import com.webcohesion.enunciate.module.*;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
+import com.webcohesion.enunciate.util.freemarker.TemplateEngine;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
+import freemarker.template.utility.NullWriter;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
 import java.io.*;
@@ -225,6 +222,16 @@ public class DocsModule extends BasicGeneratingModule implements ApiRegistryAwar
     return this.config.getString("[@faviconUri]", null);
   }
 
+  /**
+   * Whether to write an index of the offsets of the assumed base uri alongside each WSDL and WADL in the documentation,
+   * so that the IDL filter can serve them without parsing them.
+   *
+   * @return Whether to write an index of the offsets of the assumed base uri alongside each WSDL and WADL.
+   */
+  public boolean isWriteBaseUriIndex() {
+    return this.config.getBoolean("[@writeBaseUriIndex]", false);
+  }
+
   @Override
   public void setApiRegistry(ApiRegistry registry) {
     this.apiRegistry = registry;
@@ -288,9 +295,10 @@ public class DocsModule extends BasicGeneratingModule implements ApiRegistryAwar
         }
         model.put("data", this.apiRegistry.getSyntaxes());
 
+        boolean writeBaseUriIndex = isWriteBaseUriIndex();
         for (ResourceApi resourceApi : resourceApis) {
           if (resourceApi.getWadlFile() != null) {
-            resourceApi.getWadlFile().writeTo(docsDir);
+            writeInterfaceDescriptionFile(resourceApi.getWadlFile(), docsDir, writeBaseUriIndex);
           }
         }
         model.put("resourceApis", resourceApis);
@@ -305,7 +313,7 @@ public class DocsModule extends BasicGeneratingModule implements ApiRegistryAwar
         for (ServiceApi serviceApi : this.apiRegistry.getServiceApis()) {
           for (ServiceGroup serviceGroup : serviceApi.getServiceGroups()) {
             if (serviceGroup.getWsdlFile() != null) {
-              serviceGroup.getWsdlFile().writeTo(docsDir);
+              writeInterfaceDescriptionFile(serviceGroup.getWsdlFile(), docsDir, writeBaseUriIndex);
             }
           }
         }
@@ -349,32 +357,8 @@ public class DocsModule extends BasicGeneratingModule implements ApiRegistryAwar
    */
   public void processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setURLEscapingCharset("UTF-8");
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    debug("Freemarker processing output:\n%s", unhandledOutput);
+    //the docs are written by the template's file directives; anything else it outputs is discarded rather than buffered.
+    TemplateEngine.INSTANCE.process(templateURL, model, null, NullWriter.INSTANCE);
   }
 
   protected String buildBase(File outputDir) throws IOException {
@@ -564,4 +548,20 @@ public class DocsModule extends BasicGeneratingModule implements ApiRegistryAwar
     return DocsModule.class.getResourceAsStream("/docs.base.zip");
   }
 
-}
\ No newline at end of file
+
+  /**
+   * Write an interface description file (WSDL or WADL) to the documentation, and optionally the index of the offsets of its
+   * assumed base uri alongside it. The documentation is where the IDL filter serves the file from, so it's the only place
+   * the index is written.
+   *
+   * @param file The file.
+   * @param docsDir The documentation directory.
+   * @param writeBaseUriIndex Whether to write the index of the offsets of the assumed base uri.
+   */
+  static void writeInterfaceDescriptionFile(InterfaceDescriptionFile file, File docsDir, boolean writeBaseUriIndex) throws IOException {
+    file.writeTo(docsDir);
+    if (writeBaseUriIndex) {
+      AssumedBaseUriIndex.write(new File(docsDir, file.getHref()));
+    }
+  }
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.docs;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.api.InterfaceDescriptionFile;
+import com.webcohesion.enunciate.util.StaticInterfaceDescriptionFile;
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Properties;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestAssumedBaseUriIndex extends TestCase {
+
+  /**
+   * tests indexing the assumed base uri.
+   */
+  public void testIndex() throws Exception {
+    String idl = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+      "<?enunciate-assumed-base-uri http://localhost:8080/base/?>\n" +
+      "<definitions xmlns:tns=\"http://localhost:8080/base/ns\" targetNamespace='http://localhost:8080/base/ns'>\n" +
+      "  <!-- http://localhost:8080/base -->\n" +
+      "  <doc><![CDATA[see http://localhost:8080/base]]> and http://localhost:8080/base/a, http://localhost:8080/base/b</doc>\n" +
+      "  <address location=\"http://localhost:8080/base/service\"/>\n" +
+      "</definitions>";
+    byte[] bytes = idl.getBytes("utf-8");
+    Properties index = AssumedBaseUriIndex.index(bytes);
+    assertNotNull(index);
+    assertEquals(String.valueOf(bytes.length), index.getProperty("length"));
+    assertEquals("http://localhost:8080/base", index.getProperty("assumed-base-uri"));
+
+    int instructionStart = idl.indexOf("<?enunciate");
+    int instructionEnd = idl.indexOf("<definitions");
+    assertEquals(instructionStart + "," + instructionEnd, index.getProperty("instruction"));
+
+    String base = "http://localhost:8080/base";
+    int targetNamespace = idl.indexOf(base, idl.indexOf("targetNamespace"));
+    int cdata = idl.indexOf(base, idl.indexOf("CDATA"));
+    int a = idl.indexOf(base + "/a");
+    int b = idl.indexOf(base + "/b");
+    int location = idl.indexOf(base, idl.indexOf("location"));
+    assertEquals(targetNamespace + "," + cdata + "," + a + "," + b + "," + location, index.getProperty("offsets"));
+  }
+
+  /**
+   * tests that relative base uris aren't indexed.
+   */
+  public void testRelativeBaseUri() throws Exception {
+    String idl = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+      "<?enunciate-assumed-base-uri ./?>\n" +
+      "<application><resources base=\"./\"/></application>";
+    assertNull(AssumedBaseUriIndex.index(idl.getBytes("utf-8")));
+    assertNull(AssumedBaseUriIndex.index("<application/>".getBytes("utf-8")));
+  }
+
+  /**
+   * tests that the index is only written alongside the copy of the IDL in the documentation.
+   */
+  public void testWriteInterfaceDescriptionFile() throws Exception {
+    File tmp = File.createTempFile("TestAssumedBaseUriIndex", "");
+    tmp.delete();
+    File sourceDir = new File(tmp, "source");
+    File clientDir = new File(tmp, "client");
+    File docsDir = new File(tmp, "docs");
+    sourceDir.mkdirs();
+    clientDir.mkdirs();
+    docsDir.mkdirs();
+
+    File wadl = new File(sourceDir, "application.wadl");
+    FileOutputStream out = new FileOutputStream(wadl);
+    out.write(("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+      "<?enunciate-assumed-base-uri http://localhost:8080/base/?>\n" +
+      "<application><resources base=\"http://localhost:8080/base/\"/></application>").getBytes("utf-8"));
+    out.close();
+
+    InterfaceDescriptionFile file = new StaticInterfaceDescriptionFile(wadl, new Enunciate());
+    file.writeTo(clientDir);
+    assertTrue(new File(clientDir, "application.wadl").exists());
+    assertFalse(new File(clientDir, "application.wadl" + AssumedBaseUriIndex.FILE_SUFFIX).exists());
+
+    DocsModule.writeInterfaceDescriptionFile(file, docsDir, false);
+    assertTrue(new File(docsDir, "application.wadl").exists());
+    assertFalse(new File(docsDir, "application.wadl" + AssumedBaseUriIndex.FILE_SUFFIX).exists());
+
+    DocsModule.writeInterfaceDescriptionFile(file, docsDir, true);
+    assertTrue(new File(docsDir, "application.wadl" + AssumedBaseUriIndex.FILE_SUFFIX).exists());
+  }
+}
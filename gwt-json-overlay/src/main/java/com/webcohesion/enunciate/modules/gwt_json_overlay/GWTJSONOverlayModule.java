@@ -39,19 +39,12 @@ import com.webcohesion.enunciate.util.AntPatternMatcher;
 import com.webcohesion.enunciate.util.freemarker.ClientPackageForMethod;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
+import com.webcohesion.enunciate.util.freemarker.TemplateEngine;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.io.Writer;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 
@@ -60,6 +53,8 @@ import java.util.*;
  */
 public class GWTJSONOverlayModule extends BasicGeneratingModule implements ApiFeatureProviderModule, ProjectExtensionModule {
 
+  private final GWTJSONOverlayObjectWrapper objectWrapper = new GWTJSONOverlayObjectWrapper();
+
   private static final String LIRBARY_DESCRIPTION_PROPERTY = "com.webcohesion.enunciate.modules.java_xml_client.EnunciateJavaJSONClientModule#LIRBARY_DESCRIPTION_PROPERTY";
 
   JacksonModule jacksonModule;
@@ -235,33 +230,7 @@ public class GWTJSONOverlayModule extends BasicGeneratingModule implements ApiFe
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new GWTJSONOverlayObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return TemplateEngine.INSTANCE.process(templateURL, model, this.objectWrapper);
   }
 
   protected File packageArtifacts(File sourceDir) {
@@ -19,15 +19,10 @@ import com.webcohesion.enunciate.api.InterfaceDescriptionFile;
 import com.webcohesion.enunciate.facets.FacetFilter;
 import com.webcohesion.enunciate.modules.jaxb.util.PrefixMethod;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
+import com.webcohesion.enunciate.util.freemarker.TemplateEngine;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 
 import java.io.*;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.HashMap;
 import java.util.Map;
@@ -40,7 +35,7 @@ public abstract class BaseXMLInterfaceDescriptionFile implements InterfaceDescri
   protected final FacetFilter facetFilter;
   protected final Map<String, String> namespacePrefixes;
   protected final String filename;
-  private String contents;
+  private File writtenFile;
 
   public BaseXMLInterfaceDescriptionFile(String filename, Map<String, String> namespacePrefixes, FacetFilter facetFilter) {
     this.namespacePrefixes = namespacePrefixes;
@@ -49,8 +44,8 @@ public abstract class BaseXMLInterfaceDescriptionFile implements InterfaceDescri
   }
 
   @Override
-  public String getHref() {
-    if (contents == null) {
+  public synchronized String getHref() {
+    if (writtenFile == null) {
       throw new IllegalStateException(String.format("%s hasn't been written yet.", filename));
     }
 
@@ -58,22 +53,46 @@ public abstract class BaseXMLInterfaceDescriptionFile implements InterfaceDescri
   }
 
   @Override
-  public void writeTo(File directory) throws IOException {
-    FileWriter writer = new FileWriter(new File(directory, this.filename));
-    writeTo(writer);
-    writer.flush();
-    writer.close();
+  public synchronized void writeTo(File directory) throws IOException {
+    File file = new File(directory, this.filename);
+    if (this.writtenFile != null && this.writtenFile.exists() && !this.writtenFile.equals(file)) {
+      //already rendered once; the first copy on disk serves as the cache.
+      copy(this.writtenFile, file);
+    }
+    else {
+      try {
+        TemplateEngine.INSTANCE.process(getTemplateURL(), createModel(), new IDLObjectWrapper(this.namespacePrefixes), file);
+      }
+      catch (TemplateException e) {
+        throw new RuntimeException(e);
+      }
+    }
+    this.writtenFile = file;
   }
 
   protected void writeTo(Writer writer) throws IOException {
-    if (this.contents != null) {
-      writer.write(this.contents);
+    Map<String, Object> model = createModel();
+    URL template = getTemplateURL();
+    processTemplate(template, model, writer);
+  }
+
+  private static void copy(File from, File to) throws IOException {
+    InputStream in = new FileInputStream(from);
+    try {
+      OutputStream out = new FileOutputStream(to);
+      try {
+        byte[] buffer = new byte[8 * 1024];
+        int len;
+        while ((len = in.read(buffer)) > 0) {
+          out.write(buffer, 0, len);
+        }
+      }
+      finally {
+        out.close();
+      }
     }
-    else {
-      Map<String, Object> model = createModel();
-      URL template = getTemplateURL();
-      String idl = processTemplate(template, model);
-      writer.write(idl);
+    finally {
+      in.close();
     }
   }
 
@@ -87,46 +106,18 @@ public abstract class BaseXMLInterfaceDescriptionFile implements InterfaceDescri
   protected abstract URL getTemplateURL();
 
   /**
-   * Processes the specified template with the given model.
+   * Processes the specified template with the given model, streaming the output to the given writer.
    *
    * @param model       The root model.
+   * @param out         Where to write the output.
    */
-  protected String processTemplate(URL templateURL, Map<String, Object> model) throws IOException {
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new IDLObjectWrapper(this.namespacePrefixes));
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter output = new StringWriter();
-
+  protected void processTemplate(URL templateURL, Map<String, Object> model, Writer out) throws IOException {
     try {
-      template.process(model, output);
+      TemplateEngine.INSTANCE.process(templateURL, model, new IDLObjectWrapper(this.namespacePrefixes), out);
     }
     catch (TemplateException e) {
       throw new RuntimeException(e);
     }
-
-    String idl = output.toString();
-    this.contents = idl;
-    return idl;
   }
 
 }
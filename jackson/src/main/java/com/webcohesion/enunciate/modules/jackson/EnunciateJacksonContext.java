@@ -78,9 +78,11 @@ public class EnunciateJacksonContext extends EnunciateModuleContext implements S
   private final boolean collapseTypeHierarchy;
   private final Map<String, String> mixins;
   private final boolean disableExamples;
+  private final TypeDefinition.JacksonPropertySpec propertySpec;
 
   public EnunciateJacksonContext(EnunciateContext context, boolean honorJaxb, KnownJsonType dateType, boolean collapseTypeHierarchy, Map<String, String> mixins, boolean disableExamples) {
     super(context);
+    this.propertySpec = new TypeDefinition.JacksonPropertySpec(context.getProcessingEnvironment());
     this.dateType = dateType;
     this.mixins = mixins;
     this.disableExamples = disableExamples;
@@ -105,6 +107,16 @@ public class EnunciateJacksonContext extends EnunciateModuleContext implements S
     return context;
   }
 
+  /**
+   * The spec for the properties of the types, shared by all the type definitions (and their mixins) so that the
+   * properties of each type are only looked up once.
+   *
+   * @return The spec for the properties of the types.
+   */
+  public TypeDefinition.JacksonPropertySpec getPropertySpec() {
+    return propertySpec;
+  }
+
   public boolean isHonorJaxb() {
     return honorJaxb;
   }
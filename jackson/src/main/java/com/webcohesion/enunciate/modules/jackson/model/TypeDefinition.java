@@ -224,7 +224,7 @@ public abstract class TypeDefinition extends DecoratedTypeElement implements Has
       }
     }
 
-    JacksonPropertySpec propertySpec = new JacksonPropertySpec(this.env);
+    JacksonPropertySpec propertySpec = this.context.getPropertySpec();
     List<PropertyElement> propertyElements = new ArrayList<PropertyElement>(clazz.getProperties(propertySpec));
     if (mixin != null) {
       //replace all mixin properties.
@@ -77,9 +77,11 @@ public class EnunciateJackson1Context extends EnunciateModuleContext implements
   private final boolean collapseTypeHierarchy;
   private final Map<String, String> mixins;
   private final boolean disableExamples;
+  private final TypeDefinition.Jackson1PropertySpec propertySpec;
 
   public EnunciateJackson1Context(EnunciateContext context, boolean honorJaxb, KnownJsonType dateType, boolean collapseTypeHierarchy, Map<String, String> mixins, boolean disableExamples) {
     super(context);
+    this.propertySpec = new TypeDefinition.Jackson1PropertySpec(context.getProcessingEnvironment());
     this.dateType = dateType;
     this.mixins = mixins;
     this.collapseTypeHierarchy = collapseTypeHierarchy;
@@ -94,6 +96,16 @@ public class EnunciateJackson1Context extends EnunciateModuleContext implements
     return context;
   }
 
+  /**
+   * The spec for the properties of the types, shared by all the type definitions (and their mixins) so that the
+   * properties of each type are only looked up once.
+   *
+   * @return The spec for the properties of the types.
+   */
+  public TypeDefinition.Jackson1PropertySpec getPropertySpec() {
+    return propertySpec;
+  }
+
   public boolean isHonorJaxb() {
     return honorJaxb;
   }
@@ -204,7 +204,7 @@ public abstract class TypeDefinition extends DecoratedTypeElement implements Has
       }
     }
 
-    Jackson1PropertySpec propertySpec = new Jackson1PropertySpec(this.env);
+    Jackson1PropertySpec propertySpec = this.context.getPropertySpec();
     List<PropertyElement> propertyElements = new ArrayList<PropertyElement>(clazz.getProperties(propertySpec));
     if (mixin != null) {
       //replace all mixin properties.
@@ -43,19 +43,14 @@ import com.webcohesion.enunciate.util.freemarker.AnnotationValueMethod;
 import com.webcohesion.enunciate.util.freemarker.ClientPackageForMethod;
 import com.webcohesion.enunciate.util.freemarker.FileDirective;
 import com.webcohesion.enunciate.util.freemarker.IsFacetExcludedMethod;
-import freemarker.cache.URLTemplateLoader;
-import freemarker.core.Environment;
-import freemarker.template.Configuration;
-import freemarker.template.Template;
+import com.webcohesion.enunciate.util.freemarker.TemplateEngine;
 import freemarker.template.TemplateException;
-import freemarker.template.TemplateExceptionHandler;
 import org.apache.commons.configuration.HierarchicalConfiguration;
 
 import javax.lang.model.element.TypeElement;
 import javax.tools.JavaCompiler;
 import javax.tools.JavaFileObject;
 import java.io.*;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 
@@ -64,6 +59,8 @@ import java.util.*;
  */
 public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFeatureProviderModule, ProjectExtensionModule {
 
+  private final JavaJSONClientObjectWrapper objectWrapper = new JavaJSONClientObjectWrapper();
+
   private static final String LIRBARY_DESCRIPTION_PROPERTY = "com.webcohesion.enunciate.modules.java_xml_client.EnunciateJavaJSONClientModule#LIRBARY_DESCRIPTION_PROPERTY";
 
   JacksonModule jacksonModule;
@@ -262,33 +259,7 @@ public class JavaJSONClientModule extends BasicGeneratingModule implements ApiFe
    */
   public String processTemplate(URL templateURL, Object model) throws IOException, TemplateException {
     debug("Processing template %s.", templateURL);
-    Configuration configuration = new Configuration(Configuration.VERSION_2_3_22);
-
-    configuration.setTemplateLoader(new URLTemplateLoader() {
-      protected URL getURL(String name) {
-        try {
-          return new URL(name);
-        }
-        catch (MalformedURLException e) {
-          return null;
-        }
-      }
-    });
-
-    configuration.setTemplateExceptionHandler(new TemplateExceptionHandler() {
-      public void handleTemplateException(TemplateException templateException, Environment environment, Writer writer) throws TemplateException {
-        throw templateException;
-      }
-    });
-
-    configuration.setLocalizedLookup(false);
-    configuration.setDefaultEncoding("UTF-8");
-    configuration.setObjectWrapper(new JavaJSONClientObjectWrapper());
-    Template template = configuration.getTemplate(templateURL.toString());
-    StringWriter unhandledOutput = new StringWriter();
-    template.process(model, unhandledOutput);
-    unhandledOutput.close();
-    return unhandledOutput.toString();
+    return TemplateEngine.INSTANCE.process(templateURL, model, this.objectWrapper);
   }
 
   protected File getServerSideDestFile(File sourceDir, JavaFileObject sourceFile, TypeElement declaration) {
@@ -0,0 +1,57 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.java_xml_client;
+
+import junit.framework.TestCase;
+
+import java.io.File;
+import java.util.Enumeration;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestClientResources extends TestCase {
+
+  /**
+   * tests that the index of the base uri offsets, which is only of use where the IDL is served from, isn't written to the client library.
+   */
+  public void testNoBaseUriIndex() throws Exception {
+    File clientDir = new File(new File(new File(System.getProperty("basedir", ".")), "target"), "enunciate/java-xml-client");
+    File[] resources = new File(clientDir, "resources").listFiles();
+    assertNotNull(resources);
+
+    boolean foundWsdl = false;
+    for (File resource : resources) {
+      foundWsdl |= resource.getName().endsWith(".wsdl");
+      assertFalse(resource.getName(), resource.getName().endsWith(".offsets"));
+    }
+    assertTrue(foundWsdl);
+
+    JarFile jar = new JarFile(new File(clientDir, "build/shapes-xml-client.jar"));
+    try {
+      Enumeration<JarEntry> entries = jar.entries();
+      while (entries.hasMoreElements()) {
+        String name = entries.nextElement().getName();
+        assertFalse(name, name.endsWith(".offsets"));
+      }
+    }
+    finally {
+      jar.close();
+    }
+  }
+}
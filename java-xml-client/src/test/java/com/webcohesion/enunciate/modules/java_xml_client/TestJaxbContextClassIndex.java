@@ -0,0 +1,92 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.java_xml_client;
+
+import com.webcohesion.enunciate.examples.java_xml_client.schema.Figure;
+import com.webcohesion.enunciate.examples.java_xml_client.schema.draw.Palette;
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.util.*;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestJaxbContextClassIndex extends TestCase {
+
+  private static final String NAMESPACE_PREFIX = "http://samples.enunciate.webcohesion.com/";
+
+  /**
+   * tests the index of the jaxb context classes by namespace.
+   */
+  public void testIndex() throws Exception {
+    File index = new File(new File(new File(System.getProperty("basedir", ".")), "target"), "enunciate/jaxb-context-classes.index");
+    Map<String, List<String>> linesByNamespace = new LinkedHashMap<String, List<String>>();
+    BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(index), "utf-8"));
+    try {
+      List<String> lines = null;
+      String line = reader.readLine();
+      while (line != null) {
+        if (line.startsWith("namespace ")) {
+          lines = new ArrayList<String>();
+          assertNull(line, linesByNamespace.put(line.substring(10), lines));
+        }
+        else {
+          assertNotNull(line, lines);
+          assertTrue(line, line.startsWith("include ") || line.equals("include-all") || line.startsWith("class ") || line.startsWith("type "));
+          lines.add(line);
+        }
+        line = reader.readLine();
+      }
+    }
+    finally {
+      reader.close();
+    }
+
+    assertEquals(new ArrayList<String>(new TreeSet<String>(linesByNamespace.keySet())), new ArrayList<String>(linesByNamespace.keySet()));
+    assertEquals(new HashSet<String>(Arrays.asList("", NAMESPACE_PREFIX + "draw", NAMESPACE_PREFIX + "structures", NAMESPACE_PREFIX + "animals", NAMESPACE_PREFIX + "vehicles")), linesByNamespace.keySet());
+
+    //classes are indexed by binary name.
+    List<String> draw = linesByNamespace.get(NAMESPACE_PREFIX + "draw");
+    assertTrue(draw.contains("class " + Palette.class.getName()));
+    assertTrue(draw.contains("type " + Palette.Swatch.class.getName()));
+    assertEquals("com.webcohesion.enunciate.examples.java_xml_client.schema.draw.Palette$Swatch", Palette.Swatch.class.getName());
+    for (List<String> lines : linesByNamespace.values()) {
+      for (String line : lines) {
+        if (line.startsWith("class ") || line.startsWith("type ")) {
+          Class.forName(line.substring(line.indexOf(' ') + 1));
+        }
+      }
+    }
+
+    //the subclasses of figure are in other namespaces, and the context for the namespace of figure has to bind them.
+    List<String> figures = linesByNamespace.get("");
+    assertTrue(figures.contains("type " + Figure.class.getName()));
+    assertTrue(figures.contains("include " + NAMESPACE_PREFIX + "animals"));
+    assertTrue(figures.contains("include " + NAMESPACE_PREFIX + "structures"));
+    assertTrue(figures.contains("include " + NAMESPACE_PREFIX + "vehicles"));
+    assertFalse(figures.contains("include "));
+    assertTrue(linesByNamespace.get(NAMESPACE_PREFIX + "vehicles").contains("include "));
+
+    //nothing has a lax wildcard.
+    for (List<String> lines : linesByNamespace.values()) {
+      assertFalse(lines.contains("include-all"));
+    }
+  }
+}
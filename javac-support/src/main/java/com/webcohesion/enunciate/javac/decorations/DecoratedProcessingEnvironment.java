@@ -15,12 +15,11 @@
  */
 package com.webcohesion.enunciate.javac.decorations;
 
-import com.sun.source.tree.CompilationUnitTree;
-import com.sun.source.util.SourcePositions;
-import com.sun.source.util.TreePath;
 import com.sun.source.util.Trees;
 import com.webcohesion.enunciate.javac.decorations.adaptors.ElementAdaptor;
 import com.webcohesion.enunciate.javac.decorations.element.DecoratedElement;
+import com.webcohesion.enunciate.javac.decorations.element.ElementUtils;
+import com.webcohesion.enunciate.javac.decorations.element.PropertySpec;
 
 import javax.annotation.processing.Filer;
 import javax.annotation.processing.Messager;
@@ -33,6 +32,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
@@ -42,9 +42,14 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
   private final ProcessingEnvironment delegate;
   private final Map<String, Object> properties = new ConcurrentHashMap<String, Object>();
   private final Trees trees;
+  private final SourcePositionIndex sourcePositions;
   private final List<ElementDecoration> elementDecorations;
   private final List<TypeMirrorDecoration> typeMirrorDecorations;
   private final List<AnnotationMirrorDecoration> annotationMirrorDecorations;
+  private final DecoratedElements elementUtils;
+  private final DecoratedTypes typeUtils;
+  private final ConcurrentMap<Element, Element> decoratedElements = new ConcurrentHashMap<Element, Element>();
+  private final PropertySpec defaultPropertySpec;
 
   public DecoratedProcessingEnvironment(ProcessingEnvironment delegate, List<ElementDecoration> elementDecorations, List<TypeMirrorDecoration> typeMirrorDecorations, List<AnnotationMirrorDecoration> annotationMirrorDecorations) {
     this.elementDecorations = elementDecorations;
@@ -55,6 +60,10 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
     }
     this.delegate = delegate;
     this.trees = Trees.instance(delegate);
+    this.sourcePositions = new SourcePositionIndex(this.trees);
+    this.elementUtils = new DecoratedElements(delegate.getElementUtils(), this);
+    this.typeUtils = new DecoratedTypes(delegate.getTypeUtils(), this);
+    this.defaultPropertySpec = new ElementUtils.DefaultPropertySpec(this);
   }
 
   @Override
@@ -74,12 +83,12 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
 
   @Override
   public Elements getElementUtils() {
-    return new DecoratedElements(delegate.getElementUtils(), this);
+    return this.elementUtils;
   }
 
   @Override
   public Types getTypeUtils() {
-    return new DecoratedTypes(delegate.getTypeUtils(), this);
+    return this.typeUtils;
   }
 
   @Override
@@ -92,6 +101,16 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
     return delegate.getLocale();
   }
 
+  /**
+   * The spec for the (public, bean-style) properties of a type. Properties are cached per spec, so this one instance is shared
+   * by everything in this environment that asks for the default properties.
+   *
+   * @return The default property spec.
+   */
+  public PropertySpec getDefaultPropertySpec() {
+    return defaultPropertySpec;
+  }
+
   public Object getProperty(String property) {
     return this.properties.get(property);
   }
@@ -100,6 +119,13 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
     this.properties.put(property, value);
   }
 
+  /**
+   * Find the source position of an element. Source positions are indexed a compilation unit at a time, so looking up the
+   * positions of many elements doesn't search the source trees over and over.
+   *
+   * @param element The element.
+   * @return The source position, or null if the element wasn't declared in a source file being processed.
+   */
   public SourcePosition findSourcePosition(Element element) {
     while (element instanceof DecoratedElement) {
       element = ((DecoratedElement) element).getDelegate();
@@ -109,18 +135,18 @@ public class DecoratedProcessingEnvironment implements ProcessingEnvironment {
       return ((ElementAdaptor)element).getSourcePosition();
     }
 
-    TreePath path = this.trees.getPath(element);
-    if (path != null) {
-      CompilationUnitTree cu = path.getCompilationUnit();
-      SourcePositions positions = this.trees.getSourcePositions();
-      long position = positions.getStartPosition(cu, path.getLeaf());
-      long line = cu.getLineMap().getLineNumber(position);
-      long column = cu.getLineMap().getColumnNumber(position);
-      return new SourcePosition(path, cu.getSourceFile(), position, line, column);
-    }
-    else {
-      return null;
-    }
+    return this.sourcePositions.find(element);
+  }
+
+  /**
+   * The elements that have been decorated in this environment, keyed by the undecorated element. Each element is only
+   * decorated once, so the state the decorations compute lazily (annotations, javadoc, etc.) is computed once and
+   * shared by everything that decorates the same element.
+   *
+   * @return The decorated elements, keyed by the undecorated element.
+   */
+  ConcurrentMap<Element, Element> getDecoratedElements() {
+    return decoratedElements;
   }
 
   public List<ElementDecoration> getElementDecorations() {
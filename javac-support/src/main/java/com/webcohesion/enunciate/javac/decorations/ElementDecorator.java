@@ -21,6 +21,7 @@ import javax.lang.model.element.*;
 import javax.lang.model.util.SimpleElementVisitor6;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Decorates an {@link Element} when visited.
@@ -53,8 +54,17 @@ public class ElementDecorator<E extends Element> extends SimpleElementVisitor6<E
       return element;
     }
 
-    ElementDecorator<E> decorator = new ElementDecorator<E>(env);
-    return element.accept(decorator, null);
+    //javac elements (and the adaptors) have identity equality, so each element is decorated once per environment.
+    ConcurrentMap<Element, Element> decoratedElements = env.getDecoratedElements();
+    E decorated = (E) decoratedElements.get(element);
+    if (decorated == null) {
+      decorated = element.accept(new ElementDecorator<E>(env), null);
+      E existing = (E) decoratedElements.putIfAbsent(element, decorated);
+      if (existing != null) {
+        decorated = existing;
+      }
+    }
+    return decorated;
   }
 
   /**
@@ -18,6 +18,7 @@ package com.webcohesion.enunciate.javac.decorations;
 import com.sun.source.util.TreePath;
 
 import javax.tools.JavaFileObject;
+import java.net.URI;
 
 /**
  * @author Ryan Heaton
@@ -29,13 +30,21 @@ public class SourcePosition implements Comparable<SourcePosition> {
   private final long position;
   private final long line;
   private final long column;
+  private final URI sourceUri;
+  private final long sourceTimestamp;
 
   public SourcePosition(TreePath path, JavaFileObject sourceFile, long position, long line, long column) {
+    this(path, sourceFile, position, line, column, sourceFile == null ? null : sourceFile.toUri(), sourceFile == null ? 0 : sourceFile.getLastModified());
+  }
+
+  public SourcePosition(TreePath path, JavaFileObject sourceFile, long position, long line, long column, URI sourceUri, long sourceTimestamp) {
     this.path = path;
     this.sourceFile = sourceFile;
     this.position = position;
     this.line = line;
     this.column = column;
+    this.sourceUri = sourceUri;
+    this.sourceTimestamp = sourceTimestamp;
   }
 
   public TreePath getPath() {
@@ -58,6 +67,24 @@ public class SourcePosition implements Comparable<SourcePosition> {
     return column;
   }
 
+  /**
+   * The URI of the source file, or null if unknown.
+   *
+   * @return The URI of the source file.
+   */
+  public URI getSourceUri() {
+    return sourceUri;
+  }
+
+  /**
+   * The last-modified timestamp of the source file, or 0 if unknown.
+   *
+   * @return The last-modified timestamp of the source file.
+   */
+  public long getSourceTimestamp() {
+    return sourceTimestamp;
+  }
+
   @Override
   public int compareTo(SourcePosition o) {
     return new Long(this.position).compareTo(o.position);
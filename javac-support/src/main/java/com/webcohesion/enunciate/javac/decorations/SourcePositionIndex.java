@@ -0,0 +1,155 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.javac.decorations;
+
+import com.sun.source.tree.ClassTree;
+import com.sun.source.tree.CompilationUnitTree;
+import com.sun.source.tree.LineMap;
+import com.sun.source.tree.MethodTree;
+import com.sun.source.tree.TypeParameterTree;
+import com.sun.source.tree.VariableTree;
+import com.sun.source.util.SourcePositions;
+import com.sun.source.util.TreePath;
+import com.sun.source.util.TreePathScanner;
+import com.sun.source.util.Trees;
+
+import javax.lang.model.element.Element;
+import javax.lang.model.element.PackageElement;
+import javax.tools.JavaFileObject;
+import java.io.File;
+import java.net.URI;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * An index of the source positions of the (undecorated) elements being processed. The first lookup of an element in a compilation
+ * unit indexes all the declarations of that compilation unit in one pass, so subsequent lookups don't have to search the tree again.
+ *
+ * @author Ryan Heaton
+ */
+final class SourcePositionIndex {
+
+  private static final SourcePosition NO_POSITION = new SourcePosition(null, null, -1, -1, -1, null, 0);
+
+  private final Trees trees;
+  private final ConcurrentMap<Element, SourcePosition> positions = new ConcurrentHashMap<Element, SourcePosition>();
+  private final Set<Element> indexedTypes = Collections.newSetFromMap(new ConcurrentHashMap<Element, Boolean>());
+
+  SourcePositionIndex(Trees trees) {
+    this.trees = trees;
+  }
+
+  SourcePosition find(Element element) {
+    SourcePosition position = this.positions.get(element);
+    if (position == null) {
+      Element topLevel = findTopLevel(element);
+      if (topLevel != null && this.indexedTypes.add(topLevel)) {
+        TreePath path = this.trees.getPath(topLevel);
+        if (path != null) {
+          index(path.getCompilationUnit());
+        }
+        position = this.positions.get(element);
+      }
+
+      if (position == null) {
+        //not a declaration the index picks up (or the index is being built on another thread); look it up directly.
+        TreePath path = this.trees.getPath(element);
+        position = path == null ? NO_POSITION : toPosition(path, new CompilationUnitInfo(path.getCompilationUnit()));
+        SourcePosition existing = this.positions.putIfAbsent(element, position);
+        position = existing == null ? position : existing;
+      }
+    }
+
+    return position == NO_POSITION ? null : position;
+  }
+
+  private static Element findTopLevel(Element element) {
+    Element topLevel = null;
+    while (element != null && !(element instanceof PackageElement)) {
+      topLevel = element;
+      element = element.getEnclosingElement();
+    }
+    return topLevel;
+  }
+
+  private void index(CompilationUnitTree cu) {
+    final CompilationUnitInfo info = new CompilationUnitInfo(cu);
+    new TreePathScanner<Void, Void>() {
+      @Override
+      public Void visitClass(ClassTree node, Void v) {
+        record();
+        return super.visitClass(node, v);
+      }
+
+      @Override
+      public Void visitMethod(MethodTree node, Void v) {
+        record();
+        //declarations in the body aren't api elements.
+        scan(node.getTypeParameters(), v);
+        scan(node.getParameters(), v);
+        return null;
+      }
+
+      @Override
+      public Void visitVariable(VariableTree node, Void v) {
+        record();
+        return null;
+      }
+
+      @Override
+      public Void visitTypeParameter(TypeParameterTree node, Void v) {
+        record();
+        return null;
+      }
+
+      private void record() {
+        TreePath path = getCurrentPath();
+        Element element = trees.getElement(path);
+        if (element != null) {
+          positions.putIfAbsent(element, toPosition(path, info));
+        }
+      }
+    }.scan(cu, null);
+  }
+
+  private SourcePosition toPosition(TreePath path, CompilationUnitInfo info) {
+    SourcePositions sourcePositions = this.trees.getSourcePositions();
+    long position = sourcePositions.getStartPosition(info.cu, path.getLeaf());
+    LineMap lineMap = info.cu.getLineMap();
+    long line = lineMap.getLineNumber(position);
+    long column = lineMap.getColumnNumber(position);
+    return new SourcePosition(path, info.cu.getSourceFile(), position, line, column, info.uri, info.timestamp);
+  }
+
+  /**
+   * What's shared by all the positions in a compilation unit.
+   */
+  private static final class CompilationUnitInfo {
+
+    private final CompilationUnitTree cu;
+    private final URI uri;
+    private final long timestamp;
+
+    private CompilationUnitInfo(CompilationUnitTree cu) {
+      this.cu = cu;
+      JavaFileObject sourceFile = cu.getSourceFile();
+      this.uri = sourceFile == null ? null : sourceFile.toUri();
+      this.timestamp = this.uri != null && "file".equalsIgnoreCase(this.uri.getScheme()) ? new File(this.uri.getPath()).lastModified() : 0;
+    }
+  }
+}
@@ -52,6 +52,15 @@ public class DecoratedElement<E extends Element> implements Element {
     }
   }
 
+  /**
+   * The processing environment in which this element was decorated.
+   *
+   * @return The processing environment in which this element was decorated.
+   */
+  public DecoratedProcessingEnvironment getProcessingEnvironment() {
+    return env;
+  }
+
   protected JavaDoc constructJavaDoc(String docComment, JavaDocTagHandler tagHandler) {
     return new JavaDoc(docComment, tagHandler);
   }
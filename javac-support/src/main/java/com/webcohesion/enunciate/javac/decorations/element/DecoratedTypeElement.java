@@ -26,8 +26,11 @@ import javax.lang.model.util.ElementFilter;
 import java.lang.annotation.Annotation;
 import java.lang.annotation.Inherited;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A decorated type declaration provides:
@@ -41,7 +44,7 @@ import java.util.List;
 public class DecoratedTypeElement extends DecoratedElement<TypeElement> implements TypeElement {
 
   private PackageElement pckg;
-  private List<PropertyElement> properties;
+  private final ConcurrentMap<PropertySpec, List<PropertyElement>> properties = new ConcurrentHashMap<PropertySpec, List<PropertyElement>>();
   private TypeMirror superclass;
   private List<? extends TypeMirror> interfaces;
   private List<ExecutableElement> methods;
@@ -121,15 +124,27 @@ public class DecoratedTypeElement extends DecoratedElement<TypeElement> implemen
   }
 
   public List<PropertyElement> getProperties() {
-    return getProperties(new ElementUtils.DefaultPropertySpec(this.env));
+    return getProperties(this.env.getDefaultPropertySpec());
   }
 
+  /**
+   * The properties of this type, according to the specified spec. The properties are computed once for each spec
+   * instance and shared by everything that asks with the same spec, so callers should hold on to their spec.
+   *
+   * @param spec The property spec.
+   * @return The properties. The list is not modifiable.
+   */
   public List<PropertyElement> getProperties(PropertySpec spec) {
-    if (this.properties == null) {
-      this.properties = loadProperties(spec);
+    List<PropertyElement> properties = this.properties.get(spec);
+    if (properties == null) {
+      properties = Collections.unmodifiableList(loadProperties(spec));
+      List<PropertyElement> existing = this.properties.putIfAbsent(spec, properties);
+      if (existing != null) {
+        properties = existing;
+      }
     }
 
-    return this.properties;
+    return properties;
   }
 
   public List<VariableElement> enumValues() {
@@ -49,7 +49,7 @@ public class PropertyElement extends DecoratedExecutableElement {
    * @throws IllegalStateException If the getter and setter don't pair up.
    */
   public PropertyElement(DecoratedExecutableElement getter, DecoratedExecutableElement setter, DecoratedProcessingEnvironment env) {
-    this(getter, setter, new ElementUtils.DefaultPropertySpec(env), env);
+    this(getter, setter, env.getDefaultPropertySpec(), env);
   }
 
   public PropertyElement(DecoratedExecutableElement getter, DecoratedExecutableElement setter, PropertySpec spec, DecoratedProcessingEnvironment env) {
@@ -15,25 +15,41 @@
  */
 package com.webcohesion.enunciate.javac.decorations.type;
 
+import com.webcohesion.enunciate.javac.decorations.DecoratedProcessingEnvironment;
+import com.webcohesion.enunciate.javac.decorations.TypeMirrorDecorator;
+import com.webcohesion.enunciate.javac.decorations.element.DecoratedElement;
+
 import javax.annotation.processing.ProcessingEnvironment;
+import javax.lang.model.element.Element;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
 import javax.lang.model.element.TypeParameterElement;
+import javax.lang.model.type.ArrayType;
 import javax.lang.model.type.DeclaredType;
 import javax.lang.model.type.TypeKind;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.type.TypeVariable;
+import javax.lang.model.type.WildcardType;
+import javax.lang.model.util.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Ryan Heaton
  */
 public class TypeVariableContext {
 
+  private static final String RESOLVED_TYPES_PROPERTY = TypeVariableContext.class.getName() + "#resolvedTypes";
+
   private final TypeVariableContext stack;
   private final List<? extends TypeParameterElement> params;
   private final List<? extends TypeMirror> variables;
+  private volatile Map<Name, Integer> paramIndex;
 
   public TypeVariableContext() {
     this(null, new ArrayList<TypeParameterElement>(), new ArrayList<TypeMirror>());
@@ -50,17 +66,45 @@ public class TypeVariableContext {
   }
 
   public TypeMirror resolveTypeVariables(TypeMirror var, ProcessingEnvironment env) {
+    DecoratedProcessingEnvironment decoratedEnv = env instanceof DecoratedProcessingEnvironment ? (DecoratedProcessingEnvironment) env : null;
+    return resolveTypeVariables(var, env.getTypeUtils(), decoratedEnv, decoratedEnv == null ? null : getResolvedTypes(decoratedEnv));
+  }
+
+  private TypeMirror resolveTypeVariables(TypeMirror var, Types types, DecoratedProcessingEnvironment decoratedEnv, ConcurrentMap<Object, TypeMirror> resolvedTypes) {
     TypeMirror resolved = resolveTypeVariable(var);
 
     if (resolved.getKind() == TypeKind.DECLARED) {
       //if we resolved to a declared type, we need to resolve the type arguments, too.
       List<? extends TypeMirror> args = ((DeclaredType) resolved).getTypeArguments();
       TypeMirror[] resolvedArgs = new TypeMirror[args.size()];
+      boolean changed = false;
       for (int i = 0; i < args.size(); i++) {
-        resolvedArgs[i] = resolveTypeVariables(args.get(i), env);
+        TypeMirror arg = args.get(i);
+        resolvedArgs[i] = resolveTypeVariables(arg, types, decoratedEnv, resolvedTypes);
+        changed |= resolvedArgs[i] != arg;
       }
 
-      resolved = env.getTypeUtils().getDeclaredType((TypeElement) ((DeclaredType) resolved).asElement(), resolvedArgs);
+      TypeElement element = (TypeElement) ((DeclaredType) resolved).asElement();
+      if (!changed) {
+        //nothing to substitute; the declared type is already resolved.
+        resolved = decoratedEnv == null ? resolved : TypeMirrorDecorator.decorate(resolved, decoratedEnv);
+      }
+      else if (resolvedTypes == null) {
+        resolved = types.getDeclaredType(element, resolvedArgs);
+      }
+      else {
+        //intern the parameterization so the same resolution is only built (and decorated) once per environment.
+        Object key = keyOf(element, resolvedArgs);
+        TypeMirror interned = resolvedTypes.get(key);
+        if (interned == null) {
+          interned = types.getDeclaredType(element, resolvedArgs);
+          TypeMirror existing = resolvedTypes.putIfAbsent(key, interned);
+          if (existing != null) {
+            interned = existing;
+          }
+        }
+        resolved = interned;
+      }
     }
 
     return resolved;
@@ -68,18 +112,9 @@ public class TypeVariableContext {
 
   public TypeMirror resolveTypeVariable(TypeMirror typeVariable) {
     if (typeVariable.getKind() == TypeKind.TYPEVAR) {
-      int argIndex = -1;
-
-      Name name = ((TypeVariable) typeVariable).asElement().getSimpleName();
-      for (int i = 0; i < this.params.size(); i++) {
-        TypeParameterElement elementParam = this.params.get(i);
-        if (elementParam.getSimpleName().equals(name)) {
-          argIndex = i;
-          break;
-        }
-      }
+      Integer argIndex = getParamIndex().get(((TypeVariable) typeVariable).asElement().getSimpleName());
 
-      if (argIndex < 0 || this.variables.size() != this.params.size()) {
+      if (argIndex == null || this.variables.size() != this.params.size()) {
         //best we can do is get the upper bound. should this maybe be an illegal state?
         typeVariable = ((TypeVariable) typeVariable).getUpperBound();
       }
@@ -100,4 +135,70 @@ public class TypeVariableContext {
 
     return typeVariable;
   }
+
+  private Map<Name, Integer> getParamIndex() {
+    Map<Name, Integer> index = this.paramIndex;
+    if (index == null) {
+      index = new HashMap<Name, Integer>(this.params.size() * 2);
+      for (int i = this.params.size() - 1; i >= 0; i--) {
+        //walk backwards so the first parameter of a given name wins, as it would in a scan.
+        index.put(this.params.get(i).getSimpleName(), i);
+      }
+      this.paramIndex = index;
+    }
+    return index;
+  }
+
+  @SuppressWarnings ( "unchecked" )
+  private static ConcurrentMap<Object, TypeMirror> getResolvedTypes(DecoratedProcessingEnvironment env) {
+    ConcurrentMap<Object, TypeMirror> resolvedTypes = (ConcurrentMap<Object, TypeMirror>) env.getProperty(RESOLVED_TYPES_PROPERTY);
+    if (resolvedTypes == null) {
+      synchronized (env) {
+        resolvedTypes = (ConcurrentMap<Object, TypeMirror>) env.getProperty(RESOLVED_TYPES_PROPERTY);
+        if (resolvedTypes == null) {
+          resolvedTypes = new ConcurrentHashMap<Object, TypeMirror>();
+          env.setProperty(RESOLVED_TYPES_PROPERTY, resolvedTypes);
+        }
+      }
+    }
+    return resolvedTypes;
+  }
+
+  /**
+   * A structural key for a type: type mirrors (decorated or not) don't compare by what they describe.
+   */
+  private static Object keyOf(TypeMirror type) {
+    switch (type.getKind()) {
+      case DECLARED:
+        List<? extends TypeMirror> args = ((DeclaredType) type).getTypeArguments();
+        return keyOf((TypeElement) ((DeclaredType) type).asElement(), args.toArray(new TypeMirror[args.size()]));
+      case TYPEVAR:
+        return undecorated(((TypeVariable) type).asElement());
+      case ARRAY:
+        return Arrays.asList(TypeKind.ARRAY, keyOf(((ArrayType) type).getComponentType()));
+      case WILDCARD:
+        TypeMirror extendsBound = ((WildcardType) type).getExtendsBound();
+        TypeMirror superBound = ((WildcardType) type).getSuperBound();
+        return Arrays.asList(TypeKind.WILDCARD, extendsBound == null ? null : keyOf(extendsBound), superBound == null ? null : keyOf(superBound));
+      default:
+        return type.getKind().isPrimitive() || type.getKind() == TypeKind.VOID ? type.getKind() : Arrays.asList(type.getKind(), type.toString());
+    }
+  }
+
+  private static Object keyOf(TypeElement element, TypeMirror[] args) {
+    Object[] key = new Object[args.length + 1];
+    key[0] = undecorated(element);
+    for (int i = 0; i < args.length; i++) {
+      key[i + 1] = keyOf(args[i]);
+    }
+    return Arrays.asList(key);
+  }
+
+  private static Element undecorated(Element el) {
+    //decorated elements don't hash like what they decorate.
+    while (el instanceof DecoratedElement) {
+      el = ((DecoratedElement) el).getDelegate();
+    }
+    return el;
+  }
 }
@@ -15,19 +15,16 @@
  */
 package com.webcohesion.enunciate.javac.javadoc;
 
-import java.io.*;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static java.lang.Math.min;
-
 public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
 
   public static final Pattern INLINE_TAG_PATTERN = Pattern.compile("\\{@([^\\} ]+) ?(.*?)\\}");
   public static final char[] WHITESPACE_CHARS = new char[]{' ', '\t', '\n', 0x0B, '\f', '\r'};
+  private static final String LINE_SEPARATOR = System.getProperty("line.separator", "\n");
 
   protected String value;
 
@@ -40,48 +37,56 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
       value = "";
     }
     else {
-      BufferedReader reader = new BufferedReader(new StringReader(docComment));
-      StringWriter currentValue = new StringWriter();
-      PrintWriter out = new PrintWriter(currentValue);
+      //single pass over the lines of the comment, accumulating the current value in a single buffer.
+      StringBuilder currentValue = new StringBuilder(docComment.length());
       String currentTag = null;
       boolean preformatting = false;
-      try {
-        String line = reader.readLine();
-        while (line != null) {
-          if (!preformatting) {
-            line = line.trim();
-          }
-          if (line.startsWith("@")) { //it's a javadoc block tag.
+      int length = docComment.length();
+      int lineStart = 0;
+      while (lineStart < length) {
+        int lineEnd = lineStart;
+        while (lineEnd < length && docComment.charAt(lineEnd) != '\n' && docComment.charAt(lineEnd) != '\r') {
+          lineEnd++;
+        }
+        int nextLineStart = lineEnd + 1;
+        if (lineEnd < length && docComment.charAt(lineEnd) == '\r' && nextLineStart < length && docComment.charAt(nextLineStart) == '\n') {
+          nextLineStart++;
+        }
 
-            //push and clear our current value.
-            pushValue(currentTag, currentValue.toString());
+        int start = lineStart;
+        int end = lineEnd;
+        if (!preformatting) {
+          //trim the line.
+          while (start < end && docComment.charAt(start) <= ' ') {
+            start++;
+          }
+          while (end > start && docComment.charAt(end - 1) <= ' ') {
+            end--;
+          }
+        }
 
-            int spaceIndex = indexOfFirstWhitespace(line);
+        if (start < end && docComment.charAt(start) == '@') { //it's a javadoc block tag.
 
-            currentTag = line.substring(1, spaceIndex);
-            String value = "";
-            if ((spaceIndex + 1) < line.length()) {
-              value = line.substring(spaceIndex + 1);
-            }
+          //push and clear our current value.
+          pushValue(currentTag, currentValue);
 
-            currentValue = new StringWriter();
-            out = new PrintWriter(currentValue);
-            out.println(value);
-          }
-          else {
-            out.println(line);
+          int spaceIndex = start + indexOfFirstWhitespace(docComment, start, end);
+          currentTag = docComment.substring(start + 1, spaceIndex);
+          if ((spaceIndex + 1) < end) {
+            currentValue.append(docComment, spaceIndex + 1, end);
           }
-          preformatting = (line.contains("<pre") || preformatting) && !line.contains("</pre");
-
-          line = reader.readLine();
         }
+        else {
+          currentValue.append(docComment, start, end);
+        }
+        currentValue.append(LINE_SEPARATOR);
 
-        //push the last value.
-        pushValue(currentTag, currentValue.toString());
-      }
-      catch (IOException e) {
-        //fall through.
+        preformatting = (preformatting || contains(docComment, start, end, "<pre")) && !contains(docComment, start, end, "</pre");
+        lineStart = nextLineStart;
       }
+
+      //push the last value.
+      pushValue(currentTag, currentValue);
     }
 
     if (doTagHandling(tagHandler)) {
@@ -97,13 +102,41 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
   }
 
   public static int indexOfFirstWhitespace(String line) {
-    int result = line.length();
-    for (char ws : WHITESPACE_CHARS) {
-      int spaceIndex = line.indexOf(ws);
-      spaceIndex = spaceIndex == -1 ? result : spaceIndex;
-      result = min(spaceIndex, result);
+    return indexOfFirstWhitespace(line, 0, line.length());
+  }
+
+  /**
+   * The index of the first whitespace char in a region of a string, relative to the start of the region.
+   *
+   * @param text The text.
+   * @param start The start of the region.
+   * @param end The end of the region.
+   * @return The index of the first whitespace char, relative to the start of the region, or the length of the region.
+   */
+  private static int indexOfFirstWhitespace(CharSequence text, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char ch = text.charAt(i);
+      for (char ws : WHITESPACE_CHARS) {
+        if (ch == ws) {
+          return i - start;
+        }
+      }
     }
-    return result;
+    return end - start;
+  }
+
+  private static boolean contains(CharSequence text, int start, int end, String target) {
+    int last = end - target.length();
+    for (int i = start; i <= last; i++) {
+      int j = 0;
+      while (j < target.length() && text.charAt(i + j) == target.charAt(j)) {
+        j++;
+      }
+      if (j == target.length()) {
+        return true;
+      }
+    }
+    return false;
   }
 
   protected boolean doTagHandling(JavaDocTagHandler tagHandler) {
@@ -118,14 +151,49 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
    * @return The replacement value.
    */
   protected String handleAllTags(String value, JavaDocTagHandler handler) {
-    //first pass through the inline tags...
-    StringBuilder builder = new StringBuilder();
-
-    Matcher matcher = INLINE_TAG_PATTERN.matcher(value);
-    int lastStart = 0;
-    while (matcher.find()) {
-      builder.append(value.substring(lastStart, matcher.start()));
-      Object replacement = handler.onInlineTag(matcher.group(1), matcher.group(2));
+    int tagStart = value.indexOf("{@");
+    if (tagStart < 0) {
+      //no inline tags (the usual case).
+      return value;
+    }
+
+    //scan for the inline tags, matching what the INLINE_TAG_PATTERN would match.
+    StringBuilder builder = new StringBuilder(value.length());
+    int lastEnd = 0;
+    while (tagStart >= 0) {
+      int nameStart = tagStart + 2;
+      int nameEnd = nameStart;
+      while (nameEnd < value.length() && value.charAt(nameEnd) != ' ' && value.charAt(nameEnd) != '}') {
+        nameEnd++;
+      }
+
+      int tagEnd = -1;
+      int textStart = nameEnd;
+      if (nameEnd > nameStart && nameEnd < value.length()) {
+        if (value.charAt(nameEnd) == '}') {
+          tagEnd = nameEnd;
+        }
+        else {
+          //the tag text can't span lines.
+          textStart = nameEnd + 1;
+          int i = textStart;
+          while (i < value.length() && value.charAt(i) != '}' && !isLineTerminator(value.charAt(i))) {
+            i++;
+          }
+          if (i < value.length() && value.charAt(i) == '}') {
+            tagEnd = i;
+          }
+        }
+      }
+
+      if (tagEnd < 0) {
+        //not a tag.
+        tagStart = value.indexOf("{@", tagStart + 1);
+        continue;
+      }
+
+      builder.append(value, lastEnd, tagStart);
+      Object replacement = handler.onInlineTag(value.substring(nameStart, nameEnd), value.substring(textStart, tagEnd));
       if (replacement != null) {
         if (replacement instanceof JavaDocTagHandler.TextToBeHandled) {
           replacement = handleAllTags(String.valueOf(replacement), handler);
@@ -133,24 +201,39 @@ public class JavaDoc extends HashMap<String, JavaDoc.JavaDocTagList> {
         builder.append(replacement);
       }
       else {
-        builder.append(value.substring(matcher.start(), matcher.end()));
+        builder.append(value, tagStart, tagEnd + 1);
       }
-      lastStart = matcher.end();
+      lastEnd = tagEnd + 1;
+      tagStart = value.indexOf("{@", lastEnd);
     }
-    builder.append(value.substring(lastStart, value.length()));
+    builder.append(value, lastEnd, value.length());
 
     return builder.toString();
   }
 
+  private static boolean isLineTerminator(char ch) {
+    return ch == '\n' || ch == '\r' || ch == '\u0085' || ch == '\u2028' || ch == '\u2029';
+  }
+
   /**
-   * Pushes a value onto a tag.
+   * Pushes a value onto a tag, and clears the value.
    *
    * @param tag The tag onto which to push the value.  (null indicates no tag.)
-   * @param value The value of the tag.
+   * @param currentValue The value of the tag.
    */
-  private void pushValue(String tag, String value) {
-    value = value.trim(); //trim the value.
-    
+  private void pushValue(String tag, StringBuilder currentValue) {
+    //trim the value.
+    int start = 0;
+    int end = currentValue.length();
+    while (start < end && currentValue.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && currentValue.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    String value = currentValue.substring(start, end);
+    currentValue.setLength(0);
+
     if (tag == null) {
       this.value = value;
     }
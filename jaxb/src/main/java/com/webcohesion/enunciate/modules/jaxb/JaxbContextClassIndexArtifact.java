@@ -0,0 +1,255 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.modules.jaxb;
+
+import com.webcohesion.enunciate.Enunciate;
+import com.webcohesion.enunciate.artifacts.BaseArtifact;
+import com.webcohesion.enunciate.modules.jaxb.model.*;
+import com.webcohesion.enunciate.modules.jaxb.model.types.MapXmlType;
+import com.webcohesion.enunciate.modules.jaxb.model.types.XmlClassType;
+import com.webcohesion.enunciate.modules.jaxb.model.types.XmlType;
+
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Elements;
+import java.io.*;
+import java.util.*;
+
+/**
+ * An index of the classes of the JAXB context, by namespace, so the runtime can create a JAXB context for just the namespace
+ * of the type being (un)marshalled instead of one context for all the classes. For each namespace (in order), a "namespace"
+ * line is followed by a "class" line for each registry and root element of the namespace and a "type" line for each of its
+ * other type definitions, all by binary name (in order).<br/><br/>
+ *
+ * The classes of a namespace may not be enough to bind its types: a subclass in another namespace may be bound wherever its
+ * base type is (xsi:type), and the types may reference types or elements of other namespaces. So the namespace line is also
+ * followed by an "include" line for each namespace in the closure of the namespaces it references (in order), and by an
+ * "include-all" line if a type in the closure has a lax wildcard element, which can bind any root element at all.
+ *
+ * @author Ryan Heaton
+ */
+public class JaxbContextClassIndexArtifact extends BaseArtifact {
+
+  private final EnunciateJaxbContext jaxbContext;
+  private final Date created = new Date();
+
+  public JaxbContextClassIndexArtifact(EnunciateJaxbContext jaxbContext) {
+    super(JaxbModule.NAME, "jaxb-context-classes.index");
+    this.jaxbContext = jaxbContext;
+    setBelongsOnServerSideClasspath(true);
+  }
+
+  @Override
+  public String getName() {
+    return "jaxb-context-classes.index";
+  }
+
+  @Override
+  public String getDescription() {
+    return "A plain text file that indexes the classes of the jaxb context by namespace.";
+  }
+
+  @Override
+  public boolean isPublic() {
+    return false;
+  }
+
+  @Override
+  public Date getCreated() {
+    return this.created;
+  }
+
+  @Override
+  public void exportTo(File fileOrDirectory, Enunciate enunciate) throws IOException {
+    Elements elements = this.jaxbContext.getContext().getProcessingEnvironment().getElementUtils();
+    Map<String, TreeSet<String>> classesByNamespace = new TreeMap<String, TreeSet<String>>();
+    Map<String, TreeSet<String>> typesByNamespace = new TreeMap<String, TreeSet<String>>();
+    Map<String, String> namespacesByClass = new HashMap<String, String>();
+    for (SchemaInfo schemaInfo : this.jaxbContext.getSchemas().values()) {
+      //the schemas with no namespace and with the empty namespace share a context.
+      String namespace = namespaceOf(schemaInfo.getNamespace());
+      TreeSet<String> classes = classesByNamespace.get(namespace);
+      TreeSet<String> types = typesByNamespace.get(namespace);
+      if (classes == null) {
+        classes = new TreeSet<String>();
+        types = new TreeSet<String>();
+        classesByNamespace.put(namespace, classes);
+        typesByNamespace.put(namespace, types);
+      }
+
+      for (Registry registry : schemaInfo.getRegistries()) {
+        classes.add(binaryName(registry, elements));
+      }
+
+      for (RootElementDeclaration element : schemaInfo.getRootElements()) {
+        classes.add(binaryName(element, elements));
+      }
+
+      for (TypeDefinition typeDefinition : schemaInfo.getTypeDefinitions()) {
+        types.add(binaryName(typeDefinition, elements));
+      }
+    }
+
+    for (String namespace : classesByNamespace.keySet()) {
+      TreeSet<String> classes = classesByNamespace.get(namespace);
+      TreeSet<String> types = typesByNamespace.get(namespace);
+      types.removeAll(classes);
+      for (String className : classes) {
+        namespacesByClass.put(className, namespace);
+      }
+      for (String typeName : types) {
+        namespacesByClass.put(typeName, namespace);
+      }
+    }
+
+    //the namespaces each namespace references, and whether a namespace needs all the classes.
+    Map<String, Set<String>> referencesByNamespace = new HashMap<String, Set<String>>();
+    Set<String> laxNamespaces = new HashSet<String>();
+    for (String namespace : classesByNamespace.keySet()) {
+      referencesByNamespace.put(namespace, new TreeSet<String>());
+    }
+    for (SchemaInfo schemaInfo : this.jaxbContext.getSchemas().values()) {
+      String namespace = namespaceOf(schemaInfo.getNamespace());
+      Set<String> references = referencesByNamespace.get(namespace);
+
+      for (Registry registry : schemaInfo.getRegistries()) {
+        for (LocalElementDeclaration declaration : registry.getLocalElementDeclarations()) {
+          addReference(declaration.getElementXmlType(), references, namespacesByClass, elements);
+        }
+      }
+
+      for (RootElementDeclaration element : schemaInfo.getRootElements()) {
+        addReference(namespacesByClass.get(binaryName(element.getTypeDefinition(), elements)), references);
+      }
+
+      for (TypeDefinition typeDefinition : schemaInfo.getTypeDefinitions()) {
+        XmlType baseType = typeDefinition.getBaseType();
+        if (baseType instanceof XmlClassType) {
+          //a subclass in another namespace can be bound wherever its base type is, so the namespaces reference each other.
+          String baseNamespace = namespacesByClass.get(binaryName(((XmlClassType) baseType).getTypeDefinition(), elements));
+          if (baseNamespace != null) {
+            references.add(baseNamespace);
+            referencesByNamespace.get(baseNamespace).add(namespace);
+          }
+        }
+
+        Collection<TypeMirror> seeAlsos = typeDefinition.getSeeAlsos();
+        if (seeAlsos != null) {
+          for (TypeMirror seeAlso : seeAlsos) {
+            if (seeAlso instanceof DeclaredType) {
+              addReference(namespacesByClass.get(binaryName((TypeElement) ((DeclaredType) seeAlso).asElement(), elements)), references);
+            }
+          }
+        }
+
+        for (Accessor accessor : typeDefinition.getAllAccessors()) {
+          if (accessor instanceof ElementRef) {
+            for (ElementRef choice : ((ElementRef) accessor).getChoices()) {
+              addReference(choice.getRef().getNamespaceURI(), references);
+              addReference(choice.getXmlType(), references, namespacesByClass, elements);
+            }
+          }
+          else if (accessor instanceof Element) {
+            for (Element choice : ((Element) accessor).getChoices()) {
+              addReference(choice.getBaseType(), references, namespacesByClass, elements);
+            }
+          }
+          else {
+            addReference(accessor.getBaseType(), references, namespacesByClass, elements);
+          }
+        }
+
+        AnyElement anyElement = typeDefinition.getAnyElement();
+        if (anyElement != null) {
+          if (anyElement.isLax()) {
+            //a lax wildcard can bind any root element at all.
+            laxNamespaces.add(namespace);
+          }
+
+          for (ElementRef ref : anyElement.getElementRefs()) {
+            addReference(ref.getRef().getNamespaceURI(), references);
+          }
+        }
+      }
+    }
+
+    Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileOrDirectory.isDirectory() ? new File(fileOrDirectory, getName()) : fileOrDirectory), "utf-8"));
+    try {
+      for (Map.Entry<String, TreeSet<String>> entry : classesByNamespace.entrySet()) {
+        String namespace = entry.getKey();
+        out.write("namespace " + namespace + "\n");
+
+        TreeSet<String> included = new TreeSet<String>();
+        LinkedList<String> unvisited = new LinkedList<String>(referencesByNamespace.get(namespace));
+        while (!unvisited.isEmpty()) {
+          String reference = unvisited.removeFirst();
+          if (!reference.equals(namespace) && classesByNamespace.containsKey(reference) && included.add(reference)) {
+            unvisited.addAll(referencesByNamespace.get(reference));
+          }
+        }
+
+        boolean includeAll = laxNamespaces.contains(namespace);
+        for (String reference : included) {
+          out.write("include " + reference + "\n");
+          includeAll |= laxNamespaces.contains(reference);
+        }
+        if (includeAll) {
+          out.write("include-all\n");
+        }
+
+        for (String className : entry.getValue()) {
+          out.write("class " + className + "\n");
+        }
+        for (String typeName : typesByNamespace.get(namespace)) {
+          out.write("type " + typeName + "\n");
+        }
+      }
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private static void addReference(XmlType xmlType, Set<String> references, Map<String, String> namespacesByClass, Elements elements) {
+    if (xmlType instanceof XmlClassType) {
+      addReference(namespacesByClass.get(binaryName(((XmlClassType) xmlType).getTypeDefinition(), elements)), references);
+    }
+    else if (xmlType instanceof MapXmlType) {
+      addReference(((MapXmlType) xmlType).getKeyType(), references, namespacesByClass, elements);
+      addReference(((MapXmlType) xmlType).getValueType(), references, namespacesByClass, elements);
+    }
+  }
+
+  private static void addReference(String namespace, Set<String> references) {
+    if (namespace != null) {
+      references.add(namespace);
+    }
+  }
+
+  private static String namespaceOf(String namespace) {
+    return namespace == null ? "" : namespace;
+  }
+
+  private static String binaryName(TypeElement element, Elements elements) {
+    return elements.getBinaryName(element).toString();
+  }
+
+  @Override
+  public long getSize() {
+    return -1;
+  }
+}
@@ -72,6 +72,15 @@ public class JaxbModule extends BasicProviderModule implements TypeDetectingModu
     return this.config.getBoolean("[@disableExamples]", false);
   }
 
+  /**
+   * Whether to write an index of the JAXB context classes by namespace, used by the runtime to create JAXB contexts lazily.
+   *
+   * @return Whether to write an index of the JAXB context classes by namespace.
+   */
+  public boolean isWriteContextIndex() {
+    return this.config.getBoolean("[@writeContextIndex]", false);
+  }
+
   @Override
   public void setDefaultDataTypeDetectionStrategy(DataTypeDetectionStrategy strategy) {
     this.defaultDataTypeDetectionStrategy = strategy;
@@ -129,6 +138,9 @@ public class JaxbModule extends BasicProviderModule implements TypeDetectingModu
 
     this.enunciate.addArtifact(new JaxbContextClassListArtifact(this.jaxbContext));
     this.enunciate.addArtifact(new NamespacePropertiesArtifact(this.jaxbContext));
+    if (isWriteContextIndex()) {
+      this.enunciate.addArtifact(new JaxbContextClassIndexArtifact(this.jaxbContext));
+    }
   }
 
   public void addPotentialJaxbElement(Element declaration, LinkedList<Element> contextStack) {
@@ -29,6 +29,7 @@ import com.webcohesion.enunciate.modules.jaxrs.api.impl.PathBasedResourceGroupIm
 import com.webcohesion.enunciate.modules.jaxrs.api.impl.ResourceClassResourceGroupImpl;
 import com.webcohesion.enunciate.modules.jaxrs.api.impl.ResourceImpl;
 import com.webcohesion.enunciate.modules.jaxrs.model.ResourceMethod;
+import com.webcohesion.enunciate.modules.jaxrs.model.ResourceParameter;
 import com.webcohesion.enunciate.modules.jaxrs.model.RootResource;
 import com.webcohesion.enunciate.modules.jaxrs.model.util.JaxrsUtil;
 import com.webcohesion.enunciate.util.*;
@@ -62,6 +63,7 @@ public class EnunciateJaxrsContext extends EnunciateModuleContext implements Res
   private PathSortStrategy pathSortStrategy = PathSortStrategy.breadth_first;
   private InterfaceDescriptionFile wadlFile = null;
   private final boolean disableExamples;
+  private final ResourceParameter.JaxRsResourceParameterPropertySpec resourceParameterPropertySpec;
 
   public EnunciateJaxrsContext(EnunciateContext context, boolean disableExamples) {
     super(context);
@@ -71,6 +73,7 @@ public class EnunciateJaxrsContext extends EnunciateModuleContext implements Res
     this.providers = new TreeSet<TypeElement>(new TypeElementComparator());
     this.customResourceParameterAnnotations = loadKnownCustomResourceParameterAnnotations(context);
     this.systemResourceParameterAnnotations = loadKnownSystemResourceParameterAnnotations(context);
+    this.resourceParameterPropertySpec = new ResourceParameter.JaxRsResourceParameterPropertySpec(context.getProcessingEnvironment());
   }
 
   protected Map<String, String> loadKnownMediaTypes() {
@@ -154,6 +157,15 @@ public class EnunciateJaxrsContext extends EnunciateModuleContext implements Res
     return mediaTypeIds;
   }
 
+  /**
+   * The spec for the properties of bean parameters, shared so that the properties of each bean type are only looked up once.
+   *
+   * @return The spec for the properties of bean parameters.
+   */
+  public ResourceParameter.JaxRsResourceParameterPropertySpec getResourceParameterPropertySpec() {
+    return resourceParameterPropertySpec;
+  }
+
   public boolean isDisableExamples() {
     return disableExamples;
   }
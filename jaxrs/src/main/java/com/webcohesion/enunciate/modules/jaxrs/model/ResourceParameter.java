@@ -244,7 +244,7 @@ public class ResourceParameter extends DecoratedElement<Element> implements Comp
         }
       }
 
-      List<PropertyElement> properties = new ArrayList<PropertyElement>(typeDeclaration.getProperties(new JaxRsResourceParameterPropertySpec(context.getContext().getContext().getProcessingEnvironment())));
+      List<PropertyElement> properties = new ArrayList<PropertyElement>(typeDeclaration.getProperties(context.getContext().getResourceParameterPropertySpec()));
       for (PropertyElement property : properties) {
         if (isResourceParameter(property, context.getContext())) {
           beanParams.add(new ResourceParameter(property, context));
@@ -506,8 +506,9 @@ public class ResourceParameter extends DecoratedElement<Element> implements Comp
     return (this.getTypeName() + this.getParameterName()).compareTo(other.getTypeName() + other.getParameterName());
   }
 
-  private static class JaxRsResourceParameterPropertySpec extends ElementUtils.DefaultPropertySpec {
-    JaxRsResourceParameterPropertySpec(DecoratedProcessingEnvironment env) {
+  public static class JaxRsResourceParameterPropertySpec extends ElementUtils.DefaultPropertySpec {
+
+    public JaxRsResourceParameterPropertySpec(DecoratedProcessingEnvironment env) {
       super(env);
     }
 
@@ -18,25 +18,136 @@ package com.webcohesion.enunciate.rt;
 import com.sun.xml.bind.marshaller.NamespacePrefixMapper;
 
 import javax.xml.bind.*;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
+ * A JAXB context that configures the marshallers it creates with the namespace prefixes exported by Enunciate.<br/><br/>
+ *
+ * In pooled mode, the marshallers and unmarshallers handed out only keep track of how they're configured. Each (un)marshal
+ * checks an idle (un)marshaller out of the pool of the context (or creates one if there isn't one), configures it, and
+ * resets it and checks it back in when it's done. So each (un)marshaller handed out keeps its own configuration and can be
+ * used for as long as its user likes, but new ones are only created when more are in use at a time than are idle. The
+ * pool belongs to the context and holds at most {@link #MAX_IDLE} idle (un)marshallers of each kind, so nothing is held
+ * by the (container) threads that use it, and it goes away with the context.
+ *
  * @author Ryan Heaton
  */
 public class EnunciateJaxbContext extends JAXBContext {
 
+  /**
+   * The maximum number of idle marshallers (and of idle unmarshallers) a pooled context keeps.
+   */
+  public static final int MAX_IDLE = 32;
+
   private final JAXBContext delegate;
   private final NamespacePrefixMapper namespacePrefixMapper;
+  private final Queue<Marshaller> marshallers;
+  private final Queue<Unmarshaller> unmarshallers;
+  private final AtomicInteger idleMarshallers = new AtomicInteger();
+  private final AtomicInteger idleUnmarshallers = new AtomicInteger();
+  private final AtomicLong marshallerPoolHits = new AtomicLong();
+  private final AtomicLong marshallerPoolMisses = new AtomicLong();
+  private final AtomicLong unmarshallerPoolHits = new AtomicLong();
+  private final AtomicLong unmarshallerPoolMisses = new AtomicLong();
 
   public EnunciateJaxbContext(JAXBContext delegate, NamespacePrefixMapper namespacePrefixMapper) {
+    this(delegate, namespacePrefixMapper, false);
+  }
+
+  /**
+   * @param delegate The JAXB context.
+   * @param namespacePrefixMapper The namespace prefix mapper.
+   * @param pooled Whether the context should pool its marshallers and unmarshallers.
+   */
+  public EnunciateJaxbContext(JAXBContext delegate, NamespacePrefixMapper namespacePrefixMapper, boolean pooled) {
     this.delegate = delegate;
     this.namespacePrefixMapper = namespacePrefixMapper;
+    this.marshallers = pooled ? new ConcurrentLinkedQueue<Marshaller>() : null;
+    this.unmarshallers = pooled ? new ConcurrentLinkedQueue<Unmarshaller>() : null;
   }
 
   public Unmarshaller createUnmarshaller() throws JAXBException {
-    return this.delegate.createUnmarshaller();
+    if (this.unmarshallers == null) {
+      return this.delegate.createUnmarshaller();
+    }
+
+    return new PooledUnmarshaller(this);
   }
 
   public Marshaller createMarshaller() throws JAXBException {
+    if (this.marshallers == null) {
+      return newMarshaller();
+    }
+
+    return new PooledMarshaller(this);
+  }
+
+  /**
+   * Check an idle unmarshaller out of the pool, or create one if there isn't one.
+   *
+   * @return The unmarshaller, in its original configuration.
+   */
+  Unmarshaller checkOutUnmarshaller() throws JAXBException {
+    Unmarshaller unmarshaller = this.unmarshallers.poll();
+    if (unmarshaller != null) {
+      this.idleUnmarshallers.decrementAndGet();
+      this.unmarshallerPoolHits.incrementAndGet();
+      return unmarshaller;
+    }
+
+    this.unmarshallerPoolMisses.incrementAndGet();
+    return this.delegate.createUnmarshaller();
+  }
+
+  /**
+   * Check an unmarshaller back into the pool, unless the pool is full.
+   *
+   * @param unmarshaller The unmarshaller, reset to its original configuration.
+   */
+  void checkIn(Unmarshaller unmarshaller) {
+    if (this.idleUnmarshallers.incrementAndGet() <= MAX_IDLE) {
+      this.unmarshallers.offer(unmarshaller);
+    }
+    else {
+      this.idleUnmarshallers.decrementAndGet();
+    }
+  }
+
+  /**
+   * Check an idle marshaller out of the pool, or create one if there isn't one.
+   *
+   * @return The marshaller, in its original configuration.
+   */
+  Marshaller checkOutMarshaller() throws JAXBException {
+    Marshaller marshaller = this.marshallers.poll();
+    if (marshaller != null) {
+      this.idleMarshallers.decrementAndGet();
+      this.marshallerPoolHits.incrementAndGet();
+      return marshaller;
+    }
+
+    this.marshallerPoolMisses.incrementAndGet();
+    return newMarshaller();
+  }
+
+  /**
+   * Check a marshaller back into the pool, unless the pool is full.
+   *
+   * @param marshaller The marshaller, reset to its original configuration.
+   */
+  void checkIn(Marshaller marshaller) {
+    if (this.idleMarshallers.incrementAndGet() <= MAX_IDLE) {
+      this.marshallers.offer(marshaller);
+    }
+    else {
+      this.idleMarshallers.decrementAndGet();
+    }
+  }
+
+  private Marshaller newMarshaller() throws JAXBException {
     Marshaller marshaller = this.delegate.createMarshaller();
     if (this.namespacePrefixMapper != null) {
       marshaller.setProperty("com.sun.xml.bind.namespacePrefixMapper", this.namespacePrefixMapper);
@@ -47,4 +158,49 @@ public class EnunciateJaxbContext extends JAXBContext {
   public Validator createValidator() throws JAXBException {
     return this.delegate.createValidator();
   }
+
+  /**
+   * Whether the context pools its marshallers and unmarshallers.
+   *
+   * @return Whether the context pools its marshallers and unmarshallers.
+   */
+  public boolean isPooled() {
+    return this.marshallers != null;
+  }
+
+  /**
+   * The number of times a pooled marshaller was checked out.
+   *
+   * @return The number of times a pooled marshaller was checked out.
+   */
+  public long getMarshallerPoolHits() {
+    return this.marshallerPoolHits.get();
+  }
+
+  /**
+   * The number of times a marshaller had to be created in pooled mode.
+   *
+   * @return The number of times a marshaller had to be created in pooled mode.
+   */
+  public long getMarshallerPoolMisses() {
+    return this.marshallerPoolMisses.get();
+  }
+
+  /**
+   * The number of times a pooled unmarshaller was checked out.
+   *
+   * @return The number of times a pooled unmarshaller was checked out.
+   */
+  public long getUnmarshallerPoolHits() {
+    return this.unmarshallerPoolHits.get();
+  }
+
+  /**
+   * The number of times an unmarshaller had to be created in pooled mode.
+   *
+   * @return The number of times an unmarshaller had to be created in pooled mode.
+   */
+  public long getUnmarshallerPoolMisses() {
+    return this.unmarshallerPoolMisses.get();
+  }
 }
@@ -25,39 +25,128 @@ import java.io.InputStreamReader;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
 import java.util.logging.Logger;
 
 /**
  * A JAX-RS context resolver for an instance of JAXBContext that attempts to use metadata exported at build-time
  * by Enunciate to provide pretty namespace prefixes and a JAXB context that is aware of all the classes annotated
- * with @XmlRootElement in the project.
+ * with @XmlRootElement in the project.<br/><br/>
+ *
+ * In lazy mode (see {@link #LAZY_PROPERTY}), the resolver uses the index of the context classes by namespace exported by
+ * Enunciate ("jaxb-context-classes.index") to create a JAXB context for the namespace of each type the first time a
+ * context is requested for it, instead of creating one context for all the classes up front. The context for a namespace
+ * also binds the classes of the namespaces the index says it includes (e.g. the namespaces of its subclasses), and
+ * namespaces the index marks as needing all the classes (e.g. because of a lax wildcard element) use the context for all
+ * the classes. Types that aren't in the index get a context for all the classes, also created the first time it's needed.
+ * The contexts for the namespaces can be created ahead of time in the background (see {@link #WARM_UP_PROPERTY}). The
+ * contexts can also be created in pooled mode (see {@link #POOLED_PROPERTY}).
  *
  * @author Ryan Heaton
  */
 @Provider
 public class EnunciateJaxbContextResolver implements ContextResolver<JAXBContext> {
 
+  /**
+   * The system property that puts the resolver in lazy mode.
+   */
+  public static final String LAZY_PROPERTY = "enunciate.jaxb.lazy";
+
+  /**
+   * The system property that causes a lazy resolver to create the contexts for each namespace in the background.
+   */
+  public static final String WARM_UP_PROPERTY = "enunciate.jaxb.warmUp";
+
+  /**
+   * The system property that causes the resolver to create JAXB contexts that pool their marshallers and unmarshallers
+   * (see {@link EnunciateJaxbContext}). Each context has its own bounded pool rather than one per thread, so a
+   * redeployed application doesn't leave its marshallers (and, through them, its classloader) behind on the container's
+   * threads.
+   */
+  public static final String POOLED_PROPERTY = "enunciate.jaxb.pooled";
+
   private static Logger LOG = Logger.getLogger(EnunciateJaxbContextResolver.class.getName());
 
-  private final JAXBContext context;
+  private final boolean lazy;
+  private final boolean pooled;
+  private final ClassLoader classloader;
+  private final Map<String, NamespaceContext> contextsByType = new HashMap<String, NamespaceContext>();
+  private final List<NamespaceContext> namespaceContexts = new ArrayList<NamespaceContext>();
+  private final EnunciateJaxbNamespacePrefixMapper prefixMapper;
+  private volatile JAXBContext context;
 
   public EnunciateJaxbContextResolver() {
-    this.context = buildJaxbContext();
+    this(Boolean.getBoolean(LAZY_PROPERTY), Boolean.getBoolean(WARM_UP_PROPERTY), Boolean.getBoolean(POOLED_PROPERTY));
+  }
+
+  /**
+   * @param lazy Whether to create the JAXB contexts lazily, by namespace.
+   * @param warmUp Whether to create the (lazy) JAXB contexts for each namespace in the background.
+   */
+  public EnunciateJaxbContextResolver(boolean lazy, boolean warmUp) {
+    this(lazy, warmUp, false);
+  }
+
+  /**
+   * @param lazy Whether to create the JAXB contexts lazily, by namespace.
+   * @param warmUp Whether to create the (lazy) JAXB contexts for each namespace in the background.
+   * @param pooled Whether the JAXB contexts should pool their marshallers and unmarshallers.
+   */
+  public EnunciateJaxbContextResolver(boolean lazy, boolean warmUp, boolean pooled) {
+    this.lazy = lazy;
+    this.pooled = pooled;
+    this.classloader = Thread.currentThread().getContextClassLoader();
+    this.prefixMapper = lazy ? readNamespacePrefixMapper(this.classloader) : null;
+    if (lazy) {
+      readContextIndex();
+      if (warmUp && !this.namespaceContexts.isEmpty()) {
+        startWarmUp();
+      }
+    }
+    else {
+      this.context = buildJaxbContext();
+    }
   }
 
   @Override
   public JAXBContext getContext(Class<?> type) {
-    return this.context;
+    if (this.lazy && type != null) {
+      NamespaceContext namespaceContext = this.contextsByType.get(type.getName());
+      if (namespaceContext != null) {
+        JAXBContext context = namespaceContext.get();
+        if (context != null) {
+          return context;
+        }
+      }
+    }
+
+    return getFullContext();
+  }
+
+  private JAXBContext getFullContext() {
+    JAXBContext context = this.context;
+    if (context == null && this.lazy) {
+      synchronized (this) {
+        context = this.context;
+        if (context == null) {
+          context = buildJaxbContext();
+          this.context = context;
+        }
+      }
+    }
+    return context;
   }
 
   protected JAXBContext buildJaxbContext() {
     List<Class<?>> contextClasses = new ArrayList<Class<?>>();
-    ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+    ClassLoader classloader = this.classloader != null ? this.classloader : Thread.currentThread().getContextClassLoader();
 
     boolean hasContextClasses = false;
-    boolean hasNamespacePrefixes = false;
 
     try {
       Enumeration<URL> contextClassLists = classloader.getResources("/jaxb-context-classes.list");
@@ -67,11 +156,9 @@ public class EnunciateJaxbContextResolver implements ContextResolver<JAXBContext
         BufferedReader reader = new BufferedReader(new InputStreamReader(contextClassList.openStream(), "utf-8"));
         String contextClass = reader.readLine();
         while (contextClass != null) {
-          try {
-            contextClasses.add(classloader.loadClass(contextClass));
-          }
-          catch (Throwable e) {
-            LOG.warning("Unable to load JAXB context class " + contextClass + " (" + e.getMessage() + ")");
+          Class<?> clazz = loadContextClass(classloader, contextClass);
+          if (clazz != null) {
+            contextClasses.add(clazz);
           }
           contextClass = reader.readLine();
         }
@@ -81,6 +168,36 @@ public class EnunciateJaxbContextResolver implements ContextResolver<JAXBContext
       LOG.warning("Unable to read all JAXB context classes (" + e.getMessage() + ")");
     }
 
+    EnunciateJaxbNamespacePrefixMapper prefixMapper = this.prefixMapper;
+    if (prefixMapper == null) {
+      prefixMapper = readNamespacePrefixMapper(classloader);
+    }
+
+    if (hasContextClasses || prefixMapper != null) {
+      if (prefixMapper == null) {
+        prefixMapper = new EnunciateJaxbNamespacePrefixMapper(null, new Properties());
+      }
+
+      try {
+        JAXBContext jaxbContext = JAXBContext.newInstance(contextClasses.toArray(new Class[contextClasses.size()]));
+        return new EnunciateJaxbContext(jaxbContext, prefixMapper, this.pooled);
+      }
+      catch (JAXBException e) {
+        LOG.warning("Unable to construct JAXB classes (" + e.getMessage() + ")");
+      }
+    }
+
+    return null;
+  }
+
+  /**
+   * Read the namespace prefixes exported by Enunciate.
+   *
+   * @param classloader The classloader.
+   * @return The prefix mapper, or null if no namespace prefixes were exported.
+   */
+  protected EnunciateJaxbNamespacePrefixMapper readNamespacePrefixMapper(ClassLoader classloader) {
+    boolean hasNamespacePrefixes = false;
     Properties namespacePrefixes = new Properties();
     String defaultNs = null;
     try {
@@ -101,17 +218,138 @@ public class EnunciateJaxbContextResolver implements ContextResolver<JAXBContext
       LOG.warning("Unable to read all namespace properties (" + e.getMessage() + ")");
     }
 
-    if (hasContextClasses || hasNamespacePrefixes) {
-      try {
-        EnunciateJaxbNamespacePrefixMapper prefixMapper = new EnunciateJaxbNamespacePrefixMapper(defaultNs, namespacePrefixes);
-        JAXBContext jaxbContext = JAXBContext.newInstance(contextClasses.toArray(new Class[contextClasses.size()]));
-        return new EnunciateJaxbContext(jaxbContext, prefixMapper);
+    return hasNamespacePrefixes ? new EnunciateJaxbNamespacePrefixMapper(defaultNs, namespacePrefixes) : null;
+  }
+
+  private void readContextIndex() {
+    Map<String, NamespaceContext> contextsByNamespace = new HashMap<String, NamespaceContext>();
+    try {
+      Enumeration<URL> contextClassIndexes = this.classloader.getResources("/jaxb-context-classes.index");
+      while (contextClassIndexes.hasMoreElements()) {
+        URL contextClassIndex = contextClassIndexes.nextElement();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(contextClassIndex.openStream(), "utf-8"));
+        try {
+          NamespaceContext namespaceContext = null;
+          String line = reader.readLine();
+          while (line != null) {
+            if (line.startsWith("namespace ")) {
+              String namespace = line.substring(10);
+              namespaceContext = contextsByNamespace.get(namespace);
+              if (namespaceContext == null) {
+                namespaceContext = new NamespaceContext(namespace);
+                contextsByNamespace.put(namespace, namespaceContext);
+                this.namespaceContexts.add(namespaceContext);
+              }
+            }
+            else if (namespaceContext != null && line.startsWith("include ")) {
+              namespaceContext.includedNamespaces.add(line.substring(8));
+            }
+            else if (namespaceContext != null && line.equals("include-all")) {
+              namespaceContext.includeAll = true;
+            }
+            else if (namespaceContext != null && (line.startsWith("class ") || line.startsWith("type "))) {
+              String className = line.substring(line.indexOf(' ') + 1);
+              namespaceContext.classNames.add(className);
+              if (!this.contextsByType.containsKey(className)) {
+                this.contextsByType.put(className, namespaceContext);
+              }
+            }
+            line = reader.readLine();
+          }
+        }
+        finally {
+          reader.close();
+        }
       }
-      catch (JAXBException e) {
-        LOG.warning("Unable to construct JAXB classes (" + e.getMessage() + ")");
+    }
+    catch (IOException e) {
+      LOG.warning("Unable to read the JAXB context class index (" + e.getMessage() + ")");
+    }
+
+    for (NamespaceContext namespaceContext : this.namespaceContexts) {
+      for (String includedNamespace : namespaceContext.includedNamespaces) {
+        NamespaceContext included = contextsByNamespace.get(includedNamespace);
+        if (included != null) {
+          namespaceContext.included.add(included);
+        }
       }
     }
 
-    return null;
+    if (this.namespaceContexts.isEmpty()) {
+      LOG.info("No JAXB context class index found; a single JAXB context will be created when it's first needed.");
+    }
+  }
+
+  private void startWarmUp() {
+    Thread warmUp = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (NamespaceContext namespaceContext : namespaceContexts) {
+          namespaceContext.get();
+        }
+      }
+    }, "enunciate-jaxb-context-warm-up");
+    warmUp.setDaemon(true);
+    warmUp.setContextClassLoader(this.classloader);
+    warmUp.start();
+  }
+
+  private static Class<?> loadContextClass(ClassLoader classloader, String contextClass) {
+    try {
+      return classloader.loadClass(contextClass);
+    }
+    catch (Throwable e) {
+      LOG.warning("Unable to load JAXB context class " + contextClass + " (" + e.getMessage() + ")");
+      return null;
+    }
+  }
+
+  /**
+   * The (lazily-created) JAXB context for the classes of a namespace and of the namespaces it includes.
+   */
+  private final class NamespaceContext {
+
+    private final String namespace;
+    private final List<String> classNames = new ArrayList<String>();
+    private final List<String> includedNamespaces = new ArrayList<String>();
+    private final List<NamespaceContext> included = new ArrayList<NamespaceContext>();
+    private boolean includeAll = false;
+    private JAXBContext context;
+    private boolean failed = false;
+
+    private NamespaceContext(String namespace) {
+      this.namespace = namespace;
+    }
+
+    synchronized JAXBContext get() {
+      if (this.includeAll) {
+        return getFullContext();
+      }
+
+      if (this.context == null && !this.failed) {
+        Set<String> classNames = new LinkedHashSet<String>(this.classNames);
+        for (NamespaceContext included : this.included) {
+          classNames.addAll(included.classNames);
+        }
+
+        List<Class<?>> contextClasses = new ArrayList<Class<?>>();
+        for (String className : classNames) {
+          Class<?> clazz = loadContextClass(classloader, className);
+          if (clazz != null) {
+            contextClasses.add(clazz);
+          }
+        }
+
+        try {
+          JAXBContext jaxbContext = JAXBContext.newInstance(contextClasses.toArray(new Class[contextClasses.size()]));
+          this.context = new EnunciateJaxbContext(jaxbContext, prefixMapper != null ? prefixMapper : new EnunciateJaxbNamespacePrefixMapper(null, new Properties()), pooled);
+        }
+        catch (JAXBException e) {
+          LOG.warning("Unable to construct JAXB context for namespace '" + this.namespace + "' (" + e.getMessage() + "); the JAXB context for all classes will be used.");
+          this.failed = true;
+        }
+      }
+      return this.context;
+    }
   }
 }
@@ -17,97 +17,461 @@ package com.webcohesion.enunciate.rt;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import javax.xml.namespace.NamespaceContext;
 import javax.xml.namespace.QName;
 import javax.xml.stream.*;
 import javax.xml.stream.events.*;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
 
 /**
+ * Serves the IDL files (WSDL, WADL, schemas) of the application, replacing the base address they were generated with with
+ * the base address they're requested at.<br/><br/>
+ *
+ * Rendered IDL is cached per IDL file and base address (the number of cached renderings is bounded by the "idl-cache-size"
+ * init parameter, 0 to disable the cache), and is served with an entity tag and a last-modified date so clients can make
+ * conditional requests, gzipped to the clients that accept it. A cached rendering is rendered again if the IDL file has
+ * been modified since (e.g. the application was redeployed), and is only gzipped once a client accepts it. If Enunciate
+ * wrote an index of the offsets of the assumed base address alongside the IDL file, the real base address is spliced in
+ * at those offsets instead of parsing the IDL.
+ *
  * @author Ryan Heaton
  */
 public class IDLFilter implements Filter {
 
+  /**
+   * The default number of rendered IDL files to cache.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 32;
+
+  /**
+   * The suffix of the index of the offsets of the assumed base uri, written by Enunciate alongside the IDL ("[idl].offsets").
+   * The index is a properties file with the length and encoding of the IDL, the assumed base uri, the span of the
+   * "enunciate-assumed-base-uri" processing instruction ("instruction=start,end"), and the offsets of the assumed base uri in
+   * the text and attribute values of the IDL ("offsets=o1,o2,...").
+   */
+  public static final String INDEX_SUFFIX = ".offsets";
+
   private ServletContext servletContext = null;
   private XMLInputFactory inputFactory;
   private XMLOutputFactory outputFactory;
+  private Map<String, CachedIDL> renderedIDLs;
 
   public void init(FilterConfig filterConfig) throws ServletException {
     this.inputFactory = XMLInputFactory.newInstance();
     this.outputFactory = XMLOutputFactory.newInstance();
 
     this.servletContext = filterConfig.getServletContext();
+
+    int cacheSize = DEFAULT_CACHE_SIZE;
+    String cacheSizeParam = filterConfig.getInitParameter("idl-cache-size");
+    if (cacheSizeParam != null) {
+      try {
+        cacheSize = Integer.parseInt(cacheSizeParam.trim());
+      }
+      catch (NumberFormatException e) {
+        throw new ServletException("Invalid idl-cache-size: " + cacheSizeParam);
+      }
+    }
+
+    final int maxEntries = cacheSize;
+    this.renderedIDLs = maxEntries <= 0 ? null : new LinkedHashMap<String, CachedIDL>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, CachedIDL> eldest) {
+        return size() > maxEntries;
+      }
+    };
   }
 
   public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain chain) throws IOException, ServletException {
     HttpServletRequest request = (HttpServletRequest) servletRequest;
     RequestURIParts parts = parseParts(request);
     if (parts != null) {
-      String realBaseAddress = parts.getBaseAddress();
-      String idlPath = parts.getFilePath();
-      InputStream idl = this.servletContext.getResourceAsStream(idlPath);
+      RenderedIDL idl = findRenderedIDL(parts.getFilePath(), parts.getBaseAddress());
       if (idl != null) {
-        servletResponse.setContentType("text/xml");
-        String assumedBaseAddress = this.servletContext.getInitParameter("assumed-base-uri");
-        try {
-          XMLEventReader eventReader = this.inputFactory.createXMLEventReader(idl);
-          XMLEventWriter eventWriter = this.outputFactory.createXMLEventWriter(servletResponse.getWriter());
-          while (eventReader.hasNext()) {
-            XMLEvent event = eventReader.nextEvent();
-            if (event.isProcessingInstruction()) {
-              String target = ((ProcessingInstruction) event).getTarget();
-              if ("enunciate-assumed-base-uri".equals(target)) {
-                assumedBaseAddress = ((ProcessingInstruction) event).getData();
-                if (assumedBaseAddress.endsWith("/")) {
-                  assumedBaseAddress = assumedBaseAddress.substring(0, assumedBaseAddress.length() - 1);
-                }
-              }
-              continue;
-            }
-            else if (event.getEventType() == XMLStreamConstants.CDATA || event.getEventType() == XMLStreamConstants.CHARACTERS) {
-              String data = ((Characters) event).getData();
-              if (assumedBaseAddress != null && data.contains(assumedBaseAddress)) {
-                data = data.replace(assumedBaseAddress, realBaseAddress);
-                event = new DelegatingCharacters(((Characters) event), data);
-              }
-            }
-            else if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
-              List<Attribute> attributes = new ArrayList<Attribute>();
-              Iterator attributesIt = ((StartElement) event).getAttributes();
-              while (attributesIt.hasNext()) {
-                Attribute attribute = (Attribute) attributesIt.next();
-                String value = attribute.getValue();
-                if (assumedBaseAddress != null && value.contains(assumedBaseAddress)) {
-                  value = value.replace(assumedBaseAddress, realBaseAddress);
-                  attribute = new DelegatingAttribute(attribute, value);
-                  event = new DelegatingStartElement(((StartElement) event), attributes);
-                }
-                attributes.add(attribute);
-              }
-            }
+        serve(idl, request, servletResponse);
+        return;
+      }
+    }
 
-            eventWriter.add(event);
-          }
+    chain.doFilter(servletRequest, servletResponse);
+  }
+
+  /**
+   * Find the IDL at the specified path, rendered for the specified base address.
+   *
+   * @param idlPath The path to the IDL.
+   * @param realBaseAddress The base address the IDL was requested at.
+   * @return The rendered IDL, or null if there's no IDL at the specified path.
+   */
+  protected RenderedIDL findRenderedIDL(String idlPath, String realBaseAddress) throws IOException, ServletException {
+    String key = idlPath + ' ' + realBaseAddress;
+    long sourceModified = findSourceModified(idlPath);
+    RenderedIDL rendered = null;
+    if (this.renderedIDLs != null) {
+      CachedIDL cached;
+      synchronized (this.renderedIDLs) {
+        cached = this.renderedIDLs.get(key);
+      }
+
+      if (cached != null && cached.sourceModified == sourceModified) {
+        rendered = cached.idl;
+      }
+    }
 
-          eventReader.close();
-          eventWriter.flush();
-          eventWriter.close();
-          return;
+    if (rendered == null) {
+      //if unknown, say it was modified when it was rendered.
+      long lastModified = sourceModified > 0 ? sourceModified : System.currentTimeMillis();
+      //http dates are only precise to the second.
+      lastModified -= lastModified % 1000;
+      rendered = renderFromIndex(idlPath, realBaseAddress, lastModified);
+      if (rendered == null) {
+        InputStream idl = this.servletContext.getResourceAsStream(idlPath);
+        if (idl == null) {
+          return null;
+        }
+
+        try {
+          rendered = render(idl, realBaseAddress, lastModified);
         }
         catch (XMLStreamException e) {
           throw new ServletException(e);
         }
+        finally {
+          idl.close();
+        }
+      }
+
+      if (this.renderedIDLs != null) {
+        synchronized (this.renderedIDLs) {
+          this.renderedIDLs.put(key, new CachedIDL(rendered, sourceModified));
+        }
       }
     }
 
-    chain.doFilter(servletRequest, servletResponse);
+    return rendered;
+  }
+
+  /**
+   * Find when the IDL at the specified path was last modified.
+   *
+   * @param idlPath The path to the IDL.
+   * @return When the IDL was last modified, or 0 if unknown.
+   */
+  private long findSourceModified(String idlPath) {
+    String realPath = this.servletContext.getRealPath(idlPath);
+    File file = realPath == null ? null : new File(realPath);
+    if (file != null && file.isFile()) {
+      return file.lastModified();
+    }
+
+    try {
+      URL resource = this.servletContext.getResource(idlPath);
+      if (resource != null) {
+        return Math.max(0, resource.openConnection().getLastModified());
+      }
+    }
+    catch (IOException e) {
+      //fall through...
+    }
+
+    return 0;
+  }
+
+  /**
+   * Render the IDL for the specified base address by splicing it into the IDL at the offsets recorded by the index that
+   * Enunciate writes alongside the IDL (see {@link #INDEX_SUFFIX}), without parsing the IDL.
+   *
+   * @param idlPath The path to the IDL.
+   * @param realBaseAddress The base address the IDL was requested at.
+   * @param lastModified When the IDL was last modified.
+   * @return The rendered IDL, or null if there's no index for the IDL or the index doesn't match the IDL.
+   */
+  protected RenderedIDL renderFromIndex(String idlPath, String realBaseAddress, long lastModified) throws IOException {
+    BaseUriIndex index = BaseUriIndex.load(this.servletContext.getResourceAsStream(idlPath + INDEX_SUFFIX));
+    if (index == null) {
+      return null;
+    }
+
+    byte[] replacement = escape(realBaseAddress).getBytes(index.encoding);
+    int growth = index.offsets.length * Math.max(0, replacement.length - index.assumedBaseUriLength);
+    ByteArrayOutputStream out = new ByteArrayOutputStream((int) index.length + growth);
+
+    String realPath = this.servletContext.getRealPath(idlPath);
+    File file = realPath == null ? null : new File(realPath);
+    InputStream in;
+    if (file != null && file.isFile()) {
+      if (file.length() != index.length) {
+        return null;
+      }
+      in = new FileInputStream(file);
+    }
+    else {
+      in = this.servletContext.getResourceAsStream(idlPath);
+      if (in == null) {
+        return null;
+      }
+    }
+
+    try {
+      if (!splice(in, index, replacement, out)) {
+        return null;
+      }
+    }
+    finally {
+      in.close();
+    }
+
+    return new RenderedIDL(out.toByteArray(), "text/xml;charset=" + index.encoding, lastModified);
+  }
+
+  /**
+   * Copy the IDL, writing the replacement in place of the assumed base uri and dropping the processing instruction.
+   *
+   * @return Whether the IDL was as long as the index says.
+   */
+  private static boolean splice(InputStream in, BaseUriIndex index, byte[] replacement, OutputStream out) throws IOException {
+    byte[] buffer = new byte[8192];
+    long position = 0;
+    for (long offset : index.offsets) {
+      if (!copy(in, offset - position, out, buffer)) {
+        return false;
+      }
+
+      if (offset == index.instructionStart) {
+        position = index.instructionEnd;
+      }
+      else {
+        out.write(replacement);
+        position = offset + index.assumedBaseUriLength;
+      }
+
+      if (!copy(in, position - offset, null, buffer)) {
+        return false;
+      }
+    }
+    return copy(in, index.length - position, out, buffer) && in.read() < 0;
+  }
+
+  private static boolean copy(InputStream in, long count, OutputStream out, byte[] buffer) throws IOException {
+    while (count > 0) {
+      int len = in.read(buffer, 0, (int) Math.min(buffer.length, count));
+      if (len < 0) {
+        return false;
+      }
+
+      if (out != null) {
+        out.write(buffer, 0, len);
+      }
+      count -= len;
+    }
+    return true;
+  }
+
+  private static String escape(String value) {
+    StringBuilder escaped = new StringBuilder(value.length());
+    for (int i = 0; i < value.length(); i++) {
+      char ch = value.charAt(i);
+      switch (ch) {
+        case '&':
+          escaped.append("&amp;");
+          break;
+        case '<':
+          escaped.append("&lt;");
+          break;
+        case '>':
+          escaped.append("&gt;");
+          break;
+        case '"':
+          escaped.append("&quot;");
+          break;
+        case '\'':
+          escaped.append("&apos;");
+          break;
+        default:
+          escaped.append(ch);
+      }
+    }
+    return escaped.toString();
+  }
+
+  /**
+   * Render the IDL for the specified base address.
+   *
+   * @param idl The IDL.
+   * @param realBaseAddress The base address the IDL was requested at.
+   * @param lastModified When the IDL was last modified.
+   * @return The rendered IDL.
+   */
+  protected RenderedIDL render(InputStream idl, String realBaseAddress, long lastModified) throws XMLStreamException, IOException {
+    StringWriter out = new StringWriter();
+    String encoding = filter(idl, out, realBaseAddress);
+    return new RenderedIDL(out.toString().getBytes(encoding), "text/xml;charset=" + encoding, lastModified);
+  }
+
+  /**
+   * Copy the IDL to the specified writer, replacing the assumed base address with the real base address.
+   *
+   * @param idl The IDL.
+   * @param out The writer.
+   * @param realBaseAddress The real base address.
+   * @return The character encoding declared by the IDL (which it is to be written in).
+   */
+  protected String filter(InputStream idl, Writer out, String realBaseAddress) throws XMLStreamException {
+    String encoding = "UTF-8";
+    String assumedBaseAddress = this.servletContext.getInitParameter("assumed-base-uri");
+    XMLEventReader eventReader = this.inputFactory.createXMLEventReader(idl);
+    XMLEventWriter eventWriter = this.outputFactory.createXMLEventWriter(out);
+    while (eventReader.hasNext()) {
+      XMLEvent event = eventReader.nextEvent();
+      if (event.isStartDocument() && ((StartDocument) event).encodingSet()) {
+        encoding = ((StartDocument) event).getCharacterEncodingScheme();
+      }
+      else if (event.isProcessingInstruction()) {
+        String target = ((ProcessingInstruction) event).getTarget();
+        if ("enunciate-assumed-base-uri".equals(target)) {
+          assumedBaseAddress = ((ProcessingInstruction) event).getData();
+          if (assumedBaseAddress.endsWith("/")) {
+            assumedBaseAddress = assumedBaseAddress.substring(0, assumedBaseAddress.length() - 1);
+          }
+        }
+        continue;
+      }
+      else if (event.getEventType() == XMLStreamConstants.CDATA || event.getEventType() == XMLStreamConstants.CHARACTERS) {
+        String data = ((Characters) event).getData();
+        if (assumedBaseAddress != null && data.contains(assumedBaseAddress)) {
+          data = data.replace(assumedBaseAddress, realBaseAddress);
+          event = new DelegatingCharacters(((Characters) event), data);
+        }
+      }
+      else if (event.getEventType() == XMLStreamConstants.START_ELEMENT) {
+        List<Attribute> attributes = new ArrayList<Attribute>();
+        Iterator attributesIt = ((StartElement) event).getAttributes();
+        while (attributesIt.hasNext()) {
+          Attribute attribute = (Attribute) attributesIt.next();
+          String value = attribute.getValue();
+          if (assumedBaseAddress != null && value.contains(assumedBaseAddress)) {
+            value = value.replace(assumedBaseAddress, realBaseAddress);
+            attribute = new DelegatingAttribute(attribute, value);
+            event = new DelegatingStartElement(((StartElement) event), attributes);
+          }
+          attributes.add(attribute);
+        }
+      }
+
+      eventWriter.add(event);
+    }
+
+    eventReader.close();
+    eventWriter.flush();
+    eventWriter.close();
+    return encoding;
+  }
+
+  /**
+   * Serve the rendered IDL, honoring conditional requests and gzip content encoding.
+   *
+   * @param idl The rendered IDL.
+   * @param request The request.
+   * @param servletResponse The response.
+   */
+  protected void serve(RenderedIDL idl, HttpServletRequest request, ServletResponse servletResponse) throws IOException {
+    boolean gzip = acceptsGzip(request);
+    if (servletResponse instanceof HttpServletResponse) {
+      HttpServletResponse response = (HttpServletResponse) servletResponse;
+      String etag = gzip ? idl.getGzippedETag() : idl.getETag();
+      response.setHeader("ETag", etag);
+      response.setDateHeader("Last-Modified", idl.getLastModified());
+      response.setHeader("Vary", "Accept-Encoding");
+      if (isNotModified(request, etag, idl.getLastModified())) {
+        response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+        return;
+      }
+
+      if (gzip) {
+        response.setHeader("Content-Encoding", "gzip");
+      }
+    }
+    else {
+      gzip = false;
+    }
+
+    byte[] content = gzip ? idl.getGzippedContent() : idl.getContent();
+    servletResponse.setContentType(idl.getContentType());
+    servletResponse.setContentLength(content.length);
+    servletResponse.getOutputStream().write(content);
+  }
+
+  private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+    String ifNoneMatch = request.getHeader("If-None-Match");
+    if (ifNoneMatch != null) {
+      for (String tag : ifNoneMatch.split(",")) {
+        tag = tag.trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if ("*".equals(tag) || etag.equals(tag)) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    long ifModifiedSince;
+    try {
+      ifModifiedSince = request.getDateHeader("If-Modified-Since");
+    }
+    catch (IllegalArgumentException e) {
+      return false;
+    }
+    return ifModifiedSince > 0 && lastModified <= ifModifiedSince;
+  }
+
+  private static boolean acceptsGzip(HttpServletRequest request) {
+    String acceptEncoding = request.getHeader("Accept-Encoding");
+    if (acceptEncoding == null) {
+      return false;
+    }
+
+    for (String coding : acceptEncoding.split(",")) {
+      String[] params = coding.split(";");
+      String name = params[0].trim();
+      if ("gzip".equalsIgnoreCase(name) || "x-gzip".equalsIgnoreCase(name)) {
+        for (int i = 1; i < params.length; i++) {
+          String param = params[i].trim();
+          if (param.startsWith("q=")) {
+            try {
+              return Double.parseDouble(param.substring(2).trim()) > 0;
+            }
+            catch (NumberFormatException e) {
+              return false;
+            }
+          }
+        }
+        return true;
+      }
+    }
+    return false;
   }
 
   protected RequestURIParts parseParts(HttpServletRequest request) {
@@ -158,6 +522,162 @@ public class IDLFilter implements Filter {
     }
   }
 
+  /**
+   * The offsets of the assumed base uri in an IDL file.
+   */
+  private static final class BaseUriIndex {
+
+    long length;
+    String encoding;
+    int assumedBaseUriLength;
+    long instructionStart;
+    long instructionEnd;
+
+    /**
+     * The (ascending) offsets of the assumed base uri, and of the assumed base uri processing instruction.
+     */
+    long[] offsets;
+
+    static BaseUriIndex load(InputStream stream) throws IOException {
+      if (stream == null) {
+        return null;
+      }
+
+      Properties properties = new Properties();
+      try {
+        properties.load(stream);
+      }
+      finally {
+        stream.close();
+      }
+
+      try {
+        BaseUriIndex index = new BaseUriIndex();
+        index.length = Long.parseLong(properties.getProperty("length"));
+        index.encoding = properties.getProperty("encoding", "UTF-8");
+        index.assumedBaseUriLength = properties.getProperty("assumed-base-uri").getBytes(index.encoding).length;
+        String[] instruction = properties.getProperty("instruction").split(",");
+        index.instructionStart = Long.parseLong(instruction[0].trim());
+        index.instructionEnd = Long.parseLong(instruction[1].trim());
+
+        String offsetList = properties.getProperty("offsets", "").trim();
+        String[] offsets = offsetList.length() == 0 ? new String[0] : offsetList.split(",");
+        index.offsets = new long[offsets.length + 1];
+        index.offsets[0] = index.instructionStart;
+        for (int i = 0; i < offsets.length; i++) {
+          index.offsets[i + 1] = Long.parseLong(offsets[i].trim());
+        }
+        Arrays.sort(index.offsets);
+
+        //make sure none of the spliced spans overlap.
+        long position = 0;
+        for (long offset : index.offsets) {
+          if (offset < position) {
+            return null;
+          }
+          position = offset == index.instructionStart ? index.instructionEnd : offset + index.assumedBaseUriLength;
+        }
+        return position <= index.length ? index : null;
+      }
+      catch (RuntimeException e) {
+        //malformed index.
+        return null;
+      }
+    }
+  }
+
+  /**
+   * A cached rendering, and when the IDL was last modified when it was rendered (0 if unknown).
+   */
+  private static final class CachedIDL {
+
+    final RenderedIDL idl;
+    final long sourceModified;
+
+    CachedIDL(RenderedIDL idl, long sourceModified) {
+      this.idl = idl;
+      this.sourceModified = sourceModified;
+    }
+  }
+
+  /**
+   * IDL rendered for a specific base address.
+   */
+  public static class RenderedIDL {
+
+    private final byte[] content;
+    private volatile byte[] gzippedContent;
+    private final String contentType;
+    private final String etag;
+    private final String gzippedETag;
+    private final long lastModified;
+
+    public RenderedIDL(byte[] content, String contentType, long lastModified) {
+      this.content = content;
+      this.contentType = contentType;
+      this.lastModified = lastModified;
+
+      String hash = hash(content);
+      this.etag = '"' + hash + '"';
+      this.gzippedETag = '"' + hash + "-gzip\"";
+    }
+
+    private static String hash(byte[] content) {
+      MessageDigest digest;
+      try {
+        digest = MessageDigest.getInstance("MD5");
+      }
+      catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+
+      StringBuilder hex = new StringBuilder();
+      for (byte b : digest.digest(content)) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    }
+
+    public byte[] getContent() {
+      return content;
+    }
+
+    /**
+     * The gzipped content, compressed the first time it's needed.
+     *
+     * @return The gzipped content.
+     */
+    public byte[] getGzippedContent() throws IOException {
+      byte[] gzippedContent = this.gzippedContent;
+      if (gzippedContent == null) {
+        //at worst, concurrent requests compress it more than once.
+        ByteArrayOutputStream gzipped = new ByteArrayOutputStream(this.content.length / 4 + 64);
+        GZIPOutputStream out = new GZIPOutputStream(gzipped);
+        out.write(this.content);
+        out.close();
+        gzippedContent = gzipped.toByteArray();
+        this.gzippedContent = gzippedContent;
+      }
+      return gzippedContent;
+    }
+
+    public String getContentType() {
+      return contentType;
+    }
+
+    public String getETag() {
+      return etag;
+    }
+
+    public String getGzippedETag() {
+      return gzippedETag;
+    }
+
+    public long getLastModified() {
+      return lastModified;
+    }
+  }
+
   public static class DelegatingXMLEvent implements XMLEvent {
 
     private final XMLEvent delegate;
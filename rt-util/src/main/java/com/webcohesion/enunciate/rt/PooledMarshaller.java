@@ -0,0 +1,366 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.rt;
+
+import org.w3c.dom.Node;
+import org.xml.sax.ContentHandler;
+
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.PropertyException;
+import javax.xml.bind.ValidationEventHandler;
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.bind.attachment.AttachmentMarshaller;
+import javax.xml.stream.XMLEventWriter;
+import javax.xml.stream.XMLStreamWriter;
+import javax.xml.transform.Result;
+import javax.xml.validation.Schema;
+import java.io.File;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A marshaller handed out by a pooled {@link EnunciateJaxbContext}. It only keeps track of how it's configured. Each
+ * marshal checks a marshaller out of the pool, configures it, resets it afterwards and checks it
+ * back in. So each marshaller handed out keeps its own configuration, and a pooled marshaller is only ever used by one
+ * caller at a time.
+ *
+ * @author Ryan Heaton
+ */
+final class PooledMarshaller implements Marshaller {
+
+  private final EnunciateJaxbContext context;
+  private final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+  private final Map<String, Object> originalProperties = new HashMap<String, Object>();
+  private final Map<Class<? extends XmlAdapter>, XmlAdapter> adapters = new LinkedHashMap<Class<? extends XmlAdapter>, XmlAdapter>();
+  private final Map<Class<? extends XmlAdapter>, XmlAdapter> originalAdapters = new HashMap<Class<? extends XmlAdapter>, XmlAdapter>();
+  private ValidationEventHandler eventHandler;
+  private AttachmentMarshaller attachmentMarshaller;
+  private Schema schema;
+  private Listener listener;
+  private boolean restorable = true;
+
+  PooledMarshaller(EnunciateJaxbContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Check a marshaller out of the pool and configure it like this one.
+   *
+   * @return The configured marshaller.
+   */
+  private Marshaller checkOut() throws JAXBException {
+    Marshaller delegate = this.context.checkOutMarshaller();
+    boolean configured = false;
+    try {
+      for (Map.Entry<String, Object> property : this.properties.entrySet()) {
+        delegate.setProperty(property.getKey(), property.getValue());
+      }
+      for (Map.Entry<Class<? extends XmlAdapter>, XmlAdapter> adapter : this.adapters.entrySet()) {
+        setAdapter(delegate, adapter.getKey(), adapter.getValue());
+      }
+      delegate.setEventHandler(this.eventHandler);
+      delegate.setAttachmentMarshaller(this.attachmentMarshaller);
+      delegate.setSchema(this.schema);
+      delegate.setListener(this.listener);
+      configured = true;
+      return delegate;
+    }
+    finally {
+      if (!configured) {
+        //reset whatever was configured and check it back in (or drop it if it can't be reset).
+        checkIn(delegate);
+      }
+    }
+  }
+
+  /**
+   * Reset a marshaller to its original configuration and check it back into the pool. A marshaller that can't be reset
+   * is left for the garbage collector.
+   *
+   * @param delegate The marshaller.
+   */
+  private void checkIn(Marshaller delegate) {
+    if (!this.restorable) {
+      return;
+    }
+
+    try {
+      for (Map.Entry<String, Object> property : this.originalProperties.entrySet()) {
+        delegate.setProperty(property.getKey(), property.getValue());
+      }
+      for (Map.Entry<Class<? extends XmlAdapter>, XmlAdapter> adapter : this.originalAdapters.entrySet()) {
+        setAdapter(delegate, adapter.getKey(), adapter.getValue());
+      }
+      delegate.setEventHandler(null);
+      delegate.setAttachmentMarshaller(null);
+      delegate.setSchema(null);
+      delegate.setListener(null);
+    }
+    catch (JAXBException e) {
+      return;
+    }
+    catch (RuntimeException e) {
+      return;
+    }
+
+    this.context.checkIn(delegate);
+  }
+
+  private static <A extends XmlAdapter> void setAdapter(Marshaller marshaller, Class<A> type, XmlAdapter adapter) {
+    marshaller.setAdapter(type, type.cast(adapter));
+  }
+
+  public void marshal(Object jaxbElement, Result result) throws JAXBException {
+    Marshaller delegate = checkOut();
+    try {
+      delegate.marshal(jaxbElement, result);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public void marshal(Object jaxbElement, OutputStream os) throws JAXBException {
+    Marshaller delegate = checkOut();
+    try {
+      delegate.marshal(jaxbElement, os);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public void marshal(Object jaxbElement, File output) throws JAXBException {
+    Marshaller delegate = checkOut();
+    try {
+      delegate.marshal(jaxbElement, output);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public void marshal(Object jaxbElement, Writer writer) throws JAXBException {
+    Marshaller delegate = checkOut();
+    try {
+      delegate.marshal(jaxbElement, writer);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public void marshal(Object jaxbElement, ContentHandler handler) throws JAXBException {
+    Marshaller delegate = checkOut();
+    try {
+      delegate.marshal(jaxbElement, handler);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public void marshal(Object jaxbElement, Node node) throws JAXBException {
+    Marshaller delegate = checkOut();
+    try {
+      delegate.marshal(jaxbElement, node);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public void marshal(Object jaxbElement, XMLStreamWriter writer) throws JAXBException {
+    Marshaller delegate = checkOut();
+    try {
+      delegate.marshal(jaxbElement, writer);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public void marshal(Object jaxbElement, XMLEventWriter writer) throws JAXBException {
+    Marshaller delegate = checkOut();
+    try {
+      delegate.marshal(jaxbElement, writer);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public Node getNode(Object contentTree) throws JAXBException {
+    Marshaller delegate = checkOut();
+    try {
+      return delegate.getNode(contentTree);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public void setProperty(String name, Object value) throws PropertyException {
+    //set it on a pooled marshaller first so an unsupported property fails here, like it would on any marshaller.
+    Marshaller delegate;
+    try {
+      delegate = this.context.checkOutMarshaller();
+    }
+    catch (JAXBException e) {
+      throw new PropertyException(e);
+    }
+
+    boolean restored = false;
+    try {
+      Object original;
+      try {
+        original = delegate.getProperty(name);
+      }
+      catch (PropertyException e) {
+        //can't be restored.
+        this.restorable = false;
+        delegate.setProperty(name, value);
+        this.properties.put(name, value);
+        return;
+      }
+
+      delegate.setProperty(name, value);
+      delegate.setProperty(name, original);
+      restored = true;
+      if (!this.originalProperties.containsKey(name)) {
+        this.originalProperties.put(name, original);
+      }
+      this.properties.put(name, value);
+    }
+    finally {
+      if (restored) {
+        this.context.checkIn(delegate);
+      }
+      //otherwise, it may still have the property set, so it's dropped rather than pooled.
+    }
+  }
+
+  public Object getProperty(String name) throws PropertyException {
+    if (this.properties.containsKey(name)) {
+      return this.properties.get(name);
+    }
+
+    Marshaller delegate;
+    try {
+      delegate = this.context.checkOutMarshaller();
+    }
+    catch (JAXBException e) {
+      throw new PropertyException(e);
+    }
+
+    try {
+      return delegate.getProperty(name);
+    }
+    finally {
+      this.context.checkIn(delegate);
+    }
+  }
+
+  public void setEventHandler(ValidationEventHandler handler) throws JAXBException {
+    this.eventHandler = handler;
+  }
+
+  public ValidationEventHandler getEventHandler() throws JAXBException {
+    if (this.eventHandler != null) {
+      return this.eventHandler;
+    }
+
+    Marshaller delegate = this.context.checkOutMarshaller();
+    try {
+      return delegate.getEventHandler();
+    }
+    finally {
+      this.context.checkIn(delegate);
+    }
+  }
+
+  public void setAdapter(XmlAdapter adapter) {
+    if (adapter == null) {
+      throw new IllegalArgumentException();
+    }
+    setAdapterOfType(adapter.getClass(), adapter);
+  }
+
+  private <A extends XmlAdapter> void setAdapterOfType(Class<A> type, XmlAdapter adapter) {
+    setAdapter(type, type.cast(adapter));
+  }
+
+  public <A extends XmlAdapter> void setAdapter(Class<A> type, A adapter) {
+    if (type == null) {
+      throw new IllegalArgumentException();
+    }
+
+    if (!this.originalAdapters.containsKey(type)) {
+      //pooled marshallers are all configured the same, so the original adapter of any of them will do.
+      this.originalAdapters.put(type, getAdapter(type));
+    }
+    this.adapters.put(type, adapter);
+  }
+
+  public <A extends XmlAdapter> A getAdapter(Class<A> type) {
+    if (this.adapters.containsKey(type)) {
+      return type.cast(this.adapters.get(type));
+    }
+
+    Marshaller delegate;
+    try {
+      delegate = this.context.checkOutMarshaller();
+    }
+    catch (JAXBException e) {
+      throw new IllegalStateException(e);
+    }
+
+    try {
+      return delegate.getAdapter(type);
+    }
+    finally {
+      this.context.checkIn(delegate);
+    }
+  }
+
+  public void setAttachmentMarshaller(AttachmentMarshaller am) {
+    this.attachmentMarshaller = am;
+  }
+
+  public AttachmentMarshaller getAttachmentMarshaller() {
+    return this.attachmentMarshaller;
+  }
+
+  public void setSchema(Schema schema) {
+    this.schema = schema;
+  }
+
+  public Schema getSchema() {
+    return this.schema;
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  public Listener getListener() {
+    return this.listener;
+  }
+}
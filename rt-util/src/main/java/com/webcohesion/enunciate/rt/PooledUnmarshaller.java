@@ -0,0 +1,447 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.rt;
+
+import org.w3c.dom.Node;
+import org.xml.sax.InputSource;
+
+import javax.xml.bind.*;
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+import javax.xml.bind.attachment.AttachmentUnmarshaller;
+import javax.xml.stream.XMLEventReader;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.Source;
+import javax.xml.validation.Schema;
+import java.io.File;
+import java.io.InputStream;
+import java.io.Reader;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An unmarshaller handed out by a pooled {@link EnunciateJaxbContext}. It only keeps track of how it's configured. Each
+ * unmarshal checks an unmarshaller out of the pool, configures it, resets it afterwards and checks
+ * it back in. So each unmarshaller handed out keeps its own configuration, and a pooled unmarshaller is only ever used by
+ * one caller at a time.
+ *
+ * @author Ryan Heaton
+ */
+final class PooledUnmarshaller implements Unmarshaller {
+
+  private final EnunciateJaxbContext context;
+  private final Map<String, Object> properties = new LinkedHashMap<String, Object>();
+  private final Map<String, Object> originalProperties = new HashMap<String, Object>();
+  private final Map<Class<? extends XmlAdapter>, XmlAdapter> adapters = new LinkedHashMap<Class<? extends XmlAdapter>, XmlAdapter>();
+  private final Map<Class<? extends XmlAdapter>, XmlAdapter> originalAdapters = new HashMap<Class<? extends XmlAdapter>, XmlAdapter>();
+  private Boolean validating = null;
+  private Boolean originalValidating = null;
+  private ValidationEventHandler eventHandler;
+  private AttachmentUnmarshaller attachmentUnmarshaller;
+  private Schema schema;
+  private Listener listener;
+  private boolean restorable = true;
+
+  PooledUnmarshaller(EnunciateJaxbContext context) {
+    this.context = context;
+  }
+
+  /**
+   * Check an unmarshaller out of the pool and configure it like this one.
+   *
+   * @return The configured unmarshaller.
+   */
+  @SuppressWarnings ( "deprecation" )
+  private Unmarshaller checkOut() throws JAXBException {
+    Unmarshaller delegate = this.context.checkOutUnmarshaller();
+    boolean configured = false;
+    try {
+      for (Map.Entry<String, Object> property : this.properties.entrySet()) {
+        delegate.setProperty(property.getKey(), property.getValue());
+      }
+      for (Map.Entry<Class<? extends XmlAdapter>, XmlAdapter> adapter : this.adapters.entrySet()) {
+        setAdapter(delegate, adapter.getKey(), adapter.getValue());
+      }
+      if (this.validating != null) {
+        delegate.setValidating(this.validating);
+      }
+      delegate.setEventHandler(this.eventHandler);
+      delegate.setAttachmentUnmarshaller(this.attachmentUnmarshaller);
+      delegate.setSchema(this.schema);
+      delegate.setListener(this.listener);
+      configured = true;
+      return delegate;
+    }
+    finally {
+      if (!configured) {
+        //reset whatever was configured and check it back in (or drop it if it can't be reset).
+        checkIn(delegate);
+      }
+    }
+  }
+
+  /**
+   * Reset an unmarshaller to its original configuration and check it back into the pool. An unmarshaller that can't be
+   * reset is left for the garbage collector.
+   *
+   * @param delegate The unmarshaller.
+   */
+  @SuppressWarnings ( "deprecation" )
+  private void checkIn(Unmarshaller delegate) {
+    if (!this.restorable) {
+      return;
+    }
+
+    try {
+      for (Map.Entry<String, Object> property : this.originalProperties.entrySet()) {
+        delegate.setProperty(property.getKey(), property.getValue());
+      }
+      for (Map.Entry<Class<? extends XmlAdapter>, XmlAdapter> adapter : this.originalAdapters.entrySet()) {
+        setAdapter(delegate, adapter.getKey(), adapter.getValue());
+      }
+      if (this.originalValidating != null) {
+        delegate.setValidating(this.originalValidating);
+      }
+      delegate.setEventHandler(null);
+      delegate.setAttachmentUnmarshaller(null);
+      delegate.setSchema(null);
+      delegate.setListener(null);
+    }
+    catch (JAXBException e) {
+      return;
+    }
+    catch (RuntimeException e) {
+      return;
+    }
+
+    this.context.checkIn(delegate);
+  }
+
+  private static <A extends XmlAdapter> void setAdapter(Unmarshaller unmarshaller, Class<A> type, XmlAdapter adapter) {
+    unmarshaller.setAdapter(type, type.cast(adapter));
+  }
+
+  public Object unmarshal(File f) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(f);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public Object unmarshal(InputStream is) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(is);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public Object unmarshal(Reader reader) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(reader);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public Object unmarshal(URL url) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(url);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public Object unmarshal(InputSource source) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(source);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public Object unmarshal(Node node) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(node);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public <T> JAXBElement<T> unmarshal(Node node, Class<T> declaredType) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(node, declaredType);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public Object unmarshal(Source source) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(source);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public <T> JAXBElement<T> unmarshal(Source source, Class<T> declaredType) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(source, declaredType);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public Object unmarshal(XMLStreamReader reader) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(reader);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public <T> JAXBElement<T> unmarshal(XMLStreamReader reader, Class<T> declaredType) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(reader, declaredType);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public Object unmarshal(XMLEventReader reader) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(reader);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public <T> JAXBElement<T> unmarshal(XMLEventReader reader, Class<T> declaredType) throws JAXBException {
+    Unmarshaller delegate = checkOut();
+    try {
+      return delegate.unmarshal(reader, declaredType);
+    }
+    finally {
+      checkIn(delegate);
+    }
+  }
+
+  public UnmarshallerHandler getUnmarshallerHandler() {
+    //the handler drives the unmarshaller outside of our control, so it's never checked back in.
+    try {
+      return checkOut().getUnmarshallerHandler();
+    }
+    catch (JAXBException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @SuppressWarnings ( "deprecation" )
+  public void setValidating(boolean validating) throws JAXBException {
+    if (this.originalValidating == null) {
+      this.originalValidating = isValidating();
+    }
+    this.validating = validating;
+  }
+
+  @SuppressWarnings ( "deprecation" )
+  public boolean isValidating() throws JAXBException {
+    if (this.validating != null) {
+      return this.validating;
+    }
+
+    Unmarshaller delegate = this.context.checkOutUnmarshaller();
+    try {
+      return delegate.isValidating();
+    }
+    finally {
+      this.context.checkIn(delegate);
+    }
+  }
+
+  public void setEventHandler(ValidationEventHandler handler) throws JAXBException {
+    this.eventHandler = handler;
+  }
+
+  public ValidationEventHandler getEventHandler() throws JAXBException {
+    if (this.eventHandler != null) {
+      return this.eventHandler;
+    }
+
+    Unmarshaller delegate = this.context.checkOutUnmarshaller();
+    try {
+      return delegate.getEventHandler();
+    }
+    finally {
+      this.context.checkIn(delegate);
+    }
+  }
+
+  public void setProperty(String name, Object value) throws PropertyException {
+    //set it on a pooled unmarshaller first so an unsupported property fails here, like it would on any unmarshaller.
+    Unmarshaller delegate;
+    try {
+      delegate = this.context.checkOutUnmarshaller();
+    }
+    catch (JAXBException e) {
+      throw new PropertyException(e);
+    }
+
+    boolean restored = false;
+    try {
+      Object original;
+      try {
+        original = delegate.getProperty(name);
+      }
+      catch (PropertyException e) {
+        //can't be restored.
+        this.restorable = false;
+        delegate.setProperty(name, value);
+        this.properties.put(name, value);
+        return;
+      }
+
+      delegate.setProperty(name, value);
+      delegate.setProperty(name, original);
+      restored = true;
+      if (!this.originalProperties.containsKey(name)) {
+        this.originalProperties.put(name, original);
+      }
+      this.properties.put(name, value);
+    }
+    finally {
+      if (restored) {
+        this.context.checkIn(delegate);
+      }
+      //otherwise, it may still have the property set, so it's dropped rather than pooled.
+    }
+  }
+
+  public Object getProperty(String name) throws PropertyException {
+    if (this.properties.containsKey(name)) {
+      return this.properties.get(name);
+    }
+
+    Unmarshaller delegate;
+    try {
+      delegate = this.context.checkOutUnmarshaller();
+    }
+    catch (JAXBException e) {
+      throw new PropertyException(e);
+    }
+
+    try {
+      return delegate.getProperty(name);
+    }
+    finally {
+      this.context.checkIn(delegate);
+    }
+  }
+
+  public void setSchema(Schema schema) {
+    this.schema = schema;
+  }
+
+  public Schema getSchema() {
+    return this.schema;
+  }
+
+  public void setAdapter(XmlAdapter adapter) {
+    if (adapter == null) {
+      throw new IllegalArgumentException();
+    }
+    setAdapterOfType(adapter.getClass(), adapter);
+  }
+
+  private <A extends XmlAdapter> void setAdapterOfType(Class<A> type, XmlAdapter adapter) {
+    setAdapter(type, type.cast(adapter));
+  }
+
+  public <A extends XmlAdapter> void setAdapter(Class<A> type, A adapter) {
+    if (type == null) {
+      throw new IllegalArgumentException();
+    }
+
+    if (!this.originalAdapters.containsKey(type)) {
+      //pooled unmarshallers are all configured the same, so the original adapter of any of them will do.
+      this.originalAdapters.put(type, getAdapter(type));
+    }
+    this.adapters.put(type, adapter);
+  }
+
+  public <A extends XmlAdapter> A getAdapter(Class<A> type) {
+    if (this.adapters.containsKey(type)) {
+      return type.cast(this.adapters.get(type));
+    }
+
+    Unmarshaller delegate;
+    try {
+      delegate = this.context.checkOutUnmarshaller();
+    }
+    catch (JAXBException e) {
+      throw new IllegalStateException(e);
+    }
+
+    try {
+      return delegate.getAdapter(type);
+    }
+    finally {
+      this.context.checkIn(delegate);
+    }
+  }
+
+  public void setAttachmentUnmarshaller(AttachmentUnmarshaller au) {
+    this.attachmentUnmarshaller = au;
+  }
+
+  public AttachmentUnmarshaller getAttachmentUnmarshaller() {
+    return this.attachmentUnmarshaller;
+  }
+
+  public void setListener(Listener listener) {
+    this.listener = listener;
+  }
+
+  public Listener getListener() {
+    return this.listener;
+  }
+}
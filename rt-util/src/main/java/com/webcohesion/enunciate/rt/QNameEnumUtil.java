@@ -24,6 +24,7 @@ import javax.xml.namespace.QName;
 import java.lang.reflect.Field;
 import java.net.URI;
 import java.util.EnumMap;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -42,7 +43,7 @@ public class QNameEnumUtil {
   private static final AtomicBoolean WRITE_RELATIVE_URIS = new AtomicBoolean(false);
   private static final QName UNKNOWN_QNAME_ENUM = new QName("enunciate:qname-enum", "UNKNOWN");
   private static final QName EXCLUDED_QNAME_ENUM = new QName("enunciate:qname-enum", "EXCLUDED");
-  private static final Map<Class<? extends Enum>, Map<? extends Enum, QName>> QNAME_CACHE = new ConcurrentHashMap<Class<? extends Enum>, Map<? extends Enum, QName>>();
+  private static final Map<Class<?>, QNameEnumIndex<?>> INDEXES = new ConcurrentHashMap<Class<?>, QNameEnumIndex<?>>();
 
   /**
    * Set the default base uri for resolving qname URIs.
@@ -94,32 +95,13 @@ public class QNameEnumUtil {
       return null;
     }
 
-    if (!clazz.isEnum()) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", clazz.getName()));
-    }
-
-    Map<? extends Enum, QName> qNameMap = QNAME_CACHE.get(clazz);
-    if (qNameMap == null) {
-      qNameMap = createQNameMap(clazz);
-      QNAME_CACHE.put(clazz, qNameMap);
-    }
-
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo.base() != XmlQNameEnum.BaseType.QNAME) {
+    QNameEnumIndex<Q> index = indexOf(clazz);
+    if (index.base != XmlQNameEnum.BaseType.QNAME) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted from a URI (not QName).");
     }
 
-    Q defaultValue = null;
-    for (Map.Entry<? extends Enum, QName> qNameEntry : qNameMap.entrySet()) {
-      if (qNameEntry.getValue().equals(qname)) {
-        return (Q) qNameEntry.getKey();
-      }
-      else if (defaultValue == null && UNKNOWN_QNAME_ENUM.equals(qNameEntry.getValue())) {
-        defaultValue = (Q) qNameEntry.getKey();
-      }
-    }
-
-    return defaultValue;
+    Q value = index.byQName.get(qname);
+    return value == null ? index.unknown : value;
   }
 
   /**
@@ -136,35 +118,12 @@ public class QNameEnumUtil {
       return null;
     }
 
-    if (!e.getDeclaringClass().isEnum()) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", e.getDeclaringClass().getName()));
-    }
-    Class<Enum> clazz = e.getDeclaringClass();
-
-    Map<? extends Enum, QName> qNameMap = QNAME_CACHE.get(clazz);
-    if (qNameMap == null) {
-      qNameMap = createQNameMap(clazz);
-      QNAME_CACHE.put(clazz, qNameMap);
-    }
-
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo.base() != XmlQNameEnum.BaseType.QNAME) {
-      throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted from a URI (not QName).");
+    QNameEnumIndex<?> index = indexOf(e.getDeclaringClass());
+    if (index.base != XmlQNameEnum.BaseType.QNAME) {
+      throw new IllegalArgumentException("Class " + e.getDeclaringClass().getName() + " is supposed to be converted from a URI (not QName).");
     }
 
-    QName result = qNameMap.get(e);
-    if (result == null) {
-      throw new IllegalStateException("Unable to find " + e.getDeclaringClass().getName() + "." + e + " as a QName enum value.");
-    }
-    else if (UNKNOWN_QNAME_ENUM.equals(result)) {
-      throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is not a QName enum value.");
-    }
-    else if (EXCLUDED_QNAME_ENUM.equals(result)) {
-      throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is excluded a QName enum value.");
-    }
-    else {
-      return result;
-    }
+    return index.qnameOf(e);
   }
 
   /**
@@ -195,37 +154,26 @@ public class QNameEnumUtil {
       return null;
     }
 
-    if (defaultBaseUri != null) {
-      uriValue = URI.create(defaultBaseUri).resolve(uriValue).toString();
-    }
-
-    if (!clazz.isEnum()) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", clazz.getName()));
-    }
-
-    Map<? extends Enum, QName> qNameMap = QNAME_CACHE.get(clazz);
-    if (qNameMap == null) {
-      qNameMap = createQNameMap(clazz);
-      QNAME_CACHE.put(clazz, qNameMap);
-    }
-
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo.base() != XmlQNameEnum.BaseType.URI) {
+    QNameEnumIndex<Q> index = indexOf(clazz);
+    if (index.base != XmlQNameEnum.BaseType.URI) {
       throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted to a QName (not URI).");
     }
 
-    Q defaultValue = null;
-    for (Map.Entry<? extends Enum, QName> qNameEntry : qNameMap.entrySet()) {
-      String uri = qNameEntry.getValue().getNamespaceURI() + qNameEntry.getValue().getLocalPart();
-      if (uri.equals(uriValue)) {
-        return (Q) qNameEntry.getKey();
+    Q value;
+    if (defaultBaseUri == null) {
+      value = index.byURI.get(uriValue);
+    }
+    else {
+      value = index.byAbsoluteURI.get(uriValue);
+      if (value == null) {
+        value = index.relativeURIs(defaultBaseUri).get(uriValue);
       }
-      else if (defaultValue == null && UNKNOWN_QNAME_ENUM.equals(qNameEntry.getValue())) {
-        defaultValue = (Q) qNameEntry.getKey();
+      if (value == null) {
+        value = index.byURI.get(URI.create(defaultBaseUri).resolve(uriValue).toString());
       }
     }
 
-    return defaultValue;
+    return value == null ? index.unknown : value;
   }
 
   /**
@@ -256,47 +204,48 @@ public class QNameEnumUtil {
       return null;
     }
 
-    if (!e.getDeclaringClass().isEnum()) {
-      throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", e.getDeclaringClass().getName()));
+    QNameEnumIndex<?> index = indexOf(e.getDeclaringClass());
+    if (index.base != XmlQNameEnum.BaseType.URI) {
+      throw new IllegalArgumentException("Class " + e.getDeclaringClass().getName() + " is supposed to be converted to a QName (not URI).");
     }
-    Class<? extends Enum<?>> clazz = e.getDeclaringClass();
 
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo.base() != XmlQNameEnum.BaseType.URI) {
-      throw new IllegalArgumentException("Class " + clazz.getName() + " is supposed to be converted to a QName (not URI).");
-    }
-
-    Map<? extends Enum, QName> qNameMap = QNAME_CACHE.get(clazz);
-    if (qNameMap == null) {
-      qNameMap = createQNameMap((Class<? extends Enum>) clazz);
-      QNAME_CACHE.put(clazz, qNameMap);
-    }
-
-    QName result = qNameMap.get(e);
-    if (result == null) {
-      throw new IllegalStateException("Unable to find " + e.getDeclaringClass().getName() + "." + e + " as a QName enum value.");
-    }
-    else if (UNKNOWN_QNAME_ENUM.equals(result)) {
-      throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is not a QName enum value.");
-    }
-    else if (EXCLUDED_QNAME_ENUM.equals(result)) {
-      throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is excluded a QName enum value.");
-    }
-    else if (result.getNamespaceURI().equals(defaultBaseUri) && isWriteRelativeUris()) {
+    QName result = index.qnameOf(e);
+    if (result.getNamespaceURI().equals(defaultBaseUri) && isWriteRelativeUris()) {
       return result.getLocalPart();
     }
     else {
-      return result.getNamespaceURI() + result.getLocalPart();
+      return index.uris[e.ordinal()];
     }
   }
 
-  private static <Q extends Enum<Q>> Map<? extends Enum, QName> createQNameMap(Class<Q> clazz) {
-    EnumMap<Q, QName> enumQNameEnumMap = new EnumMap<Q, QName>(clazz);
+  /**
+   * Get the index of the specified QName enum, creating it if necessary.
+   *
+   * @param clazz The enum class.
+   * @return The index.
+   * @throws IllegalArgumentException If <code>clazz</code> isn't a QName enum.
+   */
+  @SuppressWarnings ( "unchecked" )
+  private static <Q extends Enum<Q>> QNameEnumIndex<Q> indexOf(Class clazz) {
+    QNameEnumIndex<Q> index = (QNameEnumIndex<Q>) INDEXES.get(clazz);
+    if (index == null) {
+      if (!clazz.isEnum()) {
+        throw new IllegalArgumentException(String.format("Class %s isn't a QName enum.", clazz.getName()));
+      }
 
-    XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
-    if (enumInfo == null) {
-      throw new IllegalArgumentException("Class " + clazz.getName() + " isn't a QName enum.");
+      synchronized (INDEXES) {
+        index = (QNameEnumIndex<Q>) INDEXES.get(clazz);
+        if (index == null) {
+          index = new QNameEnumIndex<Q>((Class<Q>) clazz);
+          INDEXES.put(clazz, index);
+        }
+      }
     }
+    return index;
+  }
+
+  private static <Q extends Enum<Q>> EnumMap<Q, QName> createQNameMap(Class<Q> clazz, XmlQNameEnum enumInfo) {
+    EnumMap<Q, QName> enumQNameEnumMap = new EnumMap<Q, QName>(clazz);
 
     String namespace = enumInfo.namespace();
     if ("##default".equals(namespace)) {
@@ -341,4 +290,126 @@ public class QNameEnumUtil {
     return enumQNameEnumMap;
   }
 
+  /**
+   * The precomputed mappings of a QName enum, in both directions.
+   */
+  private static final class QNameEnumIndex<Q extends Enum<Q>> {
+
+    final XmlQNameEnum.BaseType base;
+    final EnumMap<Q, QName> qnames;
+    final String[] uris;
+    final Map<QName, Q> byQName = new HashMap<QName, Q>();
+    final Map<String, Q> byURI = new HashMap<String, Q>();
+    final Map<String, Q> byAbsoluteURI = new HashMap<String, Q>();
+    final Q unknown;
+    private volatile RelativeURIs<Q> relativeURIs;
+
+    QNameEnumIndex(Class<Q> clazz) {
+      XmlQNameEnum enumInfo = clazz.getAnnotation(XmlQNameEnum.class);
+      if (enumInfo == null) {
+        throw new IllegalArgumentException("Class " + clazz.getName() + " isn't a QName enum.");
+      }
+
+      this.base = enumInfo.base();
+      this.qnames = createQNameMap(clazz, enumInfo);
+      this.uris = new String[clazz.getEnumConstants().length];
+
+      Q unknown = null;
+      for (Map.Entry<Q, QName> entry : this.qnames.entrySet()) {
+        Q e = entry.getKey();
+        QName qname = entry.getValue();
+        String uri = qname.getNamespaceURI() + qname.getLocalPart();
+        this.uris[e.ordinal()] = uri;
+
+        //the first enum declared for a value wins.
+        if (!this.byQName.containsKey(qname)) {
+          this.byQName.put(qname, e);
+        }
+        if (!this.byURI.containsKey(uri)) {
+          this.byURI.put(uri, e);
+          if (isAbsolute(uri)) {
+            //an absolute uri resolves to itself against any base.
+            this.byAbsoluteURI.put(uri, e);
+          }
+        }
+        if (unknown == null && UNKNOWN_QNAME_ENUM.equals(qname)) {
+          unknown = e;
+        }
+      }
+      this.unknown = unknown;
+    }
+
+    QName qnameOf(Enum e) {
+      QName result = this.qnames.get(e);
+      if (result == null) {
+        throw new IllegalStateException("Unable to find " + e.getDeclaringClass().getName() + "." + e + " as a QName enum value.");
+      }
+      else if (UNKNOWN_QNAME_ENUM.equals(result)) {
+        throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is not a QName enum value.");
+      }
+      else if (EXCLUDED_QNAME_ENUM.equals(result)) {
+        throw new IllegalArgumentException(e.getDeclaringClass().getName() + "." + e + " is excluded a QName enum value.");
+      }
+      return result;
+    }
+
+    /**
+     * The enums by the uris, relative to the specified base uri, that resolve to them.
+     *
+     * @param baseUri The base uri.
+     * @return The enums by relative uri.
+     */
+    Map<String, Q> relativeURIs(String baseUri) {
+      RelativeURIs<Q> relativeURIs = this.relativeURIs;
+      if (relativeURIs == null || !relativeURIs.baseUri.equals(baseUri)) {
+        relativeURIs = new RelativeURIs<Q>(baseUri, this.byURI);
+        this.relativeURIs = relativeURIs;
+      }
+      return relativeURIs.values;
+    }
+
+    private static boolean isAbsolute(String uri) {
+      try {
+        return URI.create(uri).isAbsolute();
+      }
+      catch (IllegalArgumentException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * The enums of a QName enum by the uris, relative to a base uri, that resolve to them.
+   */
+  private static final class RelativeURIs<Q extends Enum<Q>> {
+
+    final String baseUri;
+    final Map<String, Q> values = new HashMap<String, Q>();
+
+    RelativeURIs(String baseUri, Map<String, Q> byURI) {
+      this.baseUri = baseUri;
+
+      URI base;
+      try {
+        base = URI.create(baseUri);
+      }
+      catch (IllegalArgumentException e) {
+        //can't relativize against an invalid base uri.
+        return;
+      }
+
+      for (Map.Entry<String, Q> entry : byURI.entrySet()) {
+        try {
+          String relative = base.relativize(URI.create(entry.getKey())).toString();
+          if (!relative.equals(entry.getKey()) && base.resolve(relative).toString().equals(entry.getKey())) {
+            this.values.put(relative, entry.getValue());
+          }
+        }
+        catch (IllegalArgumentException e) {
+          //fall through; the uri will be resolved when it's looked up.
+        }
+      }
+    }
+  }
+
 }
@@ -0,0 +1,176 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.rt;
+
+import junit.framework.TestCase;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.PropertyException;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Properties;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestEnunciateJaxbContext extends TestCase {
+
+  @XmlRootElement(namespace = "urn:pooled")
+  public static class Thing {
+    public String name;
+  }
+
+  /**
+   * tests pooling the marshallers and unmarshallers of a context.
+   */
+  public void testPooling() throws Exception {
+    Properties prefixes = new Properties();
+    prefixes.setProperty("urn:pooled", "p");
+    EnunciateJaxbContext context = new EnunciateJaxbContext(JAXBContext.newInstance(Thing.class), new EnunciateJaxbNamespacePrefixMapper(null, prefixes), true);
+    assertTrue(context.isPooled());
+
+    final Thing thing = new Thing();
+    thing.name = "pooled";
+
+    Marshaller formatting = context.createMarshaller();
+    formatting.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, Boolean.TRUE);
+    formatting.setProperty(Marshaller.JAXB_FRAGMENT, Boolean.TRUE);
+
+    //each marshaller keeps its own configuration.
+    Marshaller plain = context.createMarshaller();
+    assertNotSame(formatting, plain);
+    assertEquals(Boolean.TRUE, formatting.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+    assertEquals(Boolean.FALSE, plain.getProperty(Marshaller.JAXB_FORMATTED_OUTPUT));
+
+    StringWriter out = new StringWriter();
+    plain.marshal(thing, out);
+    String unformatted = out.toString();
+    assertTrue(unformatted.startsWith("<?xml"));
+    assertFalse(unformatted.contains("\n"));
+    assertTrue(unformatted.contains("<p:thing"));
+
+    out = new StringWriter();
+    formatting.marshal(thing, out);
+    String formatted = out.toString();
+    assertFalse(formatted.startsWith("<?xml"));
+    assertTrue(formatted.contains("\n"));
+    assertTrue(formatted.contains("<p:thing"));
+    assertEquals(Boolean.TRUE, formatting.getProperty(Marshaller.JAXB_FRAGMENT));
+
+    //only one was ever needed.
+    assertEquals(1, context.getMarshallerPoolMisses());
+    assertTrue(context.getMarshallerPoolHits() > 0);
+
+    //nested use gets another one.
+    final EnunciateJaxbContext pooled = context;
+    final String[] inner = new String[1];
+    Marshaller outer = context.createMarshaller();
+    Marshaller.Listener listener = new Marshaller.Listener() {
+      @Override
+      public void beforeMarshal(Object source) {
+        if (inner[0] == null) {
+          try {
+            StringWriter innerOut = new StringWriter();
+            pooled.createMarshaller().marshal(thing, innerOut);
+            inner[0] = innerOut.toString();
+          }
+          catch (Exception e) {
+            throw new RuntimeException(e);
+          }
+        }
+      }
+    };
+    outer.setListener(listener);
+    out = new StringWriter();
+    outer.marshal(thing, out);
+    assertEquals(unformatted, inner[0]);
+    assertEquals(unformatted, out.toString());
+    assertEquals(2, context.getMarshallerPoolMisses());
+    assertSame(listener, outer.getListener());
+    assertNull(plain.getListener());
+
+    //a marshaller can be used on another thread, which shares the pool.
+    final Marshaller shared = formatting;
+    final String[] other = new String[1];
+    Thread thread = new Thread() {
+      @Override
+      public void run() {
+        try {
+          StringWriter otherOut = new StringWriter();
+          shared.marshal(thing, otherOut);
+          other[0] = otherOut.toString();
+        }
+        catch (Exception e) {
+          throw new RuntimeException(e);
+        }
+      }
+    };
+    thread.start();
+    thread.join();
+    assertEquals(formatted, other[0]);
+    assertEquals(2, context.getMarshallerPoolMisses());
+
+    Unmarshaller listening = context.createUnmarshaller();
+    final int[] unmarshalled = new int[1];
+    Unmarshaller.Listener unmarshalListener = new Unmarshaller.Listener() {
+      @Override
+      public void afterUnmarshal(Object target, Object parent) {
+        unmarshalled[0]++;
+      }
+    };
+    listening.setListener(unmarshalListener);
+    Unmarshaller unmarshaller = context.createUnmarshaller();
+    assertNotSame(listening, unmarshaller);
+    assertEquals("pooled", ((Thing) unmarshaller.unmarshal(new StringReader(unformatted))).name);
+    assertEquals(0, unmarshalled[0]);
+    assertEquals("pooled", ((Thing) listening.unmarshal(new StringReader(unformatted))).name);
+    assertEquals(1, unmarshalled[0]);
+    assertSame(unmarshalListener, listening.getListener());
+    assertNull(unmarshaller.getListener());
+    assertEquals(1, context.getUnmarshallerPoolMisses());
+    assertEquals(1, context.getUnmarshallerPoolHits());
+
+    context = new EnunciateJaxbContext(JAXBContext.newInstance(Thing.class), null);
+    assertFalse(context.isPooled());
+    assertNotSame(context.createMarshaller(), context.createMarshaller());
+  }
+
+  /**
+   * tests that a pooled marshaller rejects an unsupported property like any marshaller.
+   */
+  public void testPoolingUnsupportedProperty() throws Exception {
+    EnunciateJaxbContext context = new EnunciateJaxbContext(JAXBContext.newInstance(Thing.class), null, true);
+    Marshaller marshaller = context.createMarshaller();
+    try {
+      marshaller.setProperty("urn:unsupported", Boolean.TRUE);
+      fail();
+    }
+    catch (PropertyException e) {
+      //fall through...
+    }
+
+    StringWriter out = new StringWriter();
+    marshaller.marshal(new Thing(), out);
+    assertTrue(out.toString().contains("thing"));
+
+    //the one that may have been left with the property wasn't pooled.
+    assertEquals(2, context.getMarshallerPoolMisses());
+    assertEquals(0, context.getMarshallerPoolHits());
+  }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.rt;
+
+import junit.framework.TestCase;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlType;
+import java.io.*;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Enumeration;
+
+/**
+ * @author Ryan Heaton
+ */
+public class TestEnunciateJaxbContextResolver extends TestCase {
+
+  @XmlRootElement(namespace = "urn:people")
+  public static class Person {
+    public String name;
+  }
+
+  @XmlRootElement(namespace = "urn:people")
+  public static class Address {
+    public String city;
+  }
+
+  @XmlRootElement(namespace = "urn:orders")
+  public static class Order {
+    public String id;
+  }
+
+  @XmlRootElement(namespace = "urn:drawings")
+  public static class Drawing {
+    public Shape shape;
+  }
+
+  @XmlType(namespace = "urn:drawings")
+  public static class Shape {
+    public String color;
+  }
+
+  @XmlType(namespace = "urn:circles")
+  public static class Circle extends Shape {
+    public int radius;
+  }
+
+  /**
+   * tests creating the contexts lazily, by namespace.
+   */
+  public void testLazyContexts() throws Exception {
+    File dir = File.createTempFile("jaxb-context", "");
+    dir.delete();
+    dir.mkdirs();
+    write(new File(dir, "jaxb-context-classes.list"), Person.class.getName() + "\n" + Address.class.getName() + "\n" + Order.class.getName() + "\n");
+    write(new File(dir, "jaxb-context-classes.index"),
+      "namespace urn:orders\n" +
+      "class " + Order.class.getName() + "\n" +
+      "namespace urn:people\n" +
+      "class " + Address.class.getName() + "\n" +
+      "class " + Person.class.getName() + "\n");
+
+    ClassLoader original = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(newResourceClassLoader(dir));
+    try {
+      EnunciateJaxbContextResolver resolver = new EnunciateJaxbContextResolver(true, false);
+      JAXBContext people = resolver.getContext(Person.class);
+      assertNotNull(people);
+      assertSame(people, resolver.getContext(Address.class));
+      JAXBContext orders = resolver.getContext(Order.class);
+      assertNotNull(orders);
+      assertNotSame(people, orders);
+
+      StringWriter out = new StringWriter();
+      Person person = new Person();
+      person.name = "Mary";
+      people.createMarshaller().marshal(person, out);
+      assertTrue(out.toString().contains("Mary"));
+
+      JAXBContext all = resolver.getContext(String.class);
+      assertNotNull(all);
+      assertNotSame(people, all);
+      assertSame(all, resolver.getContext(Integer.class));
+
+      resolver = new EnunciateJaxbContextResolver(true, true);
+      assertNotNull(resolver.getContext(Order.class));
+
+      resolver = new EnunciateJaxbContextResolver(false, false);
+      assertSame(resolver.getContext(Person.class), resolver.getContext(Order.class));
+    }
+    finally {
+      Thread.currentThread().setContextClassLoader(original);
+      delete(dir);
+    }
+  }
+
+  /**
+   * tests that the context for a namespace binds the subclasses in the namespaces it includes, and that a namespace that
+   * needs all the classes uses the context for all the classes.
+   */
+  public void testLazyContextsIncludeNamespaces() throws Exception {
+    File dir = File.createTempFile("jaxb-context", "");
+    dir.delete();
+    dir.mkdirs();
+    write(new File(dir, "jaxb-context-classes.list"), Drawing.class.getName() + "\n" + Person.class.getName() + "\n");
+    write(new File(dir, "jaxb-context-classes.index"),
+      "namespace urn:circles\n" +
+      "include urn:drawings\n" +
+      "type " + Circle.class.getName() + "\n" +
+      "namespace urn:drawings\n" +
+      "include urn:circles\n" +
+      "class " + Drawing.class.getName() + "\n" +
+      "type " + Shape.class.getName() + "\n" +
+      "namespace urn:people\n" +
+      "include-all\n" +
+      "class " + Person.class.getName() + "\n");
+
+    ClassLoader original = Thread.currentThread().getContextClassLoader();
+    Thread.currentThread().setContextClassLoader(newResourceClassLoader(dir));
+    try {
+      EnunciateJaxbContextResolver resolver = new EnunciateJaxbContextResolver(true, false);
+      JAXBContext drawings = resolver.getContext(Drawing.class);
+      assertNotNull(drawings);
+      assertNotSame(drawings, resolver.getContext(String.class));
+
+      Drawing drawing = new Drawing();
+      Circle circle = new Circle();
+      circle.color = "red";
+      circle.radius = 3;
+      drawing.shape = circle;
+      StringWriter out = new StringWriter();
+      drawings.createMarshaller().marshal(drawing, out);
+      assertTrue(out.toString(), out.toString().contains("urn:circles"));
+
+      drawing = (Drawing) drawings.createUnmarshaller().unmarshal(new StringReader(out.toString()));
+      assertTrue(drawing.shape instanceof Circle);
+      assertEquals(3, ((Circle) drawing.shape).radius);
+      assertEquals("red", drawing.shape.color);
+
+      assertSame(resolver.getContext(String.class), resolver.getContext(Person.class));
+    }
+    finally {
+      Thread.currentThread().setContextClassLoader(original);
+      delete(dir);
+    }
+  }
+
+  private ClassLoader newResourceClassLoader(File dir) throws IOException {
+    return new URLClassLoader(new URL[]{dir.toURI().toURL()}, getClass().getClassLoader()) {
+      @Override
+      public Enumeration<URL> getResources(String name) throws IOException {
+        //the resolver looks up its resources with a leading slash.
+        return super.getResources(name.startsWith("/") ? name.substring(1) : name);
+      }
+    };
+  }
+
+  private static void delete(File dir) {
+    for (File file : dir.listFiles()) {
+      file.delete();
+    }
+    dir.delete();
+  }
+
+  private static void write(File file, String content) throws IOException {
+    Writer writer = new OutputStreamWriter(new FileOutputStream(file), "utf-8");
+    try {
+      writer.write(content);
+    }
+    finally {
+      writer.close();
+    }
+  }
+}
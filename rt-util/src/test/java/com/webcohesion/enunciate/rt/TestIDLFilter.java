@@ -20,13 +20,13 @@ import junit.framework.TestCase;
 import javax.servlet.FilterChain;
 import javax.servlet.FilterConfig;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.util.zip.GZIPInputStream;
 
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.reset;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 /**
  * @author Ryan Heaton
@@ -48,25 +48,196 @@ public class TestIDLFilter extends TestCase {
     when(req.getRequestURL()).thenReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
     when(req.getContextPath()).thenReturn("/mycontext");
     when(context.getResourceAsStream("/something/test.wsdl")).thenReturn(getClass().getResourceAsStream("test.wsdl"));
-    StringWriter writer = new StringWriter();
-    when(res.getWriter()).thenReturn(new PrintWriter(writer));
+    ByteArrayOutputStream out = capture(res);
 
     filter.init(filterConfig);
     filter.doFilter(req, res, chain);
-    String actual = writer.toString();
+    String actual = out.toString("utf-8");
     assertFalse(actual.contains("http://localhost:8080/base"));
 
     reset(req, context, res);
     when(req.getRequestURL()).thenReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
     when(req.getContextPath()).thenReturn("");
     when(context.getResourceAsStream("/mycontext/something/test.wsdl")).thenReturn(getClass().getResourceAsStream("test.wsdl"));
-    writer = new StringWriter();
-    when(res.getWriter()).thenReturn(new PrintWriter(writer));
+    out = capture(res);
 
     filter.init(filterConfig);
     filter.doFilter(req, res, chain);
-    actual = writer.toString();
+    actual = out.toString("utf-8");
     assertFalse(actual.contains("http://localhost:8080/base"));
   }
 
+  /**
+   * tests the caching of rendered IDL, conditional requests, and gzip encoding.
+   */
+  public void testCaching() throws Exception {
+    ServletContext context = mock(ServletContext.class);
+    FilterConfig filterConfig = mock(FilterConfig.class);
+    when(filterConfig.getServletContext()).thenReturn(context);
+    HttpServletRequest req = mock(HttpServletRequest.class);
+    HttpServletResponse res = mock(HttpServletResponse.class);
+    FilterChain chain = mock(FilterChain.class);
+    IDLFilter filter = new IDLFilter();
+
+    when(req.getRequestURL()).thenReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    when(req.getContextPath()).thenReturn("/mycontext");
+    when(context.getResourceAsStream("/something/test.wsdl")).thenReturn(getClass().getResourceAsStream("test.wsdl"));
+    ByteArrayOutputStream out = capture(res);
+
+    filter.init(filterConfig);
+    filter.doFilter(req, res, chain);
+    String rendered = out.toString("utf-8");
+    assertTrue(rendered.contains("http://myhost.com/mycontext"));
+    verify(res).setHeader(eq("ETag"), anyString());
+    verify(res).setContentLength(out.size());
+
+    //second request is served from the cache, gzipped.
+    reset(context, res);
+    when(req.getHeader("Accept-Encoding")).thenReturn("deflate, gzip;q=0.8");
+    out = capture(res);
+    filter.doFilter(req, res, chain);
+    verify(context, never()).getResourceAsStream(anyString());
+    verify(res).setHeader("Content-Encoding", "gzip");
+    verify(chain, never()).doFilter(req, res);
+    assertEquals(rendered, read(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))));
+
+    //conditional request for the identity encoding.
+    IDLFilter.RenderedIDL idl = filter.findRenderedIDL("/something/test.wsdl", "http://myhost.com/mycontext");
+    reset(res);
+    when(req.getHeader("Accept-Encoding")).thenReturn(null);
+    when(req.getHeader("If-None-Match")).thenReturn(idl.getETag());
+    out = capture(res);
+    filter.doFilter(req, res, chain);
+    verify(res).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    assertEquals(0, out.size());
+
+    //a different entity tag gets the content.
+    reset(res);
+    when(req.getHeader("If-None-Match")).thenReturn(idl.getGzippedETag());
+    out = capture(res);
+    filter.doFilter(req, res, chain);
+    verify(res, never()).setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+    assertEquals(rendered, out.toString("utf-8"));
+
+    //unknown IDL passes through.
+    reset(context, res);
+    when(req.getRequestURL()).thenReturn(new StringBuffer("http://myhost.com/mycontext/something/other.wsdl"));
+    filter.doFilter(req, res, chain);
+    verify(chain).doFilter(req, res);
+  }
+
+  /**
+   * tests that a cached rendering is rendered again when the IDL is modified.
+   */
+  public void testRevalidation() throws Exception {
+    String original = read(getClass().getResourceAsStream("test.wsdl"));
+    File file = File.createTempFile("test", ".wsdl");
+    file.deleteOnExit();
+    write(file, original);
+    file.setLastModified(1000000000000L);
+
+    ServletContext context = mock(ServletContext.class);
+    FilterConfig filterConfig = mock(FilterConfig.class);
+    when(filterConfig.getServletContext()).thenReturn(context);
+    HttpServletRequest req = mock(HttpServletRequest.class);
+    HttpServletResponse res = mock(HttpServletResponse.class);
+    FilterChain chain = mock(FilterChain.class);
+    IDLFilter filter = new IDLFilter();
+    filter.init(filterConfig);
+
+    when(req.getRequestURL()).thenReturn(new StringBuffer("http://myhost.com/mycontext/something/test.wsdl"));
+    when(req.getContextPath()).thenReturn("/mycontext");
+    when(context.getRealPath("/something/test.wsdl")).thenReturn(file.getAbsolutePath());
+    when(context.getResourceAsStream("/something/test.wsdl")).thenReturn(new FileInputStream(file));
+    ByteArrayOutputStream out = capture(res);
+    filter.doFilter(req, res, chain);
+    assertTrue(out.toString("utf-8").contains("documentation"));
+    verify(res).setDateHeader("Last-Modified", 1000000000000L);
+    String etag = filter.findRenderedIDL("/something/test.wsdl", "http://myhost.com/mycontext").getETag();
+
+    //redeployed.
+    write(file, original.replace("documentation", "redeployed"));
+    file.setLastModified(1000000005000L);
+    reset(res);
+    when(context.getResourceAsStream("/something/test.wsdl")).thenReturn(new FileInputStream(file));
+    out = capture(res);
+    filter.doFilter(req, res, chain);
+    assertTrue(out.toString("utf-8").contains("redeployed"));
+    verify(res).setDateHeader("Last-Modified", 1000000005000L);
+    assertFalse(etag.equals(filter.findRenderedIDL("/something/test.wsdl", "http://myhost.com/mycontext").getETag()));
+  }
+
+  /**
+   * tests splicing the base address into the IDL at the offsets of the index.
+   */
+  public void testSplicing() throws Exception {
+    String original = read(getClass().getResourceAsStream("test.wsdl"));
+    String instruction = "<?enunciate-assumed-base-uri http://localhost:8080/base?>\n";
+    assertTrue(original.contains(instruction));
+    String expected = original.replace(instruction, "").replace("http://localhost:8080/base", "http://myhost.com/my&amp;context");
+
+    ServletContext context = mock(ServletContext.class);
+    FilterConfig filterConfig = mock(FilterConfig.class);
+    when(filterConfig.getServletContext()).thenReturn(context);
+    when(filterConfig.getInitParameter("idl-cache-size")).thenReturn("0");
+    HttpServletRequest req = mock(HttpServletRequest.class);
+    HttpServletResponse res = mock(HttpServletResponse.class);
+    FilterChain chain = mock(FilterChain.class);
+    IDLFilter filter = new IDLFilter();
+    filter.init(filterConfig);
+
+    when(req.getRequestURL()).thenReturn(new StringBuffer("http://myhost.com/my&context/something/test.wsdl"));
+    when(req.getContextPath()).thenReturn("/my&context");
+    when(context.getResourceAsStream("/something/test.wsdl")).thenReturn(getClass().getResourceAsStream("test.wsdl"));
+    when(context.getResourceAsStream("/something/test.wsdl.offsets")).thenReturn(getClass().getResourceAsStream("test.wsdl.offsets"));
+    ByteArrayOutputStream out = capture(res);
+    filter.doFilter(req, res, chain);
+    assertEquals(expected, out.toString("utf-8"));
+    verify(res).setContentType("text/xml;charset=UTF-8");
+
+    //from the file.
+    reset(context, res);
+    when(context.getRealPath("/something/test.wsdl")).thenReturn(new File(getClass().getResource("test.wsdl").toURI()).getAbsolutePath());
+    when(context.getResourceAsStream("/something/test.wsdl.offsets")).thenReturn(getClass().getResourceAsStream("test.wsdl.offsets"));
+    out = capture(res);
+    filter.doFilter(req, res, chain);
+    assertEquals(expected, out.toString("utf-8"));
+  }
+
+  private static ByteArrayOutputStream capture(HttpServletResponse res) throws IOException {
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    when(res.getOutputStream()).thenReturn(new ServletOutputStream() {
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        out.write(b, off, len);
+      }
+    });
+    return out;
+  }
+
+  private static void write(File file, String content) throws IOException {
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content.getBytes("utf-8"));
+    }
+    finally {
+      out.close();
+    }
+  }
+
+  private static String read(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    int len;
+    while ((len = in.read(buffer)) >= 0) {
+      out.write(buffer, 0, len);
+    }
+    return out.toString("utf-8");
+  }
+
 }
@@ -95,6 +95,9 @@ public class TestQNameEnumUtil extends TestCase {
     assertEquals(SpecialURIEnum.chief, QNameEnumUtil.fromURI("urn:definite#chief", SpecialURIEnum.class));
     QNameEnumUtil.setDefaultBaseUri("http://domain.com/definite/sure/");
     assertEquals(SpecialURIEnum.cool, QNameEnumUtil.fromURI("cool", SpecialURIEnum.class));
+    assertEquals(SpecialURIEnum.cool, QNameEnumUtil.fromURI("../sure/cool", SpecialURIEnum.class));
+    assertEquals(SpecialURIEnum.chief, QNameEnumUtil.fromURI("urn:definite#chief", SpecialURIEnum.class));
+    assertNull(QNameEnumUtil.fromURI("uncool", SpecialURIEnum.class));
     QNameEnumUtil.setDefaultBaseUri(null);
     try {
       QNameEnumUtil.fromURI("urn:definite#howdy", RetentionPolicy.class);
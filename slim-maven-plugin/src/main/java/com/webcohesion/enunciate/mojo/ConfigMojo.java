@@ -60,7 +60,6 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
-import java.net.URLClassLoader;
 import java.util.*;
 
 /**
@@ -208,6 +207,37 @@ public class ConfigMojo extends AbstractMojo {
   @Parameter ( name = "sources" )
   protected String[] sources;
 
+  /**
+   * The number of threads Enunciate may use to scan the classpath concurrently. The modules are always invoked one at a time.
+   */
+  @Parameter ( defaultValue = "1", property = "enunciate.threads" )
+  protected int threads = 1;
+
+  /**
+   * Whether to cache the results of the classpath scan in the build directory so that it can be skipped if the classpath hasn't changed.
+   */
+  @Parameter ( defaultValue = "false", property = "enunciate.scan.cache" )
+  protected boolean scanCache = false;
+
+  /**
+   * The directory in which to index the results of scanning each classpath jar, so unchanged jars aren't scanned again. Can be
+   * shared between builds (e.g. ${user.home}/.enunciate/scan-cache). By default, jars are indexed in the build directory if the scan cache is enabled.
+   */
+  @Parameter ( property = "enunciate.scan.indexDir" )
+  protected File scanIndexDir;
+
+  /**
+   * Ant patterns for the classpath entries (e.g. "spring-*.jar") that can't contain any API types and therefore don't need to be scanned.
+   */
+  @Parameter ( name = "scan-excludes" )
+  protected String[] scanExcludes;
+
+  /**
+   * Whether to write a JSON report of the time, CPU and memory used by each module (enunciate-metrics.json) to the build directory.
+   */
+  @Parameter ( defaultValue = "false", property = "enunciate.metrics.report" )
+  protected boolean metricsReport = false;
+
   public void execute() throws MojoExecutionException {
     if (skipEnunciate) {
       getLog().info("[ENUNCIATE] Skipping enunciate per configuration.");
@@ -222,6 +252,15 @@ public class ConfigMojo extends AbstractMojo {
     //set the build dir.
     enunciate.setBuildDir(this.buildDir);
 
+    //set the threads.
+    if (this.threads > 1) {
+      enunciate.setExtraThreadCount(this.threads);
+    }
+
+    enunciate.setScanCacheEnabled(this.scanCache);
+    enunciate.setScanIndexDir(this.scanIndexDir);
+    enunciate.setMetricsReportEnabled(this.metricsReport);
+
     //load the config.
     EnunciateConfiguration config = enunciate.getConfiguration();
     File configFile = this.configFile;
@@ -278,8 +317,7 @@ public class ConfigMojo extends AbstractMojo {
 
     //load any modules on the classpath.
     List<URL> pluginClasspath = buildPluginClasspath();
-    ServiceLoader<EnunciateModule> moduleLoader = ServiceLoader.load(EnunciateModule.class, new URLClassLoader(pluginClasspath.toArray(new URL[pluginClasspath.size()]), Thread.currentThread().getContextClassLoader()));
-    for (EnunciateModule module : moduleLoader) {
+    for (EnunciateModule module : DiscoveredModules.on(pluginClasspath, Thread.currentThread().getContextClassLoader()).newModules()) {
       enunciate.addModule(module);
     }
 
@@ -323,6 +361,13 @@ public class ConfigMojo extends AbstractMojo {
       }
     }
 
+    //scan excludes.
+    if (this.scanExcludes != null) {
+      for (String scanExclude : this.scanExcludes) {
+        enunciate.addScanExclude(scanExclude);
+      }
+    }
+
     //exports.
     if (this.exports != null) {
       for (String exportId : this.exports.keySet()) {
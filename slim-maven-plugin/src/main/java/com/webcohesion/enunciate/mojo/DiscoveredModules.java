@@ -0,0 +1,102 @@
+/**
+ * Copyright © 2006-2016 Web Cohesion (info@webcohesion.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.webcohesion.enunciate.mojo;
+
+import com.webcohesion.enunciate.EnunciateException;
+import com.webcohesion.enunciate.module.EnunciateModule;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The Enunciate modules discovered on a plugin classpath. The discovered modules are kept for as long as the plugin is loaded,
+ * which for a reactor build means across the executions of all the projects that use the plugin, so only the first execution
+ * pays for creating the module class loader and scanning the plugin classpath for modules. Each execution still gets its own
+ * module instances.
+ *
+ * @author Ryan Heaton
+ */
+final class DiscoveredModules {
+
+  private static final ConcurrentMap<List<Object>, DiscoveredModules> DISCOVERED = new ConcurrentHashMap<List<Object>, DiscoveredModules>();
+
+  private final List<Class<? extends EnunciateModule>> moduleClasses;
+  private List<EnunciateModule> discoveredInstances;
+
+  private DiscoveredModules(List<EnunciateModule> discoveredInstances) {
+    this.discoveredInstances = discoveredInstances;
+    this.moduleClasses = new ArrayList<Class<? extends EnunciateModule>>(discoveredInstances.size());
+    for (EnunciateModule module : discoveredInstances) {
+      this.moduleClasses.add(module.getClass());
+    }
+  }
+
+  /**
+   * The modules discovered on the specified plugin classpath.
+   *
+   * @param pluginClasspath The plugin classpath.
+   * @param parent The parent class loader of the plugin classpath.
+   * @return The discovered modules.
+   */
+  static DiscoveredModules on(List<URL> pluginClasspath, ClassLoader parent) {
+    List<Object> key = Arrays.<Object>asList(parent, new ArrayList<URL>(pluginClasspath));
+    DiscoveredModules discovered = DISCOVERED.get(key);
+    if (discovered == null) {
+      List<EnunciateModule> modules = new ArrayList<EnunciateModule>();
+      ServiceLoader<EnunciateModule> moduleLoader = ServiceLoader.load(EnunciateModule.class, new URLClassLoader(pluginClasspath.toArray(new URL[pluginClasspath.size()]), parent));
+      for (EnunciateModule module : moduleLoader) {
+        modules.add(module);
+      }
+      discovered = new DiscoveredModules(modules);
+      DiscoveredModules existing = DISCOVERED.putIfAbsent(key, discovered);
+      if (existing != null) {
+        discovered = existing;
+      }
+    }
+    return discovered;
+  }
+
+  /**
+   * New instances of the discovered modules, in the order they were discovered.
+   *
+   * @return New instances of the discovered modules.
+   */
+  synchronized List<EnunciateModule> newModules() {
+    if (this.discoveredInstances != null) {
+      //the instances created when the modules were discovered haven't been used yet.
+      List<EnunciateModule> modules = this.discoveredInstances;
+      this.discoveredInstances = null;
+      return modules;
+    }
+
+    List<EnunciateModule> modules = new ArrayList<EnunciateModule>(this.moduleClasses.size());
+    for (Class<? extends EnunciateModule> moduleClass : this.moduleClasses) {
+      try {
+        modules.add(moduleClass.newInstance());
+      }
+      catch (Exception e) {
+        throw new EnunciateException("Unable to instantiate module " + moduleClass.getName() + ".", e);
+      }
+    }
+    return modules;
+  }
+}